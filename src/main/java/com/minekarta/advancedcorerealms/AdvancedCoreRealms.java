@@ -3,19 +3,27 @@ package com.minekarta.advancedcorerealms;
 import com.minekarta.advancedcorerealms.api.AdvancedCorePlayer;
 import com.minekarta.advancedcorerealms.api.AdvancedCorePlayerImpl;
 import com.minekarta.advancedcorerealms.config.ConfigManager;
+import com.minekarta.advancedcorerealms.realm.InventoryOrphanSweeper;
 import com.minekarta.advancedcorerealms.realm.RealmCreator;
 import com.minekarta.advancedcorerealms.worldborder.WorldBorderConfig;
 import com.minekarta.advancedcorerealms.economy.EconomyService;
 import com.minekarta.advancedcorerealms.economy.NoopEconomyService;
 import com.minekarta.advancedcorerealms.economy.VaultEconomyService;
 import com.minekarta.advancedcorerealms.realm.RealmInventoryService;
+import com.minekarta.advancedcorerealms.config.StorageConfig;
+import com.minekarta.advancedcorerealms.storage.CachingInventoryStorage;
+import com.minekarta.advancedcorerealms.storage.InventoryJournal;
 import com.minekarta.advancedcorerealms.storage.InventoryStorage;
+import com.minekarta.advancedcorerealms.storage.PackedInventoryStorage;
 import com.minekarta.advancedcorerealms.storage.StorageManager;
+import com.minekarta.advancedcorerealms.storage.YamlInventoryMigrator;
 import com.minekarta.advancedcorerealms.storage.YamlInventoryStorage;
 import com.minekarta.advancedcorerealms.transactions.TransactionLogger;
 import com.minekarta.advancedcorerealms.upgrades.UpgradeManager;
 import com.minekarta.advancedcorerealms.worldborder.WorldBorderManager;
 import com.minekarta.advancedcorerealms.worldborder.WorldBorderService;
+import com.minekarta.advancedcorerealms.utils.InventoryCodec;
+import com.minekarta.advancedcorerealms.utils.InventorySerializer;
 import com.minekarta.advancedcorerealms.commands.RealmsCommand;
 import com.minekarta.advancedcorerealms.gui.GUIManager;
 import com.minekarta.advancedcorerealms.listeners.*;
@@ -30,6 +38,8 @@ import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
 
 /**
  * The main class for the AdvancedCoreRealms plugin.
@@ -74,13 +84,13 @@ public class AdvancedCoreRealms extends JavaPlugin {
     public void onEnable() {
         instance = this;
 
-        // Initialize Storage Manager
-        this.storageManager = new StorageManager(this);
-
         // Load configuration
         this.configManager = new ConfigManager(this);
         this.configManager.load();
 
+        // Initialize Storage Manager
+        this.storageManager = new StorageManager(this);
+
         this.worldBorderConfig = new WorldBorderConfig(this);
         this.worldBorderConfig.load();
 
@@ -103,8 +113,13 @@ public class AdvancedCoreRealms extends JavaPlugin {
         this.realmCreator = new RealmCreator(this);
 
         // Initialize storage and services
-        this.inventoryStorage = new YamlInventoryStorage(this);
+        this.inventoryStorage = createInventoryStorage();
         this.realmInventoryService = new RealmInventoryService(this, this.inventoryStorage);
+        long sweepIntervalTicks = storageManager.getStorageConfig().getInventoryOrphanSweepIntervalMinutes() * 60L * 20L;
+        if (sweepIntervalTicks > 0) {
+            InventoryOrphanSweeper sweeper = new InventoryOrphanSweeper(getLogger(), inventoryStorage, storageManager.getMetadataIndex());
+            getServer().getScheduler().runTaskTimerAsynchronously(this, sweeper, 20L * 60L, sweepIntervalTicks);
+        }
         this.transactionLogger = new TransactionLogger(this);
         this.worldBorderService = new WorldBorderService(this);
 
@@ -129,6 +144,8 @@ public class AdvancedCoreRealms extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new InventoryClickListener(this), this);
         getServer().getPluginManager().registerEvents(new RealmProtectionListener(this), this);
         getServer().getPluginManager().registerEvents(new RealmTeleportListener(this), this);
+        getServer().getPluginManager().registerEvents(realmManager.getWorldResolver(), this);
+        realmManager.getWorldResolver().bindLoadedWorlds();
 
         // Scan for and log orphaned lock files
         cleanupOrphanedFiles();
@@ -151,6 +168,39 @@ public class AdvancedCoreRealms extends JavaPlugin {
         }
     }
 
+    private InventoryStorage createInventoryStorage() {
+        StorageConfig storageConfig = storageManager.getStorageConfig();
+        InventoryCodec codec = InventorySerializer.getCodec(storageConfig.getInventoryCodec());
+        if (codec == null) {
+            getLogger().warning("Unknown inventory codec '" + storageConfig.getInventoryCodec() + "', using paper.");
+            codec = InventorySerializer.getCodec("paper");
+        }
+        InventorySerializer.configure(codec, storageConfig.isInventoryCompression());
+
+        InventoryStorage storage;
+        if (storageConfig.getInventoryFormat() == StorageConfig.InventoryFormat.YAML) {
+            storage = new YamlInventoryStorage(this);
+        } else {
+            PackedInventoryStorage packedStorage = new PackedInventoryStorage(this);
+            new YamlInventoryMigrator(this, packedStorage).migrateIfNeeded();
+            storage = packedStorage;
+        }
+        if (storageConfig.isInventoryJournal()) {
+            InventoryJournal journal = new InventoryJournal(getLogger(), storage, new File(getDataFolder(), InventoryJournal.DIRECTORY).toPath(),
+                    storageConfig.getInventoryJournalCommitIntervalMillis(), storageConfig.getInventoryJournalCheckpointIntervalMillis());
+            try {
+                journal.open();
+                storage = journal;
+            } catch (IOException e) {
+                getLogger().log(Level.SEVERE, "Could not open the inventory journal; inventories are saved without it", e);
+            }
+        }
+        if (storageConfig.getInventoryCacheBudgetBytes() > 0) {
+            storage = new CachingInventoryStorage(storage, storageConfig.getInventoryCacheBudgetBytes());
+        }
+        return storage;
+    }
+
     private void cleanupOrphanedFiles() {
         File[] lockFiles = getDataFolder().listFiles((dir, name) -> name.startsWith("creating_") && name.endsWith(".lock"));
         if (lockFiles != null && lockFiles.length > 0) {
@@ -180,12 +230,20 @@ public class AdvancedCoreRealms extends JavaPlugin {
 
     /**
      * Called when the plugin is disabled.
-     * Gracefully shuts down all services, most importantly closing the database connection pool
-     * to prevent resource leaks.
+     * Gracefully shuts down all services, most importantly draining the realm write-behind
+     * queue so no buffered saves are lost.
      */
     @Override
     public void onDisable() {
-        // All data is saved on-the-fly, so no special shutdown tasks are needed.
+        if (realmManager != null) {
+            realmManager.getChangeFeed().shutdown(5000);
+        }
+        if (inventoryStorage != null) {
+            inventoryStorage.close();
+        }
+        if (storageManager != null) {
+            storageManager.shutdown();
+        }
         getLogger().info("AdvancedCoreRealms has been disabled!");
     }
 
@@ -56,12 +56,6 @@ public class AdvancedCorePlayerImpl implements AdvancedCorePlayer {
     }
 
     private Optional<Realm> getCurrentRealm() {
-        // Worlds are now in "realms/<uuid>", but Bukkit reports the world name as the full path.
-        String worldName = player.getWorld().getName();
-        if (worldName.startsWith("realms/")) {
-            String worldFolderName = worldName.substring("realms/".length());
-            return realmManager.getRealmByWorldFolderName(worldFolderName);
-        }
-        return Optional.empty();
+        return realmManager.getWorldResolver().find(player.getWorld());
     }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.minekarta.advancedcorerealms.api.change;
+
+import com.minekarta.advancedcorerealms.data.object.Realm;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A change to a realm, as delivered to a {@link RealmChangeListener}.
+ *
+ * <p>The before and after states are snapshots taken when the change was made; they never change afterwards and
+ * must not be modified by listeners. To act on a realm, look up its current state through the realm manager.</p>
+ */
+public final class RealmChange {
+
+    /**
+     * The kinds of change.
+     */
+    public enum Type {
+        /** A realm was created. Only {@link #getAfter()} is set. */
+        CREATED,
+        /** Some properties of a realm changed, see {@link #getChangedFields()}. */
+        UPDATED,
+        /** An update that includes a new owner; reported instead of {@link #UPDATED}. */
+        OWNER_CHANGED,
+        /** A realm was deleted. Only {@link #getBefore()} is set. */
+        DELETED
+    }
+
+    private final Type type;
+    private final UUID realmId;
+    private final Realm before;
+    private final Realm after;
+    private final Set<RealmField> changedFields;
+
+    private RealmChange(Type type, UUID realmId, Realm before, Realm after, Set<RealmField> changedFields) {
+        this.type = type;
+        this.realmId = realmId;
+        this.before = before;
+        this.after = after;
+        this.changedFields = Collections.unmodifiableSet(changedFields);
+    }
+
+    public static RealmChange created(Realm after) {
+        return new RealmChange(Type.CREATED, after.getRealmId(), null, after, EnumSet.allOf(RealmField.class));
+    }
+
+    /**
+     * @param before The state before the change, or null if it is unknown, in which case every field is reported.
+     * @param after  The state after the change.
+     */
+    public static RealmChange updated(Realm before, Realm after) {
+        Set<RealmField> changed = before != null ? RealmField.diff(before, after) : EnumSet.allOf(RealmField.class);
+        Type type = before != null && changed.contains(RealmField.OWNER) ? Type.OWNER_CHANGED : Type.UPDATED;
+        return new RealmChange(type, after.getRealmId(), before, after, changed);
+    }
+
+    public static RealmChange deleted(Realm before) {
+        return new RealmChange(Type.DELETED, before.getRealmId(), before, null, EnumSet.allOf(RealmField.class));
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public UUID getRealmId() {
+        return realmId;
+    }
+
+    /**
+     * @return The realm before the change, or null for {@link Type#CREATED} and for updates whose earlier state is unknown.
+     */
+    public Realm getBefore() {
+        return before;
+    }
+
+    /**
+     * @return The realm after the change, or null for {@link Type#DELETED}.
+     */
+    public Realm getAfter() {
+        return after;
+    }
+
+    /**
+     * @return The fields that changed; every field for creations, deletions and updates whose earlier state is unknown.
+     */
+    public Set<RealmField> getChangedFields() {
+        return changedFields;
+    }
+
+    /**
+     * @param field The field to check.
+     * @return true if the field changed.
+     */
+    public boolean hasChanged(RealmField field) {
+        return changedFields.contains(field);
+    }
+}
@@ -0,0 +1,14 @@
+package com.minekarta.advancedcorerealms.api.change;
+
+/**
+ * Receives realm changes. Register through {@code RealmManager#getChangeFeed()}.
+ *
+ * <p>Changes are delivered one at a time, in the order they were made, on the plugin's change feed thread,
+ * never on the main server thread. Listeners that need the Bukkit API must schedule that work themselves,
+ * and should return quickly, since a slow listener delays every later change.</p>
+ */
+@FunctionalInterface
+public interface RealmChangeListener {
+
+    void onRealmChange(RealmChange change);
+}
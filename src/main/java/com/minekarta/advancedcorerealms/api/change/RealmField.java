@@ -0,0 +1,55 @@
+package com.minekarta.advancedcorerealms.api.change;
+
+import com.minekarta.advancedcorerealms.data.object.Realm;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The stored properties of a {@link Realm} that a {@link RealmChange} can report as changed.
+ */
+public enum RealmField {
+    NAME(Realm::getName),
+    OWNER(Realm::getOwner),
+    MEMBERS(Realm::getMembers),
+    ACCESS_LIST(Realm::getAccessList),
+    FLAT(Realm::isFlat),
+    WORLD_TYPE(Realm::getWorldType),
+    TEMPLATE(Realm::getTemplate),
+    MAX_PLAYERS(Realm::getMaxPlayers),
+    CREATIVE_MODE(Realm::isCreativeMode),
+    PEACEFUL_MODE(Realm::isPeacefulMode),
+    TRANSFERABLE_ITEMS(Realm::getTransferableItems),
+    BORDER_SIZE(Realm::getBorderSize),
+    BORDER_CENTER(realm -> List.of(realm.getBorderCenterX(), realm.getBorderCenterZ())),
+    BORDER_TIER(Realm::getBorderTierId),
+    DIFFICULTY(Realm::getDifficulty),
+    KEEP_LOADED(Realm::isKeepLoaded),
+    MEMBER_SLOT_TIER(Realm::getMemberSlotTierId);
+
+    private final Function<Realm, Object> accessor;
+
+    RealmField(Function<Realm, Object> accessor) {
+        this.accessor = accessor;
+    }
+
+    /**
+     * Compares two states of the same realm.
+     *
+     * @param before The earlier state.
+     * @param after  The later state.
+     * @return The fields whose values differ.
+     */
+    public static Set<RealmField> diff(Realm before, Realm after) {
+        EnumSet<RealmField> changed = EnumSet.noneOf(RealmField.class);
+        for (RealmField field : values()) {
+            if (!Objects.equals(field.accessor.apply(before), field.accessor.apply(after))) {
+                changed.add(field);
+            }
+        }
+        return changed;
+    }
+}
@@ -45,6 +45,8 @@ public class RealmsCommand implements CommandExecutor, TabCompleter {
         registerSubCommand(new DenyCommand(plugin));
         registerSubCommand(new HelpCommand(plugin));
         registerSubCommand(new ReloadCommand(plugin));
+        registerSubCommand(new StatsCommand(plugin));
+        registerSubCommand(new SearchCommand(plugin));
         registerSubCommand(new TransferCommand(plugin));
         registerSubCommand(new BackCommand(plugin));
         registerSubCommand(new UpgradeCommand(plugin));
@@ -3,7 +3,9 @@ package com.minekarta.advancedcorerealms.commands.handlers;
 import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
 import com.minekarta.advancedcorerealms.commands.base.SubCommand;
 import com.minekarta.advancedcorerealms.manager.LanguageManager;
+import com.minekarta.advancedcorerealms.data.object.Realm;
 import com.minekarta.advancedcorerealms.manager.RealmManager;
+import com.minekarta.advancedcorerealms.realm.RealmInventoryService;
 import org.bukkit.Location;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -16,10 +18,12 @@ public class BackCommand implements SubCommand {
 
     private final LanguageManager languageManager;
     private final RealmManager realmManager;
+    private final RealmInventoryService realmInventoryService;
 
     public BackCommand(AdvancedCoreRealms plugin) {
         this.languageManager = plugin.getLanguageManager();
         this.realmManager = plugin.getRealmManager();
+        this.realmInventoryService = plugin.getRealmInventoryService();
     }
 
     @Override
@@ -36,7 +40,11 @@ public class BackCommand implements SubCommand {
             return;
         }
 
-        player.teleport(previousLocationOpt.get());
+        Location previousLocation = previousLocationOpt.get();
+        Realm previousRealm = previousLocation.getWorld() != null ? realmManager.getWorldResolver().resolve(previousLocation.getWorld()) : null;
+        realmInventoryService.prefetch(player, previousRealm != null ? previousRealm.getRealmId() : RealmInventoryService.GLOBAL_INVENTORY_ID);
+
+        player.teleport(previousLocation);
         languageManager.sendMessage(player, "realm.teleport_back_success");
         realmManager.clearPreviousLocation(player.getUniqueId()); // Clear location after use
     }
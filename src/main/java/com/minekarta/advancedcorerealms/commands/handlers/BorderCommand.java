@@ -54,31 +54,28 @@ public class BorderCommand implements SubCommand {
         String realmName = args[1];
         String targetTierId = args[2];
 
-        Optional<Realm> optionalRealm = realmManager.getRealmByName(realmName);
+        realmManager.withRealmByName(realmName, optionalRealm -> {
+            if (optionalRealm.isEmpty()) {
+                lang.sendMessage(player, "error.realm_not_found", "%name%", realmName);
+                return;
+            }
 
-        if (optionalRealm.isEmpty()) {
-            lang.sendMessage(player, "error.realm_not_found", "%name%", realmName);
-            return;
-        }
-
-        Realm realm = optionalRealm.get();
-        if (!realm.getOwner().equals(player.getUniqueId())) {
-            lang.sendMessage(player, "error.not_owner");
-            return;
-        }
+            Realm realm = optionalRealm.get();
+            if (!realm.getOwner().equals(player.getUniqueId())) {
+                lang.sendMessage(player, "error.not_owner");
+                return;
+            }
 
-        // Delegate the entire upgrade logic to the manager
-        worldBorderManager.upgradeBorder(player, realm, targetTierId);
+            // Delegate the entire upgrade logic to the manager
+            worldBorderManager.upgradeBorder(player, realm, targetTierId);
+        });
     }
 
     @Override
     public List<String> onTabComplete(Player player, String[] args) {
         if (args.length == 2) {
             // Suggest realms owned by the player
-            return realmManager.getRealmsByOwner(player.getUniqueId()).stream()
-                    .map(Realm::getName)
-                    .filter(name -> name.toLowerCase().startsWith(args[1].toLowerCase()))
-                    .collect(Collectors.toList());
+            return realmManager.completeOwnedRealmNames(player.getUniqueId(), args[1]);
         }
         if (args.length == 3) {
             // Suggest available tier IDs from the config
@@ -51,7 +51,7 @@ public class CreateCommand implements SubCommand {
             maxRealms = 3;
         }
 
-        if (realmManager.getRealmsByOwner(player.getUniqueId()).size() >= maxRealms) {
+        if (realmManager.getOwnedRealmCount(player.getUniqueId()) >= maxRealms) {
             languageManager.sendMessage(player, "error.max_realms_reached");
             return;
         }
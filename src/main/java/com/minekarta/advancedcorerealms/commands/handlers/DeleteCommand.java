@@ -14,7 +14,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 public class DeleteCommand implements SubCommand {
 
@@ -43,8 +42,10 @@ public class DeleteCommand implements SubCommand {
         }
 
         String realmName = args[1];
-        Optional<Realm> optionalRealm = realmManager.getRealmByName(realmName);
+        realmManager.withRealmByName(realmName, optionalRealm -> delete(player, realmName, optionalRealm));
+    }
 
+    private void delete(Player player, String realmName, Optional<Realm> optionalRealm) {
         if (optionalRealm.isEmpty()) {
             languageManager.sendMessage(player, "error.realm_not_found");
             return;
@@ -61,8 +62,9 @@ public class DeleteCommand implements SubCommand {
         // First, delete the world files and unload the world.
         CompletableFuture<Boolean> worldDeletionFuture = worldManager.deleteWorld(realm);
 
-        // Then, delete the realm data file.
-        CompletableFuture<Void> dataDeletionFuture = realmManager.deleteRealm(realm);
+        // Then, delete the realm data file and every member's inventory for the realm.
+        CompletableFuture<Void> dataDeletionFuture = realmManager.deleteRealm(realm)
+                .thenCompose(ignored -> plugin.getInventoryStorage().deleteRealmInventories(realm.getRealmId()));
 
         // Wait for both to complete
         CompletableFuture.allOf(worldDeletionFuture, dataDeletionFuture).thenRun(() -> {
@@ -92,10 +94,7 @@ public class DeleteCommand implements SubCommand {
     public List<String> onTabComplete(Player player, String[] args) {
         if (args.length == 2) {
             // Suggest realms owned by the player
-            return realmManager.getRealmsByOwner(player.getUniqueId()).stream()
-                    .map(Realm::getName)
-                    .filter(name -> name.toLowerCase().startsWith(args[1].toLowerCase()))
-                    .collect(Collectors.toList());
+            return realmManager.completeOwnedRealmNames(player.getUniqueId(), args[1]);
         }
         return Collections.emptyList();
     }
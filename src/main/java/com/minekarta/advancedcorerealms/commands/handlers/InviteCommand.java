@@ -2,7 +2,6 @@ package com.minekarta.advancedcorerealms.commands.handlers;
 
 import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
 import com.minekarta.advancedcorerealms.commands.base.SubCommand;
-import com.minekarta.advancedcorerealms.data.object.Realm;
 import com.minekarta.advancedcorerealms.manager.InviteManager;
 import com.minekarta.advancedcorerealms.manager.LanguageManager;
 import com.minekarta.advancedcorerealms.manager.RealmManager;
@@ -12,7 +11,6 @@ import org.bukkit.entity.Player;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class InviteCommand implements SubCommand {
@@ -49,19 +47,7 @@ public class InviteCommand implements SubCommand {
             return;
         }
 
-        Optional<Realm> optionalRealm = realmManager.getRealmByName(realmName);
-
-        if (optionalRealm.isEmpty()) {
-            languageManager.sendMessage(player, "error.realm_not_found");
-            return;
-        }
-
-        Realm realm = optionalRealm.get();
-        if (!realm.getOwner().equals(player.getUniqueId())) {
-            languageManager.sendMessage(player, "error.not-owner");
-            return;
-        }
-
+        // Checks that the realm exists and belongs to the player once it has been looked up
         inviteManager.sendInvite(player, targetPlayer, realmName);
     }
 
@@ -78,10 +64,7 @@ public class InviteCommand implements SubCommand {
     @Override
     public List<String> onTabComplete(Player player, String[] args) {
         if (args.length == 2) {
-            return realmManager.getRealmsByOwner(player.getUniqueId()).stream()
-                    .map(Realm::getName)
-                    .filter(name -> name.toLowerCase().startsWith(args[1].toLowerCase()))
-                    .collect(Collectors.toList());
+            return realmManager.completeOwnedRealmNames(player.getUniqueId(), args[1]);
         }
         if (args.length == 3) {
             return Bukkit.getOnlinePlayers().stream()
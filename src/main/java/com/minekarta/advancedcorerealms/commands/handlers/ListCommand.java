@@ -2,9 +2,9 @@ package com.minekarta.advancedcorerealms.commands.handlers;
 
 import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
 import com.minekarta.advancedcorerealms.commands.base.SubCommand;
-import com.minekarta.advancedcorerealms.data.object.Realm;
 import com.minekarta.advancedcorerealms.manager.LanguageManager;
 import com.minekarta.advancedcorerealms.manager.RealmManager;
+import com.minekarta.advancedcorerealms.storage.RealmMetadata;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -30,8 +30,9 @@ public class ListCommand implements SubCommand {
             return;
         }
 
-        List<Realm> ownRealms = realmManager.getRealmsByOwner(player.getUniqueId());
-        List<Realm> invitedRealms = realmManager.getMemberRealms(player.getUniqueId()).stream()
+        // Listing only needs names and worlds, so cold realms are not loaded.
+        List<RealmMetadata> ownRealms = realmManager.getRealmStubsByOwner(player.getUniqueId());
+        List<RealmMetadata> invitedRealms = realmManager.getMemberRealmStubs(player.getUniqueId()).stream()
                 .filter(realm -> !realm.getOwner().equals(player.getUniqueId()))
                 .collect(Collectors.toList());
 
@@ -40,7 +41,7 @@ public class ListCommand implements SubCommand {
         if (ownRealms.isEmpty()) {
             languageManager.sendMessage(player, "realm.list.none_own");
         } else {
-            for (Realm realm : ownRealms) {
+            for (RealmMetadata realm : ownRealms) {
                 String worldPath = "realms/" + realm.getWorldFolderName();
                 String status = Bukkit.getWorld(worldPath) != null ? "<green>Loaded" : "<red>Unloaded";
                 languageManager.sendMessage(player, "realm.list.entry", "%name%", realm.getName(), "%status%", status);
@@ -52,7 +53,7 @@ public class ListCommand implements SubCommand {
         if (invitedRealms.isEmpty()) {
             languageManager.sendMessage(player, "realm.list.none_invited");
         } else {
-            for (Realm realm : invitedRealms) {
+            for (RealmMetadata realm : invitedRealms) {
                 String worldPath = "realms/" + realm.getWorldFolderName();
                 String status = Bukkit.getWorld(worldPath) != null ? "<green>Loaded" : "<red>Unloaded";
                 languageManager.sendMessage(player, "realm.list.entry", "%name%", realm.getName(), "%status%", status);
@@ -0,0 +1,87 @@
+package com.minekarta.advancedcorerealms.commands.handlers;
+
+import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
+import com.minekarta.advancedcorerealms.commands.base.SubCommand;
+import com.minekarta.advancedcorerealms.manager.LanguageManager;
+import com.minekarta.advancedcorerealms.manager.RealmManager;
+import com.minekarta.advancedcorerealms.storage.RealmMetadata;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lets admins search all realms by name prefix, one page at a time, without loading any realm.
+ */
+public class SearchCommand implements SubCommand {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final LanguageManager languageManager;
+    private final RealmManager realmManager;
+
+    public SearchCommand(AdvancedCoreRealms plugin) {
+        this.languageManager = plugin.getLanguageManager();
+        this.realmManager = plugin.getRealmManager();
+    }
+
+    @Override
+    public void execute(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            languageManager.sendMessage(sender, "error.usage.search");
+            return;
+        }
+
+        String query = args[1];
+        int page = 1;
+        if (args.length >= 3) {
+            try {
+                page = Integer.parseInt(args[2]);
+            } catch (NumberFormatException e) {
+                page = 0;
+            }
+            if (page < 1) {
+                languageManager.sendMessage(sender, "error.usage.search");
+                return;
+            }
+        }
+
+        // Fetch one extra result to know whether there is a next page.
+        List<RealmMetadata> results = realmManager.searchRealms(query, (page - 1) * PAGE_SIZE, PAGE_SIZE + 1);
+        if (results.isEmpty()) {
+            languageManager.sendMessage(sender, "command.search_none", "%query%", query);
+            return;
+        }
+
+        languageManager.sendMessage(sender, "command.search_header", "%query%", query, "%page%", String.valueOf(page));
+        for (RealmMetadata realm : results.subList(0, Math.min(PAGE_SIZE, results.size()))) {
+            String ownerName = Bukkit.getOfflinePlayer(realm.getOwner()).getName();
+            languageManager.sendMessage(sender, "command.search_entry",
+                    "%realm%", realm.getName(),
+                    "%owner%", ownerName != null ? ownerName : realm.getOwner().toString());
+        }
+        if (results.size() > PAGE_SIZE) {
+            languageManager.sendMessage(sender, "command.search_next", "%query%", query, "%page%", String.valueOf(page + 1));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "search";
+    }
+
+    @Override
+    public String getPermission() {
+        return "advancedcorerealms.admin.search";
+    }
+
+    @Override
+    public List<String> onTabComplete(Player player, String[] args) {
+        if (args.length == 2) {
+            return realmManager.completeRealmNames(args[1]);
+        }
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,102 @@
+package com.minekarta.advancedcorerealms.commands.handlers;
+
+import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
+import com.minekarta.advancedcorerealms.commands.base.SubCommand;
+import com.minekarta.advancedcorerealms.manager.LanguageManager;
+import com.minekarta.advancedcorerealms.storage.CachingInventoryStorage;
+import com.minekarta.advancedcorerealms.storage.InventoryJournal;
+import com.minekarta.advancedcorerealms.storage.InventoryStorage;
+import com.minekarta.advancedcorerealms.storage.StorageManager;
+import com.minekarta.advancedcorerealms.utils.InventoryCodecBenchmark;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * Shows realm cache and storage statistics, used to size {@code storage.realm-cache.memory-budget-mb}
+ * and the storage executor. {@code /realms stats codec} benchmarks the inventory codecs, used to choose
+ * {@code storage.inventory.codec}.
+ */
+public class StatsCommand implements SubCommand {
+
+    private final AdvancedCoreRealms plugin;
+    private final LanguageManager languageManager;
+
+    public StatsCommand(AdvancedCoreRealms plugin) {
+        this.plugin = plugin;
+        this.languageManager = plugin.getLanguageManager();
+    }
+
+    @Override
+    public void execute(CommandSender sender, String[] args) {
+        StorageManager storageManager = plugin.getStorageManager();
+        if (args.length > 1 && "codec".equalsIgnoreCase(args[1])) {
+            runCodecBenchmark(sender, storageManager);
+            return;
+        }
+        languageManager.sendMessage(sender, "command.stats_header");
+        languageManager.sendMessage(sender, "command.stats_line", "%line%", plugin.getRealmManager().describeCacheStats());
+        languageManager.sendMessage(sender, "command.stats_line", "%line%", String.format("Realm index: %d realms, %d pending write(s)",
+                storageManager.getMetadataIndex().size(), storageManager.getPendingWriteCount()));
+        languageManager.sendMessage(sender, "command.stats_line", "%line%", storageManager.getIoExecutor().describe());
+        languageManager.sendMessage(sender, "command.stats_line", "%line%", plugin.getRealmManager().getChangeFeed().describe());
+        languageManager.sendMessage(sender, "command.stats_line", "%line%", plugin.getRealmInventoryService().getSwapMetrics().describe());
+        InventoryStorage inventoryStorage = plugin.getInventoryStorage();
+        if (inventoryStorage instanceof CachingInventoryStorage cache) {
+            languageManager.sendMessage(sender, "command.stats_line", "%line%", cache.describe());
+            inventoryStorage = cache.getBacking();
+        }
+        if (inventoryStorage instanceof InventoryJournal journal) {
+            languageManager.sendMessage(sender, "command.stats_line", "%line%", journal.describe());
+        }
+    }
+
+    private void runCodecBenchmark(CommandSender sender, StorageManager storageManager) {
+        languageManager.sendMessage(sender, "command.codec_benchmark_started");
+        ItemStack[][] sample = InventoryCodecBenchmark.sampleInventory();
+        // Encoding runs on the storage executor in production as well, and the run takes a few seconds
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return InventoryCodecBenchmark.run(sample);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, storageManager.getIoExecutor()).whenComplete((lines, ex) -> Bukkit.getScheduler().runTask(plugin, () -> {
+            if (ex != null) {
+                plugin.getLogger().log(Level.SEVERE, "Inventory codec benchmark failed", ex);
+                languageManager.sendMessage(sender, "error.command_generic");
+                return;
+            }
+            languageManager.sendMessage(sender, "command.codec_benchmark_header");
+            for (String line : lines) {
+                languageManager.sendMessage(sender, "command.stats_line", "%line%", line);
+            }
+        }));
+    }
+
+    @Override
+    public String getName() {
+        return "stats";
+    }
+
+    @Override
+    public String getPermission() {
+        return "advancedcorerealms.admin.stats";
+    }
+
+    @Override
+    public List<String> onTabComplete(Player player, String[] args) {
+        if (args.length == 2) {
+            return List.of("codec");
+        }
+        return Collections.emptyList();
+    }
+}
@@ -3,6 +3,7 @@ package com.minekarta.advancedcorerealms.commands.handlers;
 import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
 import com.minekarta.advancedcorerealms.commands.base.SubCommand;
 import com.minekarta.advancedcorerealms.manager.LanguageManager;
+import com.minekarta.advancedcorerealms.manager.RealmManager;
 import com.minekarta.advancedcorerealms.manager.world.WorldManager;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -15,10 +16,12 @@ public class TeleportCommand implements SubCommand {
 
     private final LanguageManager languageManager;
     private final WorldManager worldManager;
+    private final RealmManager realmManager;
 
     public TeleportCommand(AdvancedCoreRealms plugin) {
         this.languageManager = plugin.getLanguageManager();
         this.worldManager = plugin.getWorldManager();
+        this.realmManager = plugin.getRealmManager();
     }
 
     @Override
@@ -50,7 +53,13 @@ public class TeleportCommand implements SubCommand {
 
     @Override
     public List<String> onTabComplete(Player player, String[] args) {
-        // Tab completion for realm names would be useful here, but for now, returning empty.
+        if (args.length == 2) {
+            // Suggest every realm to admins who may enter any realm, otherwise the player's own realms
+            if (player.hasPermission("advancedcorerealms.admin.teleport.any")) {
+                return realmManager.completeRealmNames(args[1]);
+            }
+            return realmManager.completeMemberRealmNames(player.getUniqueId(), args[1]);
+        }
         return Collections.emptyList();
     }
 
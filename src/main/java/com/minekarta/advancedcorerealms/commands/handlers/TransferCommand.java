@@ -47,7 +47,10 @@ public class TransferCommand implements SubCommand {
             return;
         }
 
-        Optional<Realm> optionalRealm = realmManager.getRealmByName(realmName);
+        realmManager.withRealmByName(realmName, optionalRealm -> transfer(player, newOwner, optionalRealm));
+    }
+
+    private void transfer(Player player, Player newOwner, Optional<Realm> optionalRealm) {
         if (optionalRealm.isEmpty()) {
             languageManager.sendMessage(player, "error.realm_not_found");
             return;
@@ -59,8 +62,18 @@ public class TransferCommand implements SubCommand {
             return;
         }
 
-        realm.setOwner(newOwner.getUniqueId());
-        realmManager.updateRealm(realm).thenRun(() -> {
+        // The ownership check is repeated on the current state, so two concurrent transfers cannot both succeed
+        realmManager.modifyRealm(realm, current -> {
+            if (!current.getOwner().equals(player.getUniqueId())) {
+                return false;
+            }
+            current.setOwner(newOwner.getUniqueId());
+            return true;
+        }).thenAccept(updated -> {
+            if (updated.isEmpty()) {
+                languageManager.sendMessage(player, "error.not_owner");
+                return;
+            }
             languageManager.sendMessage(player, "realm.transfer_success", "%player%", newOwner.getName());
             languageManager.sendMessage(newOwner, "realm.transfer_received", "%realm%", realm.getName(), "%player%", player.getName());
         }).exceptionally(ex -> {
@@ -83,10 +96,7 @@ public class TransferCommand implements SubCommand {
     @Override
     public List<String> onTabComplete(Player player, String[] args) {
         if (args.length == 2) {
-            return realmManager.getRealmsByOwner(player.getUniqueId()).stream()
-                    .map(Realm::getName)
-                    .filter(name -> name.toLowerCase().startsWith(args[1].toLowerCase()))
-                    .collect(Collectors.toList());
+            return realmManager.completeOwnedRealmNames(player.getUniqueId(), args[1]);
         }
         if (args.length == 3) {
             return Bukkit.getOnlinePlayers().stream()
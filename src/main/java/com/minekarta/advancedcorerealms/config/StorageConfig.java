@@ -0,0 +1,234 @@
+package com.minekarta.advancedcorerealms.config;
+
+import com.minekarta.advancedcorerealms.storage.StorageExecutor;
+import org.bukkit.configuration.file.FileConfiguration;
+
+/**
+ * Holds the tuning values for realm persistence, read from the {@code storage} section of config.yml.
+ */
+public class StorageConfig {
+
+    /**
+     * The available realm storage backends.
+     */
+    public enum Backend {
+        /** One JSON file per realm in the {@code realms} directory. */
+        JSON,
+        /** An append-only journal with periodic snapshots in the {@code realm-journal} directory. */
+        JOURNAL,
+        /** An embedded SQLite database with indexed owner, name and world folder columns. */
+        SQLITE
+    }
+
+    /**
+     * The available per-realm inventory formats.
+     */
+    public enum InventoryFormat {
+        /** One binary file per player holding all of their realm inventories. */
+        PACKED,
+        /** One YAML file per realm and player, the original layout. */
+        YAML
+    }
+
+    private final Backend backend;
+    private final long flushIntervalMillis;
+    private final boolean prettyPrint;
+    private final int loadThreads;
+    private final int writeLanes;
+    private final long journalCompactionThresholdBytes;
+    private final String sqliteFile;
+    private final long realmCacheBudgetBytes;
+    private final StorageExecutor.Type ioExecutorType;
+    private final int ioThreads;
+    private final int ioMaxPending;
+    private final long ioSaturationTimeoutMillis;
+    private final InventoryFormat inventoryFormat;
+    private final String inventoryCodec;
+    private final boolean inventoryCompression;
+    private final boolean inventoryJournal;
+    private final long inventoryCacheBudgetBytes;
+    private final long inventoryJournalCommitIntervalMillis;
+    private final long inventoryJournalCheckpointIntervalMillis;
+    private final long inventoryOrphanSweepIntervalMinutes;
+
+    public StorageConfig(FileConfiguration config) {
+        this.backend = parseBackend(config.getString("storage.backend", "json"));
+        this.flushIntervalMillis = Math.max(50L, config.getLong("storage.flush-interval-ms", 1000L));
+        this.prettyPrint = config.getBoolean("storage.pretty-print", false);
+        int configuredLoadThreads = config.getInt("storage.load-threads", 0);
+        this.loadThreads = configuredLoadThreads > 0
+                ? configuredLoadThreads
+                : Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+        int configuredWriteLanes = config.getInt("storage.write-lanes", 0);
+        this.writeLanes = configuredWriteLanes > 0
+                ? configuredWriteLanes
+                : Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        this.journalCompactionThresholdBytes = Math.max(1L, config.getLong("storage.journal.compaction-threshold-mb", 32L)) * 1024L * 1024L;
+        this.sqliteFile = config.getString("storage.sqlite.file", "realms.db");
+        this.realmCacheBudgetBytes = Math.max(1L, config.getLong("storage.realm-cache.memory-budget-mb", 64L)) * 1024L * 1024L;
+        this.ioExecutorType = "platform".equalsIgnoreCase(config.getString("storage.io.executor", "virtual"))
+                ? StorageExecutor.Type.PLATFORM
+                : StorageExecutor.Type.VIRTUAL;
+        this.ioThreads = Math.max(1, config.getInt("storage.io.threads", 4));
+        this.ioMaxPending = Math.max(1, config.getInt("storage.io.max-pending", 512));
+        this.ioSaturationTimeoutMillis = Math.max(0L, config.getLong("storage.io.saturation-timeout-ms", 50L));
+        this.inventoryFormat = "yaml".equalsIgnoreCase(config.getString("storage.inventory.format", "packed"))
+                ? InventoryFormat.YAML
+                : InventoryFormat.PACKED;
+        this.inventoryCodec = config.getString("storage.inventory.codec", "paper");
+        this.inventoryCompression = config.getBoolean("storage.inventory.compress", false);
+        this.inventoryCacheBudgetBytes = Math.max(0L, config.getLong("storage.inventory.cache.memory-budget-mb", 32L)) * 1024L * 1024L;
+        this.inventoryJournal = config.getBoolean("storage.inventory.journal.enabled", true);
+        this.inventoryJournalCommitIntervalMillis = Math.max(1L, config.getLong("storage.inventory.journal.commit-interval-ms", 5L));
+        this.inventoryJournalCheckpointIntervalMillis = Math.max(1000L, config.getLong("storage.inventory.journal.checkpoint-interval-ms", 60000L));
+        this.inventoryOrphanSweepIntervalMinutes = Math.max(0L, config.getLong("storage.inventory.orphan-sweep-interval-minutes", 60L));
+    }
+
+    private static Backend parseBackend(String value) {
+        try {
+            return Backend.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Backend.JSON;
+        }
+    }
+
+    /**
+     * @return The configured realm storage backend.
+     */
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * @return How long dirty realms are held before their coalesced write is flushed to disk.
+     */
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    /**
+     * @return Whether realm files are written as indented, human-readable JSON instead of compact JSON.
+     */
+    public boolean isPrettyPrint() {
+        return prettyPrint;
+    }
+
+    /**
+     * @return The number of worker threads used to parse realm files at startup.
+     */
+    public int getLoadThreads() {
+        return loadThreads;
+    }
+
+    /**
+     * @return The number of parallel realm write lanes, for backends that allow concurrent writes.
+     */
+    public int getWriteLanes() {
+        return writeLanes;
+    }
+
+    /**
+     * @return How many bytes may be appended to the realm journal before it is compacted into a new snapshot.
+     */
+    public long getJournalCompactionThresholdBytes() {
+        return journalCompactionThresholdBytes;
+    }
+
+    /**
+     * @return The SQLite database file, relative to the plugin data folder.
+     */
+    public String getSqliteFile() {
+        return sqliteFile;
+    }
+
+    /**
+     * @return The approximate heap budget for fully loaded realms; colder realms are kept only as index entries.
+     */
+    public long getRealmCacheBudgetBytes() {
+        return realmCacheBudgetBytes;
+    }
+
+    /**
+     * @return The thread model used for blocking storage I/O.
+     */
+    public StorageExecutor.Type getIoExecutorType() {
+        return ioExecutorType;
+    }
+
+    /**
+     * @return The number of platform threads used when the I/O executor is not virtual.
+     */
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    /**
+     * @return The maximum number of storage tasks that may be queued or running at once.
+     */
+    public int getIoMaxPending() {
+        return ioMaxPending;
+    }
+
+    /**
+     * @return How long a submitter waits for a free slot before running a storage task itself.
+     */
+    public long getIoSaturationTimeoutMillis() {
+        return ioSaturationTimeoutMillis;
+    }
+
+    /**
+     * @return How per-realm player inventories are stored.
+     */
+    public InventoryFormat getInventoryFormat() {
+        return inventoryFormat;
+    }
+
+    /**
+     * @return The name of the codec new inventory data is written with.
+     */
+    public String getInventoryCodec() {
+        return inventoryCodec;
+    }
+
+    /**
+     * @return Whether encoded inventories are additionally deflate-compressed.
+     */
+    public boolean isInventoryCompression() {
+        return inventoryCompression;
+    }
+
+    /**
+     * @return The approximate heap budget for cached inventories; 0 disables the inventory cache.
+     */
+    public long getInventoryCacheBudgetBytes() {
+        return inventoryCacheBudgetBytes;
+    }
+
+    /**
+     * @return Whether inventory saves go through the write-ahead journal.
+     */
+    public boolean isInventoryJournal() {
+        return inventoryJournal;
+    }
+
+    /**
+     * @return How long inventory saves are gathered before they are written to the journal with one fsync.
+     */
+    public long getInventoryJournalCommitIntervalMillis() {
+        return inventoryJournalCommitIntervalMillis;
+    }
+
+    /**
+     * @return How often journaled inventories are written to the inventory storage.
+     */
+    public long getInventoryJournalCheckpointIntervalMillis() {
+        return inventoryJournalCheckpointIntervalMillis;
+    }
+
+    /**
+     * @return How often inventories of deleted realms are looked for and deleted; 0 disables the sweep.
+     */
+    public long getInventoryOrphanSweepIntervalMinutes() {
+        return inventoryOrphanSweepIntervalMinutes;
+    }
+}
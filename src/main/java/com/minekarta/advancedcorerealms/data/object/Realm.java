@@ -5,37 +5,53 @@ import org.bukkit.World;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+/**
+ * A player realm.
+ *
+ * <p><b>Thread safety:</b> a realm may be read from any thread while it is being changed on the main thread.
+ * Every field is volatile, and the member, access and transferable-item collections are copy-on-write: they are
+ * never modified in place, but replaced with an updated unmodifiable copy. Readers therefore never block and never
+ * see a collection change underneath them. Mutators are synchronized with each other and with {@link #snapshot()},
+ * which is what the storage layer serializes, so a saved realm never mixes the state before and after a change.</p>
+ *
+ * <p><b>Versioning:</b> every change increments {@link #getVersion()}. Changes that depend on a check of the
+ * current state are made on a snapshot and published with {@link #compareAndSet(long, Realm)}, which only succeeds
+ * if the realm has not changed since the snapshot was taken; see {@code RealmManager#modifyRealm}.</p>
+ */
 public class Realm {
     private final UUID realmId;
-    private String name;
-    private UUID owner;
-    private Map<UUID, Role> members;
-    private List<UUID> accessList;  // Additional access permissions beyond members
-    private boolean isFlat;
-    private Instant createdAt;
-    private String worldFolderName;
-    private String template;
-    private int maxPlayers;        // Max players allowed in the world
-    private boolean isCreativeMode; // Whether the world is in creative or survival
-    private boolean isPeacefulMode; // Whether the world is in peaceful mode
-    private String worldType;      // The type of world (NORMAL, FLAT, AMPLIFIED, etc.)
-    private List<String> transferableItems; // List of items that can be transferred out of the realm
-    private int borderSize;        // Size of the world border for this realm (in blocks)
+    private volatile String name;
+    private volatile UUID owner;
+    private volatile Map<UUID, Role> members;
+    private volatile List<UUID> accessList;  // Additional access permissions beyond members
+    private volatile boolean isFlat;
+    private volatile Instant createdAt;
+    private volatile String worldFolderName;
+    private volatile String template;
+    private volatile int maxPlayers;        // Max players allowed in the world
+    private volatile boolean isCreativeMode; // Whether the world is in creative or survival
+    private volatile boolean isPeacefulMode; // Whether the world is in peaceful mode
+    private volatile String worldType;      // The type of world (NORMAL, FLAT, AMPLIFIED, etc.)
+    private volatile List<String> transferableItems; // List of items that can be transferred out of the realm
+    private volatile int borderSize;        // Size of the world border for this realm (in blocks)
     /** The X-coordinate of the world border's center. */
-    private double borderCenterX;
+    private volatile double borderCenterX;
     /** The Z-coordinate of the world border's center. */
-    private double borderCenterZ;
+    private volatile double borderCenterZ;
 
     // New upgrade fields
-    private String difficulty;
-    private boolean keepLoaded;
-    private String borderTierId;
-    private String memberSlotTierId;
+    private volatile String difficulty;
+    private volatile boolean keepLoaded;
+    private volatile String borderTierId;
+    private volatile String memberSlotTierId;
+
+    private volatile long version; // Incremented on every change, for optimistic updates
 
     /**
      * This constructor is used by Gson for deserialization.
@@ -59,16 +75,15 @@ public class Realm {
         this.owner = owner;
         this.worldFolderName = realmId.toString(); // The folder name is the unique ID
         this.template = template;
-        this.members = new HashMap<>();
-        this.members.put(owner, Role.OWNER);
-        this.accessList = new ArrayList<>();
+        this.members = Map.of(owner, Role.OWNER);
+        this.accessList = List.of();
         this.isFlat = false; // Default, can be overridden by template config
         this.createdAt = Instant.now();
         this.maxPlayers = 8; // Default
         this.isCreativeMode = false; // Default
         this.isPeacefulMode = true; // Default
         this.worldType = "NORMAL"; // Default
-        this.transferableItems = new ArrayList<>();
+        this.transferableItems = List.of();
         this.borderSize = 100; // Default
         this.borderCenterX = 0.0;
         this.borderCenterZ = 0.0;
@@ -78,6 +93,76 @@ public class Realm {
         this.memberSlotTierId = "default"; // Default tier
     }
 
+    /**
+     * Copies every field of another realm. The collections are shared, which is safe because they are never
+     * modified in place.
+     */
+    private Realm(Realm source) {
+        this.realmId = source.realmId;
+        copyFrom(source);
+        this.version = source.version;
+    }
+
+    private void copyFrom(Realm source) {
+        this.name = source.name;
+        this.owner = source.owner;
+        this.members = source.members;
+        this.accessList = source.accessList;
+        this.isFlat = source.isFlat;
+        this.createdAt = source.createdAt;
+        this.worldFolderName = source.worldFolderName;
+        this.template = source.template;
+        this.maxPlayers = source.maxPlayers;
+        this.isCreativeMode = source.isCreativeMode;
+        this.isPeacefulMode = source.isPeacefulMode;
+        this.worldType = source.worldType;
+        this.transferableItems = source.transferableItems;
+        this.borderSize = source.borderSize;
+        this.borderCenterX = source.borderCenterX;
+        this.borderCenterZ = source.borderCenterZ;
+        this.difficulty = source.difficulty;
+        this.keepLoaded = source.keepLoaded;
+        this.borderTierId = source.borderTierId;
+        this.memberSlotTierId = source.memberSlotTierId;
+    }
+
+    /**
+     * Takes a consistent, detached copy of this realm for serialization. The copy is cheap: it shares
+     * this realm's unmodifiable collections instead of copying them.
+     *
+     * @return A realm with the same state that is not affected by later changes to this one.
+     */
+    public synchronized Realm snapshot() {
+        return new Realm(this);
+    }
+
+    /**
+     * @return The number of changes made to this realm; increases with every change.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Replaces the state of this realm with the state of another instance of it, but only if this realm
+     * has not changed since it was at {@code expectedVersion}.
+     *
+     * @param expectedVersion The version the change was based on.
+     * @param source          A modified snapshot of this realm.
+     * @return true if the state was replaced, false if the realm changed in the meantime.
+     */
+    public synchronized boolean compareAndSet(long expectedVersion, Realm source) {
+        if (!realmId.equals(source.realmId)) {
+            throw new IllegalArgumentException("Cannot apply realm " + source.realmId + " to realm " + realmId);
+        }
+        if (version != expectedVersion) {
+            return false;
+        }
+        copyFrom(source);
+        version = expectedVersion + 1;
+        return true;
+    }
+
 
     // Getters and setters
     public UUID getRealmId() {
@@ -88,7 +173,8 @@ public class Realm {
         return name;
     }
     
-    public void setName(String name) {
+    public synchronized void setName(String name) {
+        version++;
         this.name = name;
     }
     
@@ -96,40 +182,54 @@ public class Realm {
         return owner;
     }
     
-    public void setOwner(UUID newOwner) {
+    public synchronized void setOwner(UUID newOwner) {
+        version++;
         // Demote old owner to admin, promote new owner
+        Map<UUID, Role> updated = new HashMap<>(getMembers());
         if (this.owner != null) {
-            members.put(this.owner, Role.ADMIN);
+            updated.put(this.owner, Role.ADMIN);
         }
+        updated.put(newOwner, Role.OWNER);
+        this.members = Collections.unmodifiableMap(updated);
         this.owner = newOwner;
-        members.put(newOwner, Role.OWNER);
     }
-    
+
+    /**
+     * @return An unmodifiable view of the members and their roles; change it through the member methods.
+     */
     public Map<UUID, Role> getMembers() {
-        return members;
+        // Wrapped because Gson fills the field with a mutable map, or none, when a realm is loaded.
+        return members != null ? Collections.unmodifiableMap(members) : Map.of();
     }
 
-    public void setMembers(Map<UUID, Role> members) {
-        this.members = members;
+    public synchronized void setMembers(Map<UUID, Role> members) {
+        version++;
+        Map<UUID, Role> updated = new HashMap<>(members);
         // Ensure owner always has OWNER role
         if (this.owner != null) {
-            this.members.put(this.owner, Role.OWNER);
+            updated.put(this.owner, Role.OWNER);
         }
+        this.members = Collections.unmodifiableMap(updated);
     }
-    
+
+    /**
+     * @return An unmodifiable view of the access list; change it through the access list methods.
+     */
     public List<UUID> getAccessList() {
-        return accessList;
+        return accessList != null ? Collections.unmodifiableList(accessList) : List.of();
     }
-    
-    public void setAccessList(List<UUID> accessList) {
-        this.accessList = accessList;
+
+    public synchronized void setAccessList(List<UUID> accessList) {
+        version++;
+        this.accessList = List.copyOf(accessList);
     }
     
     public boolean isFlat() {
         return isFlat;
     }
     
-    public void setFlat(boolean flat) {
+    public synchronized void setFlat(boolean flat) {
+        version++;
         isFlat = flat;
     }
 
@@ -141,7 +241,8 @@ public class Realm {
         return worldFolderName;
     }
 
-    public void setWorldFolderName(String worldFolderName) {
+    public synchronized void setWorldFolderName(String worldFolderName) {
+        version++;
         this.worldFolderName = worldFolderName;
     }
 
@@ -149,7 +250,8 @@ public class Realm {
         return template;
     }
 
-    public void setTemplate(String template) {
+    public synchronized void setTemplate(String template) {
+        version++;
         this.template = template;
     }
     
@@ -157,7 +259,8 @@ public class Realm {
         return maxPlayers;
     }
     
-    public void setMaxPlayers(int maxPlayers) {
+    public synchronized void setMaxPlayers(int maxPlayers) {
+        version++;
         this.maxPlayers = maxPlayers;
     }
     
@@ -165,7 +268,8 @@ public class Realm {
         return isCreativeMode;
     }
     
-    public void setCreativeMode(boolean creativeMode) {
+    public synchronized void setCreativeMode(boolean creativeMode) {
+        version++;
         isCreativeMode = creativeMode;
     }
     
@@ -173,7 +277,8 @@ public class Realm {
         return isPeacefulMode;
     }
     
-    public void setPeacefulMode(boolean peacefulMode) {
+    public synchronized void setPeacefulMode(boolean peacefulMode) {
+        version++;
         isPeacefulMode = peacefulMode;
     }
     
@@ -181,7 +286,8 @@ public class Realm {
         return worldType;
     }
     
-    public void setWorldType(String worldType) {
+    public synchronized void setWorldType(String worldType) {
+        version++;
         this.worldType = worldType;
     }
     
@@ -206,59 +312,90 @@ public class Realm {
         addMember(playerId, Role.MEMBER);
     }
 
-    public void addMember(UUID playerId, Role role) {
+    public synchronized void addMember(UUID playerId, Role role) {
+        version++;
         if (owner.equals(playerId)) return; // Cannot change owner's role here
-        members.put(playerId, role);
+        Map<UUID, Role> updated = new HashMap<>(getMembers());
+        updated.put(playerId, role);
+        members = Collections.unmodifiableMap(updated);
     }
     
-    public void removeMember(UUID playerId) {
+    public synchronized void removeMember(UUID playerId) {
+        version++;
         if (owner.equals(playerId)) return; // Cannot remove the owner
-        members.remove(playerId);
+        if (getMembers().containsKey(playerId)) {
+            Map<UUID, Role> updated = new HashMap<>(members);
+            updated.remove(playerId);
+            members = Collections.unmodifiableMap(updated);
+        }
         // Also remove from access list if there
-        accessList.remove(playerId);
+        removeFromAccessList(playerId);
     }
     
-    public void addToAccessList(UUID playerId) {
-        if (!accessList.contains(playerId) && !isMember(playerId)) {
-            accessList.add(playerId);
+    public synchronized void addToAccessList(UUID playerId) {
+        version++;
+        if (!getAccessList().contains(playerId) && !isMember(playerId)) {
+            List<UUID> updated = new ArrayList<>(getAccessList());
+            updated.add(playerId);
+            accessList = Collections.unmodifiableList(updated);
         }
     }
     
-    public void removeFromAccessList(UUID playerId) {
-        accessList.remove(playerId);
+    public synchronized void removeFromAccessList(UUID playerId) {
+        version++;
+        if (getAccessList().contains(playerId)) {
+            List<UUID> updated = new ArrayList<>(accessList);
+            updated.remove(playerId);
+            accessList = Collections.unmodifiableList(updated);
+        }
     }
     
     public World getBukkitWorld() {
         return org.bukkit.Bukkit.getWorld(this.worldFolderName);
     }
     
+    /**
+     * @return An unmodifiable view of the transferable items; change it through the transferable item methods.
+     */
     public List<String> getTransferableItems() {
-        return transferableItems;
+        return transferableItems != null ? Collections.unmodifiableList(transferableItems) : List.of();
     }
     
-    public void setTransferableItems(List<String> transferableItems) {
-        this.transferableItems = transferableItems;
+    public synchronized void setTransferableItems(List<String> transferableItems) {
+        version++;
+        this.transferableItems = List.copyOf(transferableItems);
     }
     
     public boolean isItemTransferable(String materialName) {
         return transferableItems.contains(materialName.toUpperCase());
     }
     
-    public void addTransferableItem(String materialName) {
-        if (!transferableItems.contains(materialName.toUpperCase())) {
-            transferableItems.add(materialName.toUpperCase());
+    public synchronized void addTransferableItem(String materialName) {
+        version++;
+        String item = materialName.toUpperCase();
+        if (!getTransferableItems().contains(item)) {
+            List<String> updated = new ArrayList<>(getTransferableItems());
+            updated.add(item);
+            transferableItems = Collections.unmodifiableList(updated);
         }
     }
     
-    public void removeTransferableItem(String materialName) {
-        transferableItems.remove(materialName.toUpperCase());
+    public synchronized void removeTransferableItem(String materialName) {
+        version++;
+        String item = materialName.toUpperCase();
+        if (getTransferableItems().contains(item)) {
+            List<String> updated = new ArrayList<>(transferableItems);
+            updated.remove(item);
+            transferableItems = Collections.unmodifiableList(updated);
+        }
     }
     
     public int getBorderSize() {
         return borderSize;
     }
     
-    public void setBorderSize(int borderSize) {
+    public synchronized void setBorderSize(int borderSize) {
+        version++;
         this.borderSize = borderSize;
     }
     
@@ -266,7 +403,8 @@ public class Realm {
         return borderCenterX;
     }
 
-    public void setBorderCenterX(double borderCenterX) {
+    public synchronized void setBorderCenterX(double borderCenterX) {
+        version++;
         this.borderCenterX = borderCenterX;
     }
 
@@ -274,11 +412,13 @@ public class Realm {
         return borderCenterZ;
     }
 
-    public void setBorderCenterZ(double borderCenterZ) {
+    public synchronized void setBorderCenterZ(double borderCenterZ) {
+        version++;
         this.borderCenterZ = borderCenterZ;
     }
     
-    public void updateCenterFromWorld() {
+    public synchronized void updateCenterFromWorld() {
+        version++;
         World bukkitWorld = getBukkitWorld();
         if (bukkitWorld != null) {
             org.bukkit.Location spawnLocation = bukkitWorld.getSpawnLocation();
@@ -291,7 +431,8 @@ public class Realm {
         return difficulty;
     }
 
-    public void setDifficulty(String difficulty) {
+    public synchronized void setDifficulty(String difficulty) {
+        version++;
         this.difficulty = difficulty;
     }
 
@@ -299,7 +440,8 @@ public class Realm {
         return keepLoaded;
     }
 
-    public void setKeepLoaded(boolean keepLoaded) {
+    public synchronized void setKeepLoaded(boolean keepLoaded) {
+        version++;
         this.keepLoaded = keepLoaded;
     }
 
@@ -307,7 +449,8 @@ public class Realm {
         return borderTierId;
     }
 
-    public void setBorderTierId(String borderTierId) {
+    public synchronized void setBorderTierId(String borderTierId) {
+        version++;
         this.borderTierId = borderTierId;
     }
 
@@ -315,7 +458,8 @@ public class Realm {
         return memberSlotTierId;
     }
 
-    public void setMemberSlotTierId(String memberSlotTierId) {
+    public synchronized void setMemberSlotTierId(String memberSlotTierId) {
+        version++;
         this.memberSlotTierId = memberSlotTierId;
     }
 }
\ No newline at end of file
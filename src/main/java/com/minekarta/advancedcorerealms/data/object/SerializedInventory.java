@@ -8,20 +8,51 @@ import java.util.UUID;
  */
 public class SerializedInventory {
 
+    /** Section flags for {@link #getChangedSections()}. */
+    public static final int SECTION_MAIN = 1;
+    public static final int SECTION_ARMOR = 1 << 1;
+    public static final int SECTION_OFFHAND = 1 << 2;
+    public static final int SECTION_ENDER_CHEST = 1 << 3;
+    public static final int ALL_SECTIONS = SECTION_MAIN | SECTION_ARMOR | SECTION_OFFHAND | SECTION_ENDER_CHEST;
+
     private final String mainContents;
     private final String armorContents;
     private final String offhandContents;
     private final String enderChestContents; // Optional
     private final Instant savedAt;
     private final UUID sourceRealmId; // Can be null for global inventory
+    private final int changedSections;
 
     public SerializedInventory(String mainContents, String armorContents, String offhandContents, String enderChestContents, UUID sourceRealmId) {
+        this(mainContents, armorContents, offhandContents, enderChestContents, sourceRealmId, Instant.now());
+    }
+
+    /**
+     * Recreates a stored inventory with its original save time.
+     */
+    public SerializedInventory(String mainContents, String armorContents, String offhandContents, String enderChestContents, UUID sourceRealmId, Instant savedAt) {
+        this(mainContents, armorContents, offhandContents, enderChestContents, sourceRealmId, savedAt, ALL_SECTIONS);
+    }
+
+    private SerializedInventory(String mainContents, String armorContents, String offhandContents, String enderChestContents, UUID sourceRealmId, Instant savedAt, int changedSections) {
         this.mainContents = mainContents;
         this.armorContents = armorContents;
         this.offhandContents = offhandContents;
         this.enderChestContents = enderChestContents;
         this.sourceRealmId = sourceRealmId;
-        this.savedAt = Instant.now();
+        this.savedAt = savedAt;
+        this.changedSections = changedSections;
+    }
+
+    /**
+     * Marks which sections differ from the inventory currently stored for the same realm and player, so that
+     * storages can write only those. The contents stay complete either way.
+     *
+     * @param changedSections A combination of the {@code SECTION_} flags.
+     * @return A copy with the given changed sections.
+     */
+    public SerializedInventory withChangedSections(int changedSections) {
+        return new SerializedInventory(mainContents, armorContents, offhandContents, enderChestContents, sourceRealmId, savedAt, changedSections);
     }
 
     // Getters
@@ -48,4 +79,11 @@ public class SerializedInventory {
     public UUID getSourceRealmId() {
         return sourceRealmId;
     }
+
+    /**
+     * @return The sections that differ from the stored inventory; {@link #ALL_SECTIONS} unless known otherwise.
+     */
+    public int getChangedSections() {
+        return changedSections;
+    }
 }
\ No newline at end of file
@@ -3,7 +3,7 @@ package com.minekarta.advancedcorerealms.listeners;
 import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
 import com.minekarta.advancedcorerealms.data.object.Realm;
 import com.minekarta.advancedcorerealms.manager.LanguageManager;
-import com.minekarta.advancedcorerealms.manager.RealmManager;
+import com.minekarta.advancedcorerealms.realm.RealmWorldResolver;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -12,29 +12,18 @@ import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.Optional;
-
 public class InventoryListener implements Listener {
 
     private final AdvancedCoreRealms plugin;
-    private final RealmManager realmManager;
+    private final RealmWorldResolver worldResolver;
     private final LanguageManager languageManager;
 
     public InventoryListener(AdvancedCoreRealms plugin) {
         this.plugin = plugin;
-        this.realmManager = plugin.getRealmManager();
+        this.worldResolver = plugin.getRealmManager().getWorldResolver();
         this.languageManager = plugin.getLanguageManager();
     }
 
-    private Optional<Realm> getRealmFromPlayer(Player player) {
-        String worldName = player.getWorld().getName();
-        if (worldName.startsWith("realms/")) {
-            String worldFolderName = worldName.substring("realms/".length());
-            return realmManager.getRealmByWorldFolderName(worldFolderName);
-        }
-        return Optional.empty();
-    }
-
     @EventHandler
     public void onInventoryClick(InventoryClickEvent event) {
         // This listener primarily handles GUI interactions, which are cancelled within the Menu system.
@@ -45,13 +34,12 @@ public class InventoryListener implements Listener {
     @EventHandler
     public void onItemDrop(PlayerDropItemEvent event) {
         Player player = event.getPlayer();
-        Optional<Realm> currentRealmOpt = getRealmFromPlayer(player);
+        Realm currentRealm = worldResolver.resolve(player.getWorld());
 
-        if (currentRealmOpt.isEmpty()) {
+        if (currentRealm == null) {
             return; // Not in a realm, no restrictions
         }
 
-        Realm currentRealm = currentRealmOpt.get();
         ItemStack droppedItem = event.getItemDrop().getItemStack();
 
         // Prevent dropping non-transferable items inside a realm.
@@ -3,7 +3,7 @@ package com.minekarta.advancedcorerealms.listeners;
 import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
 import com.minekarta.advancedcorerealms.api.AdvancedCorePlayer;
 import com.minekarta.advancedcorerealms.data.object.Realm;
-import com.minekarta.advancedcorerealms.manager.RealmManager;
+import com.minekarta.advancedcorerealms.realm.RealmWorldResolver;
 import org.bukkit.GameMode;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
@@ -18,20 +18,11 @@ import java.util.Optional;
 public class PlayerWorldListener implements Listener {
 
     private final AdvancedCoreRealms plugin;
-    private final RealmManager realmManager;
+    private final RealmWorldResolver worldResolver;
 
     public PlayerWorldListener(AdvancedCoreRealms plugin) {
         this.plugin = plugin;
-        this.realmManager = plugin.getRealmManager();
-    }
-
-    private Optional<Realm> getRealmFromWorld(World world) {
-        String worldName = world.getName();
-        if (worldName.startsWith("realms/")) {
-            String worldFolderName = worldName.substring("realms/".length());
-            return realmManager.getRealmByWorldFolderName(worldFolderName);
-        }
-        return Optional.empty();
+        this.worldResolver = plugin.getRealmManager().getWorldResolver();
     }
 
     @EventHandler
@@ -39,7 +30,7 @@ public class PlayerWorldListener implements Listener {
         Player player = event.getPlayer();
         World toWorld = player.getWorld();
 
-        Optional<Realm> toRealmOpt = getRealmFromWorld(toWorld);
+        Optional<Realm> toRealmOpt = worldResolver.find(toWorld);
 
         // Handle GameMode changes when entering/leaving a realm
         if (toRealmOpt.isPresent()) {
@@ -62,7 +53,7 @@ public class PlayerWorldListener implements Listener {
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
-        Optional<Realm> currentRealmOpt = getRealmFromWorld(player.getWorld());
+        Optional<Realm> currentRealmOpt = worldResolver.find(player.getWorld());
 
         // Set game mode based on realm settings if they log into a realm
         currentRealmOpt.ifPresent(currentRealm -> {
@@ -2,9 +2,8 @@ package com.minekarta.advancedcorerealms.listeners;
 
 import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
 import com.minekarta.advancedcorerealms.data.object.Realm;
-import com.minekarta.advancedcorerealms.manager.RealmManager;
+import com.minekarta.advancedcorerealms.realm.RealmWorldResolver;
 import com.minekarta.advancedcorerealms.realm.Role;
-import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -13,32 +12,20 @@ import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 
-import java.util.Optional;
-
 public class RealmProtectionListener implements Listener {
 
-    private final RealmManager realmManager;
+    private final RealmWorldResolver worldResolver;
 
     public RealmProtectionListener(AdvancedCoreRealms plugin) {
-        this.realmManager = plugin.getRealmManager();
-    }
-
-    private Optional<Realm> getRealmFromWorld(World world) {
-        String worldName = world.getName();
-        if (worldName.startsWith("realms/")) {
-            String worldFolderName = worldName.substring("realms/".length());
-            return realmManager.getRealmByWorldFolderName(worldFolderName);
-        }
-        return Optional.empty();
+        this.worldResolver = plugin.getRealmManager().getWorldResolver();
     }
 
     @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
     public void onBlockPlace(BlockPlaceEvent event) {
         Player player = event.getPlayer();
-        Optional<Realm> realmOptional = getRealmFromWorld(player.getWorld());
+        Realm realm = worldResolver.resolve(player.getWorld());
 
-        if (realmOptional.isPresent()) {
-            Realm realm = realmOptional.get();
+        if (realm != null) {
             Role playerRole = realm.getRole(player.getUniqueId());
 
             if (playerRole == Role.VISITOR) {
@@ -51,10 +38,9 @@ public class RealmProtectionListener implements Listener {
     @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent event) {
         Player player = event.getPlayer();
-        Optional<Realm> realmOptional = getRealmFromWorld(player.getWorld());
+        Realm realm = worldResolver.resolve(player.getWorld());
 
-        if (realmOptional.isPresent()) {
-            Realm realm = realmOptional.get();
+        if (realm != null) {
             Role playerRole = realm.getRole(player.getUniqueId());
 
             if (playerRole == Role.VISITOR) {
@@ -68,10 +54,9 @@ public class RealmProtectionListener implements Listener {
         Player player = event.getPlayer();
         if (event.getClickedBlock() == null) return;
 
-        Optional<Realm> realmOptional = getRealmFromWorld(player.getWorld());
+        Realm realm = worldResolver.resolve(player.getWorld());
 
-        if (realmOptional.isPresent()) {
-            Realm realm = realmOptional.get();
+        if (realm != null) {
             Role playerRole = realm.getRole(player.getUniqueId());
 
             if (playerRole == Role.VISITOR) {
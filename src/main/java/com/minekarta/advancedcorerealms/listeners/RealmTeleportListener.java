@@ -2,8 +2,8 @@ package com.minekarta.advancedcorerealms.listeners;
 
 import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
 import com.minekarta.advancedcorerealms.data.object.Realm;
-import com.minekarta.advancedcorerealms.manager.RealmManager;
 import com.minekarta.advancedcorerealms.realm.RealmInventoryService;
+import com.minekarta.advancedcorerealms.realm.RealmWorldResolver;
 import org.bukkit.World;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -14,21 +14,11 @@ import java.util.Optional;
 public class RealmTeleportListener implements Listener {
 
     private final RealmInventoryService realmInventoryService;
-    private final RealmManager realmManager;
+    private final RealmWorldResolver worldResolver;
 
     public RealmTeleportListener(AdvancedCoreRealms plugin) {
         this.realmInventoryService = plugin.getRealmInventoryService();
-        this.realmManager = plugin.getRealmManager();
-    }
-
-    private Optional<Realm> getRealmFromWorld(World world) {
-        if (world == null) return Optional.empty();
-        String worldName = world.getName();
-        if (worldName.startsWith("realms/")) {
-            String worldFolderName = worldName.substring("realms/".length());
-            return realmManager.getRealmByWorldFolderName(worldFolderName);
-        }
-        return Optional.empty();
+        this.worldResolver = plugin.getRealmManager().getWorldResolver();
     }
 
     @EventHandler
@@ -40,8 +30,8 @@ public class RealmTeleportListener implements Listener {
             return; // No world change, no inventory swap needed
         }
 
-        Optional<Realm> fromRealm = getRealmFromWorld(fromWorld);
-        Optional<Realm> toRealm = getRealmFromWorld(toWorld);
+        Optional<Realm> fromRealm = worldResolver.find(fromWorld);
+        Optional<Realm> toRealm = worldResolver.find(toWorld);
 
         // Case 1: Leaving a realm to a non-realm world
         if (fromRealm.isPresent() && toRealm.isEmpty()) {
@@ -25,8 +25,10 @@ public class InviteManager {
     }
 
     public void sendInvite(Player sender, Player target, String realmName) {
-        Optional<Realm> optionalRealm = realmManager.getRealmByName(realmName);
+        realmManager.withRealmByName(realmName, optionalRealm -> sendInvite(sender, target, realmName, optionalRealm));
+    }
 
+    private void sendInvite(Player sender, Player target, String realmName, Optional<Realm> optionalRealm) {
         if (optionalRealm.isEmpty()) {
             languageManager.sendMessage(sender, "error.realm_not_found");
             return;
@@ -54,29 +56,46 @@ public class InviteManager {
             return;
         }
 
-        Optional<Realm> optionalRealm = realmManager.getRealmByName(realmName);
+        realmManager.withRealmByName(realmName, optionalRealm -> acceptInvite(player, realmName, optionalRealm));
+    }
+
+    private void acceptInvite(Player player, String realmName, Optional<Realm> optionalRealm) {
+        UUID playerId = player.getUniqueId();
         if (optionalRealm.isEmpty()) {
             languageManager.sendMessage(player, "error.realm_not_found");
             return;
         }
 
         Realm realm = optionalRealm.get();
+        plugin.getRealmInventoryService().prefetch(player, realm);
         if (realm.isMember(playerId)) {
             // Already a member, just teleport
             plugin.getWorldManager().teleportToRealm(player, realmName);
             return;
         }
 
-        // Add the player as a member and save the realm
-        realm.addMember(playerId, Role.MEMBER);
-        realmManager.updateRealm(realm).thenRun(() -> {
-            languageManager.sendMessage(player, "realm.invite_accepted", "%realm%", realmName);
+        // Add the player as a member and save the realm; if they became a member meanwhile, just teleport
+        realmManager.modifyRealm(realm, current -> {
+            if (current.isMember(playerId)) {
+                return false;
+            }
+            current.addMember(playerId, Role.MEMBER);
+            return true;
+        }).thenAccept(updated -> {
+            if (updated.isPresent()) {
+                languageManager.sendMessage(player, "realm.invite_accepted", "%realm%", realmName);
+            }
             plugin.getWorldManager().teleportToRealm(player, realmName);
         }).exceptionally(ex -> {
             plugin.getLogger().log(Level.SEVERE, "Failed to accept invite for player " + player.getName(), ex);
             languageManager.sendMessage(player, "error.command_generic");
-            // Revert the local change if save failed, though it's not critical as it wasn't persisted
-            realm.removeMember(playerId);
+            if (!RealmManager.isUpdateConflict(ex)) {
+                // Revert the local change, so the membership is not written by a later retry of the failed save
+                realmManager.modifyRealm(realm, current -> {
+                    current.removeMember(playerId);
+                    return true;
+                });
+            }
             return null;
         });
     }
@@ -2,18 +2,39 @@ package com.minekarta.advancedcorerealms.manager;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
+import com.minekarta.advancedcorerealms.api.change.RealmChange;
 import com.minekarta.advancedcorerealms.data.object.PlayerData;
 import com.minekarta.advancedcorerealms.data.object.Realm;
+import com.minekarta.advancedcorerealms.realm.RealmChangeFeed;
+import com.minekarta.advancedcorerealms.realm.RealmWorldResolver;
+import com.minekarta.advancedcorerealms.storage.RealmMetadata;
+import com.minekarta.advancedcorerealms.storage.RealmMetadataIndex;
 import com.minekarta.advancedcorerealms.storage.StorageManager;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 
+import java.io.IOException;
+import java.util.ConcurrentModificationException;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
@@ -25,58 +46,95 @@ import java.util.stream.Collectors;
  *
  * <p><b>Caching Strategy:</b></p>
  * <ul>
- *     <li><b>Realms:</b> A Guava {@link Cache} is used for storing loaded realms, keyed by their unique `realmId`.</li>
- *     <li><b>Lookups:</b> Secondary caches map realm names and world folder names to the `realmId` for fast lookups.</li>
+ *     <li><b>Registry:</b> The {@link RealmMetadataIndex} is the authoritative, never-evicted registry of every stored
+ *     realm's name, owner, members and world. Name, world and existence checks are answered from it alone, so they do
+ *     not depend on which realms happen to be cached. It is updated on every create, update and delete, and its owner
+ *     and member maps answer per-player queries in time proportional to the result.</li>
+ *     <li><b>Realm bodies:</b> A Guava {@link LoadingCache} holds full realms, keyed by their unique `realmId`.
+ *     It is bounded by an estimated memory budget ({@code storage.realm-cache.memory-budget-mb}); evicted realms
+ *     remain known through the registry and are reloaded from storage on their next access. Hit, miss, load and
+ *     eviction counts are recorded and reported by {@link #describeCacheStats()}.</li>
  * </ul>
  *
  * <p><b>Data Flow:</b></p>
- * <p>On plugin startup, all realms are loaded from their JSON files into the cache.
+ * <p>On plugin startup, the realm index written by the previous clean shutdown is read and no realm is loaded;
+ * realms are hydrated from storage the first time they are accessed. If the index is missing or stale, all realms
+ * are loaded into the cache instead, which rebuilds the index.
  * All subsequent operations (get, update, delete) are performed on the cached instances first,
  * with corresponding file operations being dispatched asynchronously.</p>
  */
 public class RealmManager {
 
+    /** The maximum number of realm names offered by a single tab completion. */
+    public static final int MAX_COMPLETIONS = 50;
+    // Player-scoped completions filter the player's own realms up to this many, and walk the name index beyond it
+    private static final int SCOPED_SCAN_LIMIT = 64;
+    // How often modifyRealm re-reads and re-applies a change that lost a race before giving up
+    private static final int MAX_UPDATE_ATTEMPTS = 8;
+
     private final AdvancedCoreRealms plugin;
     private final StorageManager storageManager;
+    private final RealmMetadataIndex metadataIndex;
 
-    // Primary cache: UUID -> Realm
-    private final Cache<UUID, Realm> realmByIdCache;
-    // Lookup cache: String (name) -> UUID
-    private final Cache<String, UUID> realmByNameCache;
-    // Lookup cache: String (world folder) -> UUID
-    private final Cache<String, UUID> worldFolderNameCache;
+    // Realm bodies: UUID -> Realm, reloaded from storage on a miss
+    private final LoadingCache<UUID, Realm> realmByIdCache;
+    // Loaded worlds -> realms, kept in step with realmByIdCache
+    private final RealmWorldResolver worldResolver;
+    // Created, updated and deleted realms, for listeners inside and outside the plugin
+    private final RealmChangeFeed changeFeed;
+    // Entries removed by the cache itself, by cause (size, expiry)
+    private final Map<RemovalCause, LongAdder> evictions = new EnumMap<>(RemovalCause.class);
+    // Optimistic updates that had to be retried because the realm changed underneath them
+    private final LongAdder updateConflicts = new LongAdder();
 
     public RealmManager(AdvancedCoreRealms plugin) {
         this.plugin = plugin;
         this.storageManager = plugin.getStorageManager();
+        this.metadataIndex = storageManager.getMetadataIndex();
+        this.worldResolver = new RealmWorldResolver(this);
+        this.changeFeed = new RealmChangeFeed(plugin.getLogger());
 
-        this.realmByIdCache = CacheBuilder.newBuilder()
-                .maximumSize(500) // Adjust size as needed
-                .expireAfterAccess(60, TimeUnit.MINUTES)
-                .build();
-
-        this.realmByNameCache = CacheBuilder.newBuilder()
-                .maximumSize(500)
-                .expireAfterAccess(60, TimeUnit.MINUTES)
-                .build();
+        for (RemovalCause cause : RemovalCause.values()) {
+            evictions.put(cause, new LongAdder());
+        }
 
-        this.worldFolderNameCache = CacheBuilder.newBuilder()
-                .maximumSize(500)
+        this.realmByIdCache = CacheBuilder.newBuilder()
+                .maximumWeight(storageManager.getStorageConfig().getRealmCacheBudgetBytes())
+                .weigher((UUID realmId, Realm realm) -> estimateFootprint(realm))
                 .expireAfterAccess(60, TimeUnit.MINUTES)
-                .build();
+                .recordStats()
+                .removalListener(notification -> {
+                    if (notification.wasEvicted()) {
+                        evictions.get(notification.getCause()).increment();
+                    }
+                })
+                .build(new CacheLoader<UUID, Realm>() {
+                    @Override
+                    public Realm load(UUID realmId) throws IOException {
+                        // A realm whose world is loaded keeps its instance, even after it was evicted here.
+                        Realm active = worldResolver.getActiveRealm(realmId);
+                        if (active != null) {
+                            return active;
+                        }
+                        // Returning null makes Guava throw InvalidCacheLoadException, so missing realms are never cached.
+                        return storageManager.loadRealmBlocking(realmId);
+                    }
+                });
     }
 
     /**
-     * Initializes the RealmManager by loading all existing realms from storage into the cache.
+     * Initializes the RealmManager. If the realm index was restored from disk, nothing else is loaded;
+     * otherwise all existing realms are loaded from storage into the cache, rebuilding the index.
      * This should be called during the plugin's onEnable sequence.
      */
     public void init() {
-        storageManager.loadAllRealms().thenAccept(realms -> {
-            plugin.getLogger().info("Loading " + realms.size() + " realms from storage...");
-            for (Realm realm : realms) {
-                cacheRealm(realm);
-            }
-            plugin.getLogger().info("Realm loading complete.");
+        if (metadataIndex.isReady()) {
+            plugin.getLogger().info("Realm index loaded with " + metadataIndex.size() + " realms; realms are loaded on first access.");
+            return;
+        }
+        // Realms are cached as they are parsed, so they become visible before the whole load finishes.
+        storageManager.loadAllRealms(this::cacheRealm).thenAccept(report -> {
+            plugin.getLogger().info("Realm loading complete. " + report.describe());
         }).exceptionally(ex -> {
             plugin.getLogger().log(Level.SEVERE, "Failed to initialize RealmManager and load realms", ex);
             return null;
@@ -85,29 +143,134 @@ public class RealmManager {
 
     /**
      * Asynchronously saves a new realm and adds it to the cache.
+     * The realm is visible to lookups right away; if the save fails it is removed again.
+     * The save bypasses the write-behind window so the creator is not kept waiting.
      *
      * @param realm The {@link Realm} object to create and persist.
      * @return A {@link CompletableFuture} that completes when the operation is finished.
      */
     public CompletableFuture<Void> createRealm(Realm realm) {
-        return storageManager.saveRealm(realm).thenRun(() -> {
-            cacheRealm(realm);
+        cacheRealm(realm);
+        if (changeFeed.hasListeners()) {
+            changeFeed.publish(RealmChange.created(realm.snapshot()));
+        }
+        return storageManager.saveRealmNow(realm).whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                invalidateCaches(realm);
+                metadataIndex.remove(realm.getRealmId());
+                if (changeFeed.hasListeners()) {
+                    changeFeed.publish(RealmChange.deleted(realm.snapshot()));
+                }
+            }
         });
     }
 
     /**
      * Asynchronously updates an existing realm's data in both storage and the cache.
+     * Storage writes are coalesced, so the returned future may complete together with
+     * other updates made to the same realm during the current flush window.
+     * The realm's earlier state is not known here, so its change is published with every field marked as changed;
+     * prefer {@link #modifyRealm(UUID, Predicate)}.
      *
      * @param realm The {@link Realm} object with updated information.
      * @return A {@link CompletableFuture} that completes when the update is finished.
      */
     public CompletableFuture<Void> updateRealm(Realm realm) {
+        if (changeFeed.hasListeners()) {
+            changeFeed.publish(RealmChange.updated(null, realm.snapshot()));
+        }
         return storageManager.saveRealm(realm).thenRun(() -> {
             // Re-cache the realm to ensure data consistency
-            cacheRealm(realm);
+            recacheRealm(realm);
+        });
+    }
+
+    /**
+     * Publishes a change made on a {@link Realm#snapshot()} and saves the realm, but only if the realm
+     * has not changed since the snapshot was taken.
+     *
+     * @param updated         The modified snapshot.
+     * @param expectedVersion The realm's {@link Realm#getVersion()} when the snapshot was taken.
+     * @return A {@link CompletableFuture} with true once the change is saved, or false right away if the realm changed
+     * in the meantime or no longer exists, in which case nothing was applied and the caller should re-read the realm.
+     */
+    public CompletableFuture<Boolean> compareAndUpdate(Realm updated, long expectedVersion) {
+        Realm realm = getRealm(updated.getRealmId()).orElse(null);
+        if (realm == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        Realm before = realm.snapshot();
+        if (before.getVersion() != expectedVersion || !compareAndPublish(realm, before, updated)) {
+            updateConflicts.increment();
+            return CompletableFuture.completedFuture(false);
+        }
+        return storageManager.saveRealm(realm).thenApply(ignored -> {
+            recacheRealm(realm);
+            return true;
         });
     }
 
+    /**
+     * Applies a change to the current state of a realm and saves it, retrying if another change wins the race.
+     * The mutation runs against a private snapshot, so it can check the realm and then change it without the
+     * check going stale: if the realm changes in between, the mutation is simply run again on the new state.
+     * No lock is held while the mutation runs, so it must be free of side effects other than on its argument.
+     *
+     * @param realmId  The realm to change.
+     * @param mutation Changes the given snapshot and returns true, or returns false to abandon the change.
+     * @return A {@link CompletableFuture} with the updated realm once it is saved, or an empty optional if the
+     * realm does not exist or the mutation declined. Fails with a {@link ConcurrentModificationException}
+     * if the realm kept changing for {@value #MAX_UPDATE_ATTEMPTS} attempts.
+     */
+    public CompletableFuture<Optional<Realm>> modifyRealm(UUID realmId, Predicate<Realm> mutation) {
+        for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+            Optional<Realm> current = getRealm(realmId);
+            if (current.isEmpty()) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            Realm realm = current.get();
+            // Both copies carry the version they were taken at, so a successful compare-and-set proves
+            // that "before" really was the state the change replaced.
+            Realm before = realm.snapshot();
+            long expectedVersion = before.getVersion();
+            Realm working = before.snapshot();
+            if (!mutation.test(working)) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            if (compareAndPublish(realm, before, working)) {
+                return storageManager.saveRealm(realm).thenApply(ignored -> {
+                    recacheRealm(realm);
+                    return Optional.of(realm);
+                });
+            }
+            updateConflicts.increment();
+        }
+        return CompletableFuture.failedFuture(new ConcurrentModificationException(
+                "Realm " + realmId + " changed during " + MAX_UPDATE_ATTEMPTS + " consecutive update attempts"));
+    }
+
+    /**
+     * @param failure The exception a {@link #modifyRealm(UUID, Predicate)} future failed with.
+     * @return true if the update gave up because the realm kept changing, meaning nothing was applied;
+     * false if the change was applied but could not be saved.
+     */
+    public static boolean isUpdateConflict(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        return cause instanceof ConcurrentModificationException;
+    }
+
+    /**
+     * Convenience overload of {@link #modifyRealm(UUID, Predicate)}. The change is applied to the realm's current
+     * state, which may be newer than the given instance.
+     *
+     * @param realm    The realm to change.
+     * @param mutation Changes the given snapshot and returns true, or returns false to abandon the change.
+     * @return See {@link #modifyRealm(UUID, Predicate)}.
+     */
+    public CompletableFuture<Optional<Realm>> modifyRealm(Realm realm, Predicate<Realm> mutation) {
+        return modifyRealm(realm.getRealmId(), mutation);
+    }
+
     /**
      * Asynchronously deletes a realm from storage and invalidates it from the cache.
      *
@@ -117,31 +280,69 @@ public class RealmManager {
     public CompletableFuture<Void> deleteRealm(Realm realm) {
         return storageManager.deleteRealm(realm.getRealmId()).thenRun(() -> {
             invalidateCaches(realm);
+            if (changeFeed.hasListeners()) {
+                changeFeed.publish(RealmChange.deleted(realm.snapshot()));
+            }
         });
     }
 
+    /**
+     * Installs an updated state with {@link Realm#compareAndSet(long, Realm)} and publishes the change.
+     * Realm mutators synchronize on the realm, so holding its monitor here queues the change before any later
+     * change of the same realm can be applied, keeping the feed in version order.
+     */
+    private boolean compareAndPublish(Realm realm, Realm before, Realm updated) {
+        synchronized (realm) {
+            if (!realm.compareAndSet(before.getVersion(), updated)) {
+                return false;
+            }
+            if (changeFeed.hasListeners()) {
+                changeFeed.publish(RealmChange.updated(before, realm.snapshot()));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return The feed of realm creations, updates and deletions.
+     */
+    public RealmChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * @return The resolver that maps loaded worlds to their realms.
+     */
+    public RealmWorldResolver getWorldResolver() {
+        return worldResolver;
+    }
+
     /**
      * Retrieves a realm by its unique ID.
+     * A realm that is indexed but not cached is loaded from storage on the calling thread;
+     * use {@link #getRealmAsync(UUID)} where the realm may be cold.
      *
      * @param realmId The UUID of the realm.
-     * @return An {@link Optional} containing the {@link Realm} if found in the cache.
+     * @return An {@link Optional} containing the {@link Realm} if it exists.
      */
     public Optional<Realm> getRealm(UUID realmId) {
-        return Optional.ofNullable(realmByIdCache.getIfPresent(realmId));
+        Realm cached = realmByIdCache.getIfPresent(realmId);
+        if (cached != null || !metadataIndex.contains(realmId)) {
+            return Optional.ofNullable(cached);
+        }
+        return Optional.ofNullable(hydrate(realmId));
     }
 
     /**
      * Retrieves a realm by its unique, case-insensitive name.
+     * Like {@link #getRealm(UUID)}, a realm that is not cached is loaded on the calling thread;
+     * use {@link #withRealmByName(String, Consumer)} on the main thread.
      *
      * @param name The name of the realm.
      * @return An {@link Optional} containing the {@link Realm} if found.
      */
     public Optional<Realm> getRealmByName(String name) {
-        UUID realmId = realmByNameCache.getIfPresent(name.toLowerCase());
-        if (realmId == null) {
-            return Optional.empty();
-        }
-        return getRealm(realmId);
+        return metadataIndex.findIdByName(name).flatMap(this::getRealm);
     }
 
     /**
@@ -151,11 +352,166 @@ public class RealmManager {
      * @return An {@link Optional} containing the {@link Realm} if found.
      */
     public Optional<Realm> getRealmByWorldFolderName(String worldFolderName) {
-        UUID realmId = worldFolderNameCache.getIfPresent(worldFolderName);
-        if (realmId == null) {
-            return Optional.empty();
+        return metadataIndex.findIdByWorldFolder(worldFolderName).flatMap(this::getRealm);
+    }
+
+    /**
+     * Retrieves a realm by its unique ID without blocking. Cached realms complete immediately;
+     * cold realms are loaded from storage on the storage executor. Concurrent accesses to the same
+     * cold realm share a single load.
+     *
+     * @param realmId The UUID of the realm.
+     * @return A {@link CompletableFuture} containing the {@link Realm} if it exists.
+     */
+    public CompletableFuture<Optional<Realm>> getRealmAsync(UUID realmId) {
+        Realm cached = realmByIdCache.getIfPresent(realmId);
+        if (cached != null || !metadataIndex.contains(realmId)) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(cached));
+        }
+        return CompletableFuture.supplyAsync(() -> Optional.ofNullable(hydrate(realmId)), storageManager.getIoExecutor());
+    }
+
+    /**
+     * Retrieves a realm by its case-insensitive name without blocking.
+     *
+     * @param name The name of the realm.
+     * @return A {@link CompletableFuture} containing the {@link Realm} if found.
+     */
+    public CompletableFuture<Optional<Realm>> getRealmByNameAsync(String name) {
+        return metadataIndex.findIdByName(name)
+                .map(this::getRealmAsync)
+                .orElseGet(() -> CompletableFuture.completedFuture(Optional.empty()));
+    }
+
+    /**
+     * Retrieves a realm by its world folder name without blocking.
+     *
+     * @param worldFolderName The name of the world folder.
+     * @return A {@link CompletableFuture} containing the {@link Realm} if found.
+     */
+    public CompletableFuture<Optional<Realm>> getRealmByWorldFolderNameAsync(String worldFolderName) {
+        return metadataIndex.findIdByWorldFolder(worldFolderName)
+                .map(this::getRealmAsync)
+                .orElseGet(() -> CompletableFuture.completedFuture(Optional.empty()));
+    }
+
+    /**
+     * Looks up a realm without blocking and hands it to an action on the main thread: right away if the realm
+     * is cached and this is the main thread, otherwise once it has been loaded.
+     *
+     * @param realmId The UUID of the realm.
+     * @param action  Receives the {@link Realm} if it exists.
+     */
+    public void withRealm(UUID realmId, Consumer<Optional<Realm>> action) {
+        onMainThread(getRealmAsync(realmId), action);
+    }
+
+    /**
+     * Looks up a realm by its case-insensitive name like {@link #withRealm(UUID, Consumer)}.
+     *
+     * @param name   The name of the realm.
+     * @param action Receives the {@link Realm} if found.
+     */
+    public void withRealmByName(String name, Consumer<Optional<Realm>> action) {
+        onMainThread(getRealmByNameAsync(name), action);
+    }
+
+    private void onMainThread(CompletableFuture<Optional<Realm>> realm, Consumer<Optional<Realm>> action) {
+        if (realm.isDone() && Bukkit.isPrimaryThread()) {
+            action.accept(realm.join());
+            return;
+        }
+        realm.thenAccept(result -> Bukkit.getScheduler().runTask(plugin, () -> action.accept(result)));
+    }
+
+    /**
+     * Retrieves the lightweight description of a realm without loading it.
+     *
+     * @param realmId The UUID of the realm.
+     * @return An {@link Optional} containing the realm's {@link RealmMetadata} if it exists.
+     */
+    public Optional<RealmMetadata> getRealmStub(UUID realmId) {
+        Realm cached = realmByIdCache.getIfPresent(realmId);
+        if (cached != null) {
+            // The cached instance may hold changes that are not yet committed to the index.
+            return Optional.of(RealmMetadata.of(cached));
         }
-        return getRealm(realmId);
+        return metadataIndex.get(realmId);
+    }
+
+    /**
+     * Retrieves stubs for all realms owned by a player without loading them.
+     * Prefer this over {@link #getRealmsByOwner(UUID)} for names and counts.
+     *
+     * @param ownerUuid The UUID of the owner.
+     * @return The owned realms' {@link RealmMetadata}.
+     */
+    public List<RealmMetadata> getRealmStubsByOwner(UUID ownerUuid) {
+        return stubs(ownedRealmIds(ownerUuid)).stream()
+                .filter(stub -> stub.getOwner().equals(ownerUuid))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieves stubs for all realms a player is a member of without loading them.
+     *
+     * @param playerUuid The UUID of the player.
+     * @return The {@link RealmMetadata} of every realm the player is a member of, including owned realms.
+     */
+    public List<RealmMetadata> getMemberRealmStubs(UUID playerUuid) {
+        return stubs(memberRealmIds(playerUuid)).stream()
+                .filter(stub -> stub.isMember(playerUuid))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Searches realms by case-insensitive name prefix, in alphabetical order, without loading them.
+     *
+     * @param prefix The name prefix; empty for all realms.
+     * @param offset The number of matches to skip, for paging.
+     * @param limit  The maximum number of results.
+     * @return Up to {@code limit} matching realms.
+     */
+    public List<RealmMetadata> searchRealms(String prefix, int offset, int limit) {
+        return metadataIndex.findByNamePrefix(prefix, offset, limit, stub -> true);
+    }
+
+    /**
+     * Completes any realm name.
+     *
+     * @param prefix What the player has typed so far.
+     * @return Up to {@link #MAX_COMPLETIONS} matching realm names, in alphabetical order.
+     */
+    public List<String> completeRealmNames(String prefix) {
+        return names(metadataIndex.findByNamePrefix(prefix, 0, MAX_COMPLETIONS, stub -> true));
+    }
+
+    /**
+     * Completes the names of the realms a player owns.
+     *
+     * @param ownerUuid The owner.
+     * @param prefix    What the player has typed so far.
+     * @return Up to {@link #MAX_COMPLETIONS} matching realm names, in alphabetical order.
+     */
+    public List<String> completeOwnedRealmNames(UUID ownerUuid, String prefix) {
+        if (metadataIndex.countByOwner(ownerUuid) <= SCOPED_SCAN_LIMIT) {
+            return completeFrom(ownedRealmIds(ownerUuid), prefix);
+        }
+        return names(metadataIndex.findByNamePrefix(prefix, 0, MAX_COMPLETIONS, stub -> stub.getOwner().equals(ownerUuid)));
+    }
+
+    /**
+     * Completes the names of the realms a player is a member of, including owned realms.
+     *
+     * @param playerUuid The player.
+     * @param prefix     What the player has typed so far.
+     * @return Up to {@link #MAX_COMPLETIONS} matching realm names, in alphabetical order.
+     */
+    public List<String> completeMemberRealmNames(UUID playerUuid, String prefix) {
+        if (metadataIndex.countByMember(playerUuid) <= SCOPED_SCAN_LIMIT) {
+            return completeFrom(memberRealmIds(playerUuid), prefix);
+        }
+        return names(metadataIndex.findByNamePrefix(prefix, 0, MAX_COMPLETIONS, stub -> stub.isMember(playerUuid)));
     }
 
     /**
@@ -165,35 +521,67 @@ public class RealmManager {
      * @return true if a realm with this name exists, false otherwise.
      */
     public boolean doesRealmExist(String name) {
-        return realmByNameCache.getIfPresent(name.toLowerCase()) != null;
+        return metadataIndex.findIdByName(name).isPresent();
     }
 
     /**
-     * Retrieves all cached realms owned by a specific player.
+     * Retrieves all realms owned by a specific player.
+     * Every owned realm that is not cached is loaded on the calling thread; on the main thread, use
+     * {@link #getRealmStubsByOwner(UUID)} and load only the realms that are needed.
      *
      * @param ownerUuid The UUID of the owner.
      * @return A list of owned {@link Realm}s.
      */
     public List<Realm> getRealmsByOwner(UUID ownerUuid) {
-        return realmByIdCache.asMap().values().stream()
+        return resolve(ownedRealmIds(ownerUuid)).stream()
                 .filter(realm -> realm.getOwner().equals(ownerUuid))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Retrieves all cached realms where the player is a member (but not necessarily the owner).
+     * Retrieves all realms where the player is a member (but not necessarily the owner).
+     * Every such realm that is not cached is loaded on the calling thread; on the main thread, use
+     * {@link #getMemberRealmStubs(UUID)} instead.
      *
      * @param playerUuid The UUID of the player.
      * @return A list of {@link Realm}s the player is a member of.
      */
     public List<Realm> getMemberRealms(UUID playerUuid) {
-        return realmByIdCache.asMap().values().stream()
+        return resolve(memberRealmIds(playerUuid)).stream()
                 .filter(realm -> realm.isMember(playerUuid))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Retrieves all realms currently loaded in the cache.
+     * Counts the realms a player owns without building a list.
+     *
+     * @param ownerUuid The UUID of the owner.
+     * @return The number of owned realms.
+     */
+    public int getOwnedRealmCount(UUID ownerUuid) {
+        return metadataIndex.countByOwner(ownerUuid);
+    }
+
+    /**
+     * Counts the realms a player is a member of, including owned realms, without building a list.
+     *
+     * @param playerUuid The UUID of the player.
+     * @return The number of realms the player is a member of.
+     */
+    public int getMemberRealmCount(UUID playerUuid) {
+        return metadataIndex.countByMember(playerUuid);
+    }
+
+    /**
+     * @return The number of known realms, including those not currently cached.
+     */
+    public int getRealmCount() {
+        return metadataIndex.isReady() ? metadataIndex.size() : (int) realmByIdCache.size();
+    }
+
+    /**
+     * Retrieves all realms currently loaded in the cache. Realms that have not been accessed since
+     * startup are not included; use {@link #getRealmCount()} for the total.
      *
      * @return A concurrent map of all cached realms.
      */
@@ -201,6 +589,100 @@ public class RealmManager {
         return realmByIdCache.asMap();
     }
 
+    private Set<UUID> ownedRealmIds(UUID ownerUuid) {
+        return metadataIndex.findIdsByOwner(ownerUuid);
+    }
+
+    private Set<UUID> memberRealmIds(UUID playerUuid) {
+        return metadataIndex.findIdsByMember(playerUuid);
+    }
+
+    private List<String> completeFrom(Set<UUID> realmIds, String prefix) {
+        return realmIds.stream()
+                .map(metadataIndex::get)
+                .flatMap(Optional::stream)
+                .map(RealmMetadata::getName)
+                .filter(name -> name.regionMatches(true, 0, prefix, 0, prefix.length()))
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .limit(MAX_COMPLETIONS)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> names(List<RealmMetadata> stubs) {
+        return stubs.stream().map(RealmMetadata::getName).collect(Collectors.toList());
+    }
+
+    private List<RealmMetadata> stubs(Set<UUID> realmIds) {
+        return realmIds.stream()
+                .map(this::getRealmStub)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
+    }
+
+    private List<Realm> resolve(Set<UUID> realmIds) {
+        return realmIds.stream()
+                .map(this::getRealm)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return The realm cache's hit, miss, load and eviction counts since startup.
+     */
+    public CacheStats getCacheStats() {
+        return realmByIdCache.stats();
+    }
+
+    /**
+     * @return A one-line summary of the realm cache, for sizing {@code storage.realm-cache.memory-budget-mb}.
+     */
+    public String describeCacheStats() {
+        CacheStats stats = realmByIdCache.stats();
+        return String.format("Realm cache: %d of %d realms loaded, hit rate %.1f%% (%d hits, %d misses), "
+                        + "%d loads (avg %.2f ms, %d failed), %d evicted by size, %d expired, %d update conflicts",
+                realmByIdCache.size(), getRealmCount(), stats.hitRate() * 100, stats.hitCount(), stats.missCount(),
+                stats.loadCount(), stats.averageLoadPenalty() / 1_000_000.0, stats.loadExceptionCount(),
+                evictions.get(RemovalCause.SIZE).sum(), evictions.get(RemovalCause.EXPIRED).sum(), updateConflicts.sum());
+    }
+
+    /**
+     * Loads an indexed realm that is not cached, waiting for the result on the calling thread.
+     * Guava makes concurrent callers for the same realm wait for a single load.
+     */
+    private Realm hydrate(UUID realmId) {
+        try {
+            return realmByIdCache.get(realmId);
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            // The index knew a realm that storage does not; drop the stale entry.
+            metadataIndex.remove(realmId);
+            return null;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to load realm " + realmId, e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Roughly estimates the heap used by a loaded realm, for the cache's memory budget.
+     * Only the variable-size parts are counted individually; the rest is a fixed allowance.
+     */
+    private static int estimateFootprint(Realm realm) {
+        int bytes = 512;
+        bytes += 2 * (length(realm.getName()) + length(realm.getWorldFolderName()) + length(realm.getTemplate()));
+        bytes += realm.getMembers() != null ? realm.getMembers().size() * 96 : 0;
+        bytes += realm.getAccessList() != null ? realm.getAccessList().size() * 48 : 0;
+        if (realm.getTransferableItems() != null) {
+            for (String item : realm.getTransferableItems()) {
+                bytes += 48 + 2 * length(item);
+            }
+        }
+        return bytes;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
     /**
      * Adds or updates a realm in the cache system.
      *
@@ -208,8 +690,17 @@ public class RealmManager {
      */
     private void cacheRealm(Realm realm) {
         realmByIdCache.put(realm.getRealmId(), realm);
-        realmByNameCache.put(realm.getName().toLowerCase(), realm.getRealmId());
-        worldFolderNameCache.put(realm.getWorldFolderName(), realm.getRealmId());
+        worldResolver.refresh(realm);
+    }
+
+    /**
+     * Caches a realm again after a save, unless it was deleted meanwhile; the save of a deleted realm is dropped
+     * and the realm must not come back through the cache either.
+     */
+    private void recacheRealm(Realm realm) {
+        if (metadataIndex.contains(realm.getRealmId())) {
+            cacheRealm(realm);
+        }
     }
 
     /**
@@ -220,8 +711,7 @@ public class RealmManager {
     public void invalidateCaches(Realm realm) {
         if (realm != null) {
             realmByIdCache.invalidate(realm.getRealmId());
-            realmByNameCache.invalidate(realm.getName().toLowerCase());
-            worldFolderNameCache.invalidate(realm.getWorldFolderName());
+            worldResolver.forget(realm.getRealmId());
         }
     }
 
@@ -90,8 +90,10 @@ public class WorldManager {
      * @param realmName The display name of the realm.
      */
     public void teleportToRealm(Player player, String realmName) {
-        Optional<Realm> optionalRealm = realmManager.getRealmByName(realmName);
+        realmManager.withRealmByName(realmName, optionalRealm -> teleportToRealm(player, optionalRealm));
+    }
 
+    private void teleportToRealm(Player player, Optional<Realm> optionalRealm) {
         if (optionalRealm.isEmpty()) {
             languageManager.sendMessage(player, "error.realm_not_found");
             return;
@@ -105,6 +107,8 @@ public class WorldManager {
             return;
         }
 
+        // Load the realm inventory while the world is loaded
+        plugin.getRealmInventoryService().prefetch(player, realm);
         Bukkit.getScheduler().runTask(plugin, () -> {
             World world = Bukkit.getWorld(worldPath);
             if (world == null) {
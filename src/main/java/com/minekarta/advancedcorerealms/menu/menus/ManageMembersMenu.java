@@ -69,28 +69,45 @@ public class ManageMembersMenu extends Menu {
             if (meta == null || meta.getOwningPlayer() == null) return;
 
             UUID targetUuid = meta.getOwningPlayer().getUniqueId();
-            Role targetRole = realm.getRole(targetUuid);
-            Role actorRole = realm.getRole(player.getUniqueId());
+            String targetName = meta.getOwningPlayer().getName();
+            // Roles are checked against the realm's current state, which may have changed since the menu was drawn
 
             if (e.isShiftClick()) {
                 // Kick player
-                if (actorRole == Role.OWNER || (actorRole == Role.ADMIN && targetRole != Role.ADMIN && targetRole != Role.OWNER)) {
-                    realm.removeMember(targetUuid);
-                    player.sendMessage("Kicked " + meta.getOwningPlayer().getName());
-                    setMenuItems(); // Refresh menu
-                } else {
-                    player.sendMessage("You don't have permission to kick this player.");
-                }
+                plugin.getRealmManager().modifyRealm(realm, current -> {
+                    Role actorRole = current.getRole(player.getUniqueId());
+                    Role targetRole = current.getRole(targetUuid);
+                    if (!(actorRole == Role.OWNER || (actorRole == Role.ADMIN && targetRole != Role.ADMIN && targetRole != Role.OWNER))) {
+                        return false;
+                    }
+                    current.removeMember(targetUuid);
+                    return true;
+                }).thenAccept(updated -> Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (updated.isPresent()) {
+                        player.sendMessage("Kicked " + targetName);
+                        setMenuItems(); // Refresh menu
+                    } else {
+                        player.sendMessage("You don't have permission to kick this player.");
+                    }
+                }));
             } else {
                 // Promote/demote
-                if (actorRole == Role.OWNER || (actorRole == Role.ADMIN && targetRole == Role.MEMBER)) {
-                    Role newRole = (targetRole == Role.MEMBER) ? Role.ADMIN : Role.MEMBER;
-                    realm.addMember(targetUuid, newRole);
-                    player.sendMessage("Set " + meta.getOwningPlayer().getName() + "'s role to " + newRole.name());
-                    setMenuItems(); // Refresh menu
-                } else {
-                    player.sendMessage("You don't have permission to change this player's role.");
-                }
+                plugin.getRealmManager().modifyRealm(realm, current -> {
+                    Role actorRole = current.getRole(player.getUniqueId());
+                    Role targetRole = current.getRole(targetUuid);
+                    if (!(actorRole == Role.OWNER || (actorRole == Role.ADMIN && targetRole == Role.MEMBER))) {
+                        return false;
+                    }
+                    current.addMember(targetUuid, (targetRole == Role.MEMBER) ? Role.ADMIN : Role.MEMBER);
+                    return true;
+                }).thenAccept(updated -> Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (updated.isPresent()) {
+                        player.sendMessage("Set " + targetName + "'s role to " + updated.get().getRole(targetUuid).name());
+                        setMenuItems(); // Refresh menu
+                    } else {
+                        player.sendMessage("You don't have permission to change this player's role.");
+                    }
+                }));
             }
         } else if (slot == 48) {
             // Invite player
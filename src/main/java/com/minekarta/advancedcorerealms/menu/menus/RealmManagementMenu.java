@@ -15,7 +15,6 @@ import org.bukkit.inventory.ItemStack;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class RealmManagementMenu extends Menu {
@@ -41,16 +40,17 @@ public class RealmManagementMenu extends Menu {
     }
 
     private void loadAndSetItems() {
-        Optional<Realm> optionalRealm = realmManager.getRealmByName(realmName);
-
-        if (optionalRealm.isEmpty()) {
-            player.closeInventory();
-            plugin.getLanguageManager().sendMessage(player, "error.realm_not_found");
-            return;
-        }
+        // A realm that is not cached is loaded off the main thread; the menu stays empty until then
+        realmManager.withRealmByName(realmName, optionalRealm -> {
+            if (optionalRealm.isEmpty()) {
+                player.closeInventory();
+                plugin.getLanguageManager().sendMessage(player, "error.realm_not_found");
+                return;
+            }
 
-        this.realm = optionalRealm.get();
-        setMenuItems();
+            this.realm = optionalRealm.get();
+            setMenuItems();
+        });
     }
 
     private void setMenuItems() {
@@ -47,15 +47,17 @@ public class RealmPlayersMenu extends Menu {
     }
 
     private void loadAndSetItems() {
-        Optional<Realm> optionalRealm = realmManager.getRealmByName(realmName);
-        if (optionalRealm.isEmpty()) {
-            player.closeInventory();
-            plugin.getLanguageManager().sendMessage(player, "error.realm_not_found");
-            return;
-        }
-        this.realm = optionalRealm.get();
-        this.allPlayers = new ArrayList<>(realm.getMembers().keySet());
-        setMenuItems();
+        // A realm that is not cached is loaded off the main thread; the menu stays empty until then
+        realmManager.withRealmByName(realmName, optionalRealm -> {
+            if (optionalRealm.isEmpty()) {
+                player.closeInventory();
+                plugin.getLanguageManager().sendMessage(player, "error.realm_not_found");
+                return;
+            }
+            this.realm = optionalRealm.get();
+            this.allPlayers = new ArrayList<>(realm.getMembers().keySet());
+            setMenuItems();
+        });
     }
 
     private void setMenuItems() {
@@ -151,14 +153,22 @@ public class RealmPlayersMenu extends Menu {
         boolean isTargetOwner = realm.getOwner().equals(targetId);
 
         if (isOwner && !isTargetOwner) {
-            realm.removeMember(targetId); // Modify the object
-            realmManager.updateRealm(realm).thenRun(() -> { // Persist the change
-                Bukkit.getScheduler().runTask(plugin, () -> {
+            // The ownership check is repeated on the realm's current state, which may have changed since the menu opened
+            realmManager.modifyRealm(realm, current -> {
+                if (!current.getOwner().equals(player.getUniqueId()) || current.getOwner().equals(targetId)) {
+                    return false;
+                }
+                current.removeMember(targetId);
+                return true;
+            }).thenAccept(updated -> Bukkit.getScheduler().runTask(plugin, () -> {
+                if (updated.isEmpty()) {
+                    plugin.getLanguageManager().sendMessage(player, "error.cannot_kick_player");
+                } else {
                     plugin.getLanguageManager().sendMessage(player, "realm.player_kicked", "%player%", Bukkit.getOfflinePlayer(targetId).getName());
-                    // Refresh the menu to show the updated player list
-                    new RealmPlayersMenu(plugin, player, menuConfig, menuManager, realmName, page, fromMyRealms).open();
-                });
-            });
+                }
+                // Refresh the menu to show the updated player list
+                new RealmPlayersMenu(plugin, player, menuConfig, menuManager, realmName, page, fromMyRealms).open();
+            }));
         } else {
             plugin.getLanguageManager().sendMessage(player, "error.cannot_kick_player");
         }
@@ -17,7 +17,6 @@ import org.bukkit.inventory.ItemStack;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class RealmSettingsMenu extends Menu {
@@ -43,14 +42,16 @@ public class RealmSettingsMenu extends Menu {
     }
 
     private void loadAndSetItems() {
-        Optional<Realm> optionalRealm = realmManager.getRealmByName(realmName);
-        if (optionalRealm.isEmpty()) {
-            player.closeInventory();
-            plugin.getLanguageManager().sendMessage(player, "error.realm_not_found");
-            return;
-        }
-        this.realm = optionalRealm.get();
-        setMenuItems();
+        // A realm that is not cached is loaded off the main thread; the menu stays empty until then
+        realmManager.withRealmByName(realmName, optionalRealm -> {
+            if (optionalRealm.isEmpty()) {
+                player.closeInventory();
+                plugin.getLanguageManager().sendMessage(player, "error.realm_not_found");
+                return;
+            }
+            this.realm = optionalRealm.get();
+            setMenuItems();
+        });
     }
 
     private void setMenuItems() {
@@ -131,8 +132,10 @@ public class RealmSettingsMenu extends Menu {
         int finalNewLimit = Math.max(1, Math.min(100, newLimit)); // Clamp between 1 and 100
 
         if (finalNewLimit != currentLimit) {
-            realm.setMaxPlayers(finalNewLimit);
-            realmManager.updateRealm(realm).thenRun(() -> {
+            realmManager.modifyRealm(realm, current -> {
+                current.setMaxPlayers(finalNewLimit);
+                return true;
+            }).thenRun(() -> {
                 plugin.getLanguageManager().sendMessage(player, "realm.player_limit_set", "%realm%", realmName, "%limit%", String.valueOf(finalNewLimit));
                 Bukkit.getScheduler().runTask(plugin, () ->
                         new RealmSettingsMenu(plugin, player, menuConfig, menuManager, realmName, fromMyRealms).open()
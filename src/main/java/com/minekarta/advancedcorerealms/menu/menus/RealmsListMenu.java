@@ -1,10 +1,10 @@
 package com.minekarta.advancedcorerealms.menu.menus;
 
 import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
-import com.minekarta.advancedcorerealms.data.object.Realm;
 import com.minekarta.advancedcorerealms.manager.RealmManager;
 import com.minekarta.advancedcorerealms.menu.Menu;
 import com.minekarta.advancedcorerealms.menu.MenuManager;
+import com.minekarta.advancedcorerealms.storage.RealmMetadata;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
@@ -26,9 +26,9 @@ public class RealmsListMenu extends Menu {
     private final MenuManager menuManager;
     private final boolean ownRealms;
     private final int page;
-    private List<Realm> allRealms;
+    private List<RealmMetadata> allRealms;
     private final Map<Integer, String> slotActions = new HashMap<>();
-    private final Map<Integer, String> realmSlots = new HashMap<>();
+    private final Map<Integer, RealmMetadata> realmSlots = new HashMap<>();
 
     public RealmsListMenu(AdvancedCoreRealms plugin, Player player, FileConfiguration menuConfig, MenuManager menuManager, boolean ownRealms, int page) {
         super(plugin, player, menuConfig.getString(ownRealms ? "realms_list.my_realms_title" : "realms_list.accessible_realms_title", "Realms"), menuConfig.getInt("realms_list.size", 54));
@@ -42,10 +42,11 @@ public class RealmsListMenu extends Menu {
     }
 
     private void loadAndSetItems() {
+        // Built from the realm index, so listing realms never loads them
         if (ownRealms) {
-            this.allRealms = realmManager.getRealmsByOwner(player.getUniqueId());
+            this.allRealms = realmManager.getRealmStubsByOwner(player.getUniqueId());
         } else {
-            this.allRealms = realmManager.getMemberRealms(player.getUniqueId()).stream()
+            this.allRealms = realmManager.getMemberRealmStubs(player.getUniqueId()).stream()
                     .filter(realm -> !realm.getOwner().equals(player.getUniqueId()))
                     .collect(Collectors.toList());
         }
@@ -74,10 +75,10 @@ public class RealmsListMenu extends Menu {
 
         int itemsPerPage = 45;
         int startIndex = (page - 1) * itemsPerPage;
-        List<Realm> pageRealms = allRealms.stream().skip(startIndex).limit(itemsPerPage).collect(Collectors.toList());
+        List<RealmMetadata> pageRealms = allRealms.stream().skip(startIndex).limit(itemsPerPage).collect(Collectors.toList());
 
         int slot = 0;
-        for (Realm realm : pageRealms) {
+        for (RealmMetadata realm : pageRealms) {
             while (inventory.getItem(slot) != null && slot < itemsPerPage) {
                 slot++;
             }
@@ -88,7 +89,7 @@ public class RealmsListMenu extends Menu {
             String worldPath = "realms/" + realm.getWorldFolderName();
             String status = Bukkit.getWorld(worldPath) != null ? "<gray>Status: <green>Loaded" : "<gray>Status: <red>Unloaded";
             inventory.setItem(slot, createGuiItem(mat, name, status));
-            realmSlots.put(slot, realm.getName());
+            realmSlots.put(slot, realm);
         }
 
         ConfigurationSection glassPaneConfig = elements.getConfigurationSection("glass_panes");
@@ -129,9 +130,11 @@ public class RealmsListMenu extends Menu {
             return;
         }
 
-        String realmName = realmSlots.get(clickedSlot);
-        if (realmName != null) {
-            menuManager.openRealmManagementMenu(player, realmName, ownRealms);
+        RealmMetadata realm = realmSlots.get(clickedSlot);
+        if (realm != null) {
+            // Teleporting is the likely next step, so start loading the realm inventory already
+            plugin.getRealmInventoryService().prefetch(player, realm.getRealmId());
+            menuManager.openRealmManagementMenu(player, realm.getName(), ownRealms);
         }
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.minekarta.advancedcorerealms.data.object.Realm;
 import com.minekarta.advancedcorerealms.manager.RealmManager;
 import com.minekarta.advancedcorerealms.menu.Menu;
 import com.minekarta.advancedcorerealms.menu.MenuManager;
+import com.minekarta.advancedcorerealms.storage.RealmMetadata;
 import com.minekarta.advancedcorerealms.worldborder.WorldBorderConfig;
 import com.minekarta.advancedcorerealms.worldborder.WorldBorderManager;
 import com.minekarta.advancedcorerealms.worldborder.WorldBorderTier;
@@ -43,8 +44,16 @@ public class UpgradeMenu extends Menu {
 
     private void loadAndSetItems() {
         // Since a player can only manage their own realms from this menu, we get the first one.
-        this.realm = realmManager.getRealmsByOwner(player.getUniqueId()).stream().findFirst().orElse(null);
-        setMenuItems();
+        // Only that realm is loaded, off the main thread if it is not cached; the menu stays empty until then.
+        Optional<RealmMetadata> ownedRealm = realmManager.getRealmStubsByOwner(player.getUniqueId()).stream().findFirst();
+        if (ownedRealm.isEmpty()) {
+            setMenuItems();
+            return;
+        }
+        realmManager.withRealm(ownedRealm.get().getRealmId(), loaded -> {
+            this.realm = loaded.orElse(null);
+            setMenuItems();
+        });
     }
 
     private void setMenuItems() {
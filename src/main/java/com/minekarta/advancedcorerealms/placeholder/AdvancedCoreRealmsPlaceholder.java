@@ -6,7 +6,6 @@ import com.minekarta.advancedcorerealms.manager.RealmManager;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
-import org.bukkit.World;
 import org.bukkit.entity.Player;
 
 import java.util.Optional;
@@ -21,16 +20,6 @@ public class AdvancedCoreRealmsPlaceholder extends PlaceholderExpansion {
         this.realmManager = plugin.getRealmManager();
     }
 
-    private Optional<Realm> getRealmFromWorld(World world) {
-        if (world == null) return Optional.empty();
-        String worldName = world.getName();
-        if (worldName.startsWith("realms/")) {
-            String worldFolderName = worldName.substring("realms/".length());
-            return realmManager.getRealmByWorldFolderName(worldFolderName);
-        }
-        return Optional.empty();
-    }
-
     @Override
     public boolean persist() {
         return true;
@@ -63,7 +52,7 @@ public class AdvancedCoreRealmsPlaceholder extends PlaceholderExpansion {
         }
 
         // Placeholders requiring a current realm context
-        Optional<Realm> currentRealmOpt = getRealmFromWorld(player.getWorld());
+        Optional<Realm> currentRealmOpt = realmManager.getWorldResolver().find(player.getWorld());
 
         if (identifier.startsWith("current_realm_")) {
             if (currentRealmOpt.isEmpty()) {
@@ -90,16 +79,16 @@ public class AdvancedCoreRealmsPlaceholder extends PlaceholderExpansion {
         // General placeholders not dependent on the current realm
         switch (identifier.toLowerCase()) {
             case "total_realms":
-                return String.valueOf(realmManager.getAllCachedRealms().size());
+                return String.valueOf(realmManager.getRealmCount());
             case "player_realms_count":
-                return String.valueOf(realmManager.getRealmsByOwner(player.getUniqueId()).size());
+                return String.valueOf(realmManager.getOwnedRealmCount(player.getUniqueId()));
             case "player_invited_realms_count":
-                long invitedCount = realmManager.getMemberRealms(player.getUniqueId()).stream()
-                        .filter(realm -> !realm.getOwner().equals(player.getUniqueId()))
-                        .count();
+                // Owners are always members of their own realms.
+                long invitedCount = realmManager.getMemberRealmCount(player.getUniqueId())
+                        - realmManager.getOwnedRealmCount(player.getUniqueId());
                 return String.valueOf(invitedCount);
             case "player_total_accessible_realms":
-                 long totalCount = realmManager.getMemberRealms(player.getUniqueId()).size();
+                 long totalCount = realmManager.getMemberRealmCount(player.getUniqueId());
                 return String.valueOf(totalCount);
         }
 
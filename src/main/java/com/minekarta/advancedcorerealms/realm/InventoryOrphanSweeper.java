@@ -0,0 +1,64 @@
+package com.minekarta.advancedcorerealms.realm;
+
+import com.minekarta.advancedcorerealms.storage.InventoryStorage;
+import com.minekarta.advancedcorerealms.storage.RealmMetadataIndex;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically deletes inventories of realms that no longer exist, such as those left behind by a realm deleted
+ * while the server crashed or while its inventories could not be removed.
+ *
+ * <p>A realm counts as existing if the realm index knows it. To be safe against a realm that is being created
+ * while a sweep runs, an unknown realm is only swept once it has been unknown in two consecutive sweeps. Nothing
+ * is swept before the realm index covers every stored realm.</p>
+ */
+public class InventoryOrphanSweeper implements Runnable {
+
+    private final Logger logger;
+    private final InventoryStorage inventoryStorage;
+    private final RealmMetadataIndex metadataIndex;
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Realms that had inventories but were unknown in the previous sweep
+    private volatile Set<UUID> suspects = Set.of();
+
+    public InventoryOrphanSweeper(Logger logger, InventoryStorage inventoryStorage, RealmMetadataIndex metadataIndex) {
+        this.logger = logger;
+        this.inventoryStorage = inventoryStorage;
+        this.metadataIndex = metadataIndex;
+    }
+
+    @Override
+    public void run() {
+        if (!metadataIndex.isReady() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        Set<UUID> confirmed = suspects;
+        Set<UUID> nextSuspects = ConcurrentHashMap.newKeySet();
+        inventoryStorage.sweepOrphanedInventories(realmId -> {
+            if (RealmInventoryService.GLOBAL_INVENTORY_ID.equals(realmId) || metadataIndex.contains(realmId)) {
+                return true;
+            }
+            if (confirmed.contains(realmId)) {
+                return false;
+            }
+            nextSuspects.add(realmId);
+            return true;
+        }).whenComplete((swept, ex) -> {
+            suspects = nextSuspects;
+            running.set(false);
+            if (ex != null) {
+                logger.log(Level.WARNING, "Inventory orphan sweep failed", ex);
+            } else if (!swept.isEmpty()) {
+                logger.info(String.format("Deleted the inventories of %d deleted realm(s) in %.1f ms", swept.size(),
+                        (System.nanoTime() - startNanos) / 1_000_000.0));
+            }
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package com.minekarta.advancedcorerealms.realm;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency of the stages of an inventory swap, accumulated since startup.
+ */
+public class InventorySwapMetrics {
+
+    /**
+     * The stages of a swap. Capture and apply run on the main thread; encode, save and load run on the storage
+     * executor, with encode and save of the old inventory in parallel with load of the new one.
+     */
+    public enum Stage {
+        /** Taking the player's items out of their inventory. */
+        CAPTURE,
+        /** Serializing the old inventory. */
+        ENCODE,
+        /** Writing the old inventory to storage. */
+        SAVE,
+        /** Reading and deserializing the new inventory. */
+        LOAD,
+        /** Putting the new items into the player's inventory. */
+        APPLY,
+        /** From the start of the capture until the new inventory is usable. */
+        TOTAL
+    }
+
+    private final Map<Stage, StageStats> stages = new EnumMap<>(Stage.class);
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder prefetchHits = new LongAdder();
+    private final LongAdder prefetchMisses = new LongAdder();
+    private final LongAdder unchangedSections = new LongAdder();
+    private final LongAdder savedSections = new LongAdder();
+    private final LongAdder skippedSaves = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public InventorySwapMetrics() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new StageStats());
+        }
+    }
+
+    /**
+     * @param stage       The stage that finished.
+     * @param startNanos  The {@link System#nanoTime()} at which it started.
+     */
+    public void record(Stage stage, long startNanos) {
+        stages.get(stage).add(System.nanoTime() - startNanos);
+    }
+
+    public void recordFailure() {
+        failures.increment();
+    }
+
+    /**
+     * @param hit Whether a swap found its inventory prefetched.
+     */
+    public void recordPrefetch(boolean hit) {
+        (hit ? prefetchHits : prefetchMisses).increment();
+    }
+
+    /**
+     * Counts a move that was requested while a swap was in flight and folded into it.
+     */
+    public void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    /**
+     * @param unchanged How many sections of a saved inventory were unchanged and not encoded again.
+     * @param total     How many sections it has.
+     */
+    public void recordSections(int unchanged, int total) {
+        unchangedSections.add(unchanged);
+        savedSections.add(total);
+        if (unchanged == total) {
+            skippedSaves.increment();
+        }
+    }
+
+    /**
+     * @return A one-line summary with the average and maximum latency of every stage.
+     */
+    public String describe() {
+        StringJoiner line = new StringJoiner(", ", "Inventory swaps: " + stages.get(Stage.TOTAL).count.sum()
+                + " done, " + failures.sum() + " failed, " + coalesced.sum() + " coalesced, " + prefetchHits.sum() + "/"
+                + (prefetchHits.sum() + prefetchMisses.sum()) + " prefetched, " + unchangedSections.sum() + "/"
+                + savedSections.sum() + " sections unchanged, " + skippedSaves.sum() + " saves skipped; ", "");
+        for (Map.Entry<Stage, StageStats> entry : stages.entrySet()) {
+            StageStats stats = entry.getValue();
+            line.add(String.format("%s avg %.2f ms (max %.2f ms)", entry.getKey().name().toLowerCase(),
+                    stats.totalNanos.sum() / 1_000_000.0 / Math.max(1L, stats.count.sum()), stats.maxNanos.get() / 1_000_000.0));
+        }
+        return line.toString();
+    }
+
+    private static final class StageStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.minekarta.advancedcorerealms.realm;
+
+import com.minekarta.advancedcorerealms.api.change.RealmChange;
+import com.minekarta.advancedcorerealms.api.change.RealmChangeListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An in-process feed of realm changes, so caches, indexes and other plugins can follow realms incrementally
+ * instead of polling the realm cache.
+ *
+ * <p>{@code RealmManager} publishes a {@link RealmChange} for every create, update and delete it performs.
+ * Changes are handed to a single delivery thread, which calls every registered listener in publish order,
+ * so the thread making the change never waits for listeners and one failing listener does not affect the
+ * others. Nothing is built or queued while no listener is registered.</p>
+ */
+public class RealmChangeFeed {
+
+    private final Logger logger;
+    private final List<RealmChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService delivery;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public RealmChangeFeed(Logger logger) {
+        this.logger = logger;
+        this.delivery = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AdvancedCoreRealms-RealmChanges");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Registers a listener for every change published from now on.
+     *
+     * @param listener The listener to add.
+     */
+    public void register(RealmChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener The listener to remove. Changes already queued may still reach it.
+     */
+    public void unregister(RealmChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return true if at least one listener is registered. Publishers check this before building a change.
+     */
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Queues a change for delivery to every registered listener.
+     *
+     * @param change The change to deliver.
+     */
+    public void publish(RealmChange change) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        published.increment();
+        try {
+            delivery.execute(() -> deliver(change));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the change still reaches listeners, on the publishing thread.
+            deliver(change);
+        }
+    }
+
+    private void deliver(RealmChange change) {
+        for (RealmChangeListener listener : listeners) {
+            try {
+                listener.onRealmChange(change);
+            } catch (RuntimeException e) {
+                failures.increment();
+                logger.log(Level.WARNING, "Realm change listener " + listener.getClass().getName()
+                        + " failed on " + change.getType() + " of realm " + change.getRealmId(), e);
+            }
+        }
+    }
+
+    /**
+     * Delivers the changes that are still queued and stops the delivery thread.
+     *
+     * @param timeoutMillis The maximum time to wait for queued changes.
+     */
+    public void shutdown(long timeoutMillis) {
+        delivery.shutdown();
+        try {
+            if (!delivery.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                logger.warning("Timed out delivering queued realm changes.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return A one-line summary of listeners and delivered changes.
+     */
+    public String describe() {
+        return String.format("Realm changes: %d listener(s), %d published, %d listener failures",
+                listeners.size(), published.sum(), failures.sum());
+    }
+}
@@ -132,7 +132,7 @@ public class RealmCreator {
                 // 6. Always release the lock
                 lockFile.delete();
             }
-        });
+        }, plugin.getStorageManager().getIoExecutor());
     }
 
     private void copyDirectory(File source, File destination) throws IOException {
@@ -1,134 +1,291 @@
 package com.minekarta.advancedcorerealms.realm;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
 import com.minekarta.advancedcorerealms.data.object.Realm;
 import com.minekarta.advancedcorerealms.data.object.SerializedInventory;
+import com.minekarta.advancedcorerealms.realm.InventorySwapMetrics.Stage;
 import com.minekarta.advancedcorerealms.storage.InventoryStorage;
 import com.minekarta.advancedcorerealms.utils.InventorySerializer;
 import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.persistence.PersistentDataType;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 
+/**
+ * Swaps a player's inventory when they move between realms and the rest of the server.
+ *
+ * <p>A swap is a pipeline. On the main thread the player's items are taken out of their inventory, which is
+ * the only Bukkit access and costs little more than copying a few arrays. On the storage executor the old items
+ * are then encoded and saved while, in parallel, the new inventory is loaded and decoded. Once both are done the
+ * new items are applied on the main thread. If either side fails, the captured items are given back and the
+ * player keeps their old inventory. The latency of every stage is recorded in {@link InventorySwapMetrics}.</p>
+ *
+ * <p>Each player has a serial lane: their storage operations (swaps, prefetches and the save on disconnect) run
+ * one after another in the order they were requested, while different players run fully in parallel. A move
+ * requested while a swap is in flight is not dropped but coalesced: only the latest target counts, and when the
+ * swap finishes the player goes straight there. A chain such as realm A, then realm B, then back where they came
+ * from therefore costs one save and nothing else.</p>
+ *
+ * <p>Callers that know a player is about to enter a realm can {@link #prefetch(Player, UUID) prefetch} the
+ * inventory, so that it is usually loaded and decoded by the time the swap needs it.</p>
+ *
+ * <p>Saves are deltas against the inventory the player was last given. Every slot of it is hashed when it is
+ * loaded; when the player leaves, a section (main, armor, off-hand, ender chest) whose slots all still match is
+ * not encoded again but keeps its stored encoding, and only the changed sections are reported to storage. If
+ * nothing changed at all, nothing is written. A hash match is confirmed with {@link ItemStack#equals(Object)},
+ * so a collision can never keep stale items.</p>
+ */
 public class RealmInventoryService {
 
     private final AdvancedCoreRealms plugin;
     private final InventoryStorage inventoryStorage;
+    private final Executor ioExecutor;
+    private final InventorySwapMetrics metrics = new InventorySwapMetrics();
 
-    private final Map<UUID, SerializedInventory> preSwapCache = new ConcurrentHashMap<>();
+    // Swaps whose items were taken from the player but not yet replaced; only touched on the main thread
+    private final Map<UUID, PendingSwap> pendingSwaps = new HashMap<>();
+    // The stored inventory each player was last given, to save only what changed since; only touched on the main thread
+    private final Map<UUID, CapturedInventory> appliedInventories = new HashMap<>();
+    // The last storage operation of each player; guarded by itself
+    private final Map<UUID, CompletableFuture<Void>> lanes = new HashMap<>();
     private final Map<UUID, UUID> playerLocationCache = new ConcurrentHashMap<>();
-    private final Map<UUID, CompletableFuture<Void>> ongoingOperations = new ConcurrentHashMap<>();
+    // Kept in the player's data, which the server saves together with their items: the inventory space those
+    // items belong to, which is not always the world they log out or rejoin in
+    private final NamespacedKey heldInventoryKey;
+    // At most one prefetched inventory per player; the latest intent replaces the previous one
+    private final Cache<UUID, Prefetch> prefetches = CacheBuilder.newBuilder()
+            .maximumSize(500)
+            .expireAfterWrite(30, TimeUnit.SECONDS)
+            .build();
 
     public static final UUID GLOBAL_INVENTORY_ID = UUID.fromString("00000000-0000-0000-0000-000000000000");
 
     public RealmInventoryService(AdvancedCoreRealms plugin, InventoryStorage inventoryStorage) {
         this.plugin = plugin;
         this.inventoryStorage = inventoryStorage;
+        this.ioExecutor = plugin.getStorageManager().getIoExecutor();
+        this.heldInventoryKey = new NamespacedKey(plugin, "held-inventory");
     }
 
     public void enterRealm(Player player, Realm realm) {
-        UUID playerUUID = player.getUniqueId();
-        UUID realmUUID = realm.getRealmId();
-
-        // Prevent simultaneous operations
-        if (isOperationOngoing(playerUUID)) return;
-
-        UUID sourceRealmId = playerLocationCache.getOrDefault(playerUUID, GLOBAL_INVENTORY_ID);
-        if (sourceRealmId.equals(realmUUID)) return; // Already in this realm's inventory space
+        if (!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(plugin, () -> enterRealm(player, realm));
+            return;
+        }
+        UUID sourceRealmId = playerLocationCache.getOrDefault(player.getUniqueId(), GLOBAL_INVENTORY_ID);
+        swap(player, sourceRealmId, realm.getRealmId());
+    }
 
-        CompletableFuture<Void> operation = CompletableFuture.runAsync(() -> {
-            // 1. Serialize and cache current inventory
-            SerializedInventory currentInventory = serializeFromPlayer(player, sourceRealmId);
-            preSwapCache.put(playerUUID, currentInventory);
+    public void exitRealm(Player player, Realm realm) {
+        if (!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(plugin, () -> exitRealm(player, realm));
+            return;
+        }
+        // Exiting a realm is treated as entering the "global" world
+        UUID sourceRealmId = playerLocationCache.getOrDefault(player.getUniqueId(), realm.getRealmId());
+        swap(player, sourceRealmId, GLOBAL_INVENTORY_ID);
+    }
 
-            // 2. Save the cached inventory to its source location
-            inventoryStorage.savePlayerInventory(sourceRealmId, playerUUID, currentInventory);
+    private void swap(Player player, UUID sourceRealmId, UUID targetRealmId) {
+        UUID playerUUID = player.getUniqueId();
+        PendingSwap pending = pendingSwaps.get(playerUUID);
+        if (pending != null) {
+            // Only the latest move counts; the swap in flight heads there when it finishes
+            pending.requestedRealmId = targetRealmId;
+            metrics.recordCoalesced();
+            return;
+        }
+        if (sourceRealmId.equals(targetRealmId)) return;
 
-            // 3. Load realm inventory and apply it
-            inventoryStorage.loadPlayerInventory(realmUUID, playerUUID).thenAccept(optionalInventory -> {
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    clearPlayerInventory(player);
-                    optionalInventory.ifPresent(inv -> applySerializedInventory(player, inv));
-                    playerLocationCache.put(playerUUID, realmUUID);
-                    preSwapCache.remove(playerUUID); // Swap complete
-                });
-            }).exceptionally(ex -> {
-                plugin.getLogger().log(java.util.logging.Level.SEVERE, "Failed to load inventory for player " + playerUUID + " in realm " + realmUUID, ex);
-                // Restore original inventory on failure
-                Bukkit.getScheduler().runTask(plugin, () -> applySerializedInventory(player, currentInventory));
-                preSwapCache.remove(playerUUID);
-                return null;
-            });
-        }).whenComplete((res, err) -> ongoingOperations.remove(playerUUID));
+        // 1. Main thread: take the items out of the player's inventory, nothing more
+        long startNanos = System.nanoTime();
+        CapturedInventory captured = CapturedInventory.capture(player);
+        CapturedInventory previous = appliedInventories.remove(playerUUID);
+        clearPlayerInventory(player);
+        PendingSwap swap = new PendingSwap(captured, sourceRealmId, targetRealmId, startNanos);
+        pendingSwaps.put(playerUUID, swap);
+        metrics.record(Stage.CAPTURE, startNanos);
+        CompletableFuture<CapturedInventory> prefetched = takePrefetch(playerUUID, targetRealmId);
 
-        ongoingOperations.put(playerUUID, operation);
+        // 2. Storage executor, in the player's lane: encode and save the old inventory while the new one is
+        //    loaded, unless it was prefetched
+        inLane(playerUUID, () -> {
+            CompletableFuture<Void> save = CompletableFuture.supplyAsync(() -> encode(captured, sourceRealmId, previous), ioExecutor)
+                    .thenCompose(serialized -> {
+                        if (serialized == null) {
+                            return CompletableFuture.completedFuture(null); // Storage already has exactly these items
+                        }
+                        long saveStartNanos = System.nanoTime();
+                        return inventoryStorage.savePlayerInventory(sourceRealmId, playerUUID, serialized)
+                                .thenRun(() -> metrics.record(Stage.SAVE, saveStartNanos));
+                    });
+            CompletableFuture<CapturedInventory> load = prefetched != null
+                    // A failed prefetch is retried once by the swap itself
+                    ? prefetched.exceptionallyCompose(ex -> load(targetRealmId, playerUUID))
+                    : load(targetRealmId, playerUUID);
+            return save.thenCombine(load, (ignored, items) -> items);
+        }).whenComplete((items, failure) ->
+                // 3. Main thread: apply the new inventory once the old one is safely stored
+                Bukkit.getScheduler().runTask(plugin, () -> finishSwap(player, swap, items, failure)));
     }
 
-    public void exitRealm(Player player, Realm realm) {
-        // Exiting a realm is treated as entering the "global" world
+    private void finishSwap(Player player, PendingSwap swap, CapturedInventory items, Throwable failure) {
         UUID playerUUID = player.getUniqueId();
-        UUID realmUUID = realm.getRealmId();
+        if (pendingSwaps.get(playerUUID) != swap) {
+            return; // The player disconnected and already got their items back
+        }
+        if (failure != null) {
+            pendingSwaps.remove(playerUUID);
+            metrics.recordFailure();
+            plugin.getLogger().log(Level.SEVERE, "Failed to swap inventory for player " + playerUUID + " into " + swap.targetRealmId, failure);
+            // Restore original inventory on failure; the player stays in their old inventory space.
+            swap.captured.applyTo(player);
+            // A move requested meanwhile to somewhere else is still carried out
+            if (!swap.requestedRealmId.equals(swap.targetRealmId)) {
+                swap(player, swap.sourceRealmId, swap.requestedRealmId);
+            }
+            return;
+        }
+        if (swap.requestedRealmId.equals(swap.sourceRealmId)) {
+            // Back where they started: the captured items are exactly what was just saved there
+            pendingSwaps.remove(playerUUID);
+            swap.captured.applyTo(player);
+            metrics.record(Stage.TOTAL, swap.startNanos);
+            return;
+        }
+        if (!swap.requestedRealmId.equals(swap.targetRealmId)) {
+            // Moved on while loading: skip the loaded inventory, which stays stored untouched, and load the latest target
+            swap.targetRealmId = swap.requestedRealmId;
+            UUID targetRealmId = swap.targetRealmId;
+            CompletableFuture<CapturedInventory> prefetched = takePrefetch(playerUUID, targetRealmId);
+            inLane(playerUUID, () -> prefetched != null
+                    ? prefetched.exceptionallyCompose(ex -> load(targetRealmId, playerUUID))
+                    : load(targetRealmId, playerUUID))
+                    .whenComplete((nextItems, nextFailure) ->
+                            Bukkit.getScheduler().runTask(plugin, () -> finishSwap(player, swap, nextItems, nextFailure)));
+            return;
+        }
+        pendingSwaps.remove(playerUUID);
+        long applyStartNanos = System.nanoTime();
+        clearPlayerInventory(player);
+        items.applyTo(player);
+        if (items.stored != null) {
+            appliedInventories.put(playerUUID, items);
+        }
+        setHeldInventory(player, swap.targetRealmId);
+        metrics.record(Stage.APPLY, applyStartNanos);
+        metrics.record(Stage.TOTAL, swap.startNanos);
+    }
 
-        if (isOperationOngoing(playerUUID)) return;
+    /**
+     * Runs a storage operation of a player on the storage executor once every operation queued for that player
+     * before it has finished, whether it succeeded or not. Operations of different players do not wait for
+     * each other. May be called from any thread.
+     */
+    private <T> CompletableFuture<T> inLane(UUID playerUUID, Supplier<CompletableFuture<T>> operation) {
+        synchronized (lanes) {
+            CompletableFuture<Void> previous = lanes.getOrDefault(playerUUID, CompletableFuture.completedFuture(null));
+            CompletableFuture<T> result = previous.thenComposeAsync(ignored -> operation.get(), ioExecutor);
+            CompletableFuture<Void> tail = result.handle((ignored, ex) -> null);
+            lanes.put(playerUUID, tail);
+            tail.thenRun(() -> {
+                synchronized (lanes) {
+                    lanes.remove(playerUUID, tail);
+                }
+            });
+            return result;
+        }
+    }
 
-        UUID currentRealmId = playerLocationCache.getOrDefault(playerUUID, null);
-        if (currentRealmId == null || !currentRealmId.equals(realmUUID)) {
-            // Player is not registered in this realm, so no inventory to save.
-            // This can happen if they were never properly teleported in.
-            // We'll still try to load their global inventory.
+    /**
+     * Starts loading a player's inventory for a realm they are about to enter, so that the swap finds it ready.
+     * Does nothing if the player is already in that realm's inventory space. May be called from any thread.
+     *
+     * @param player        The player.
+     * @param targetRealmId The realm they are expected to enter, or {@link #GLOBAL_INVENTORY_ID} for the rest of
+     *                      the server.
+     */
+    public void prefetch(Player player, UUID targetRealmId) {
+        UUID playerUUID = player.getUniqueId();
+        if (targetRealmId.equals(playerLocationCache.get(playerUUID))) {
+            return;
+        }
+        Prefetch existing = prefetches.getIfPresent(playerUUID);
+        if (existing == null || !existing.targetRealmId.equals(targetRealmId)) {
+            // In the lane, so that it sees any save of the player queued before it
+            prefetches.put(playerUUID, new Prefetch(targetRealmId, inLane(playerUUID, () -> load(targetRealmId, playerUUID))));
         }
+    }
 
-        CompletableFuture<Void> operation = CompletableFuture.runAsync(() -> {
-            // 1. Serialize and save current (realm) inventory
-            SerializedInventory realmInventory = serializeFromPlayer(player, realmUUID);
-            inventoryStorage.savePlayerInventory(realmUUID, playerUUID, realmInventory);
+    public void prefetch(Player player, Realm realm) {
+        prefetch(player, realm.getRealmId());
+    }
 
-            // 2. Load global inventory and apply it
-            inventoryStorage.loadPlayerInventory(GLOBAL_INVENTORY_ID, playerUUID).thenAccept(optionalInventory -> {
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    clearPlayerInventory(player);
-                    // If global inventory exists, apply it. Otherwise, they get a fresh inventory.
-                    optionalInventory.ifPresent(inv -> applySerializedInventory(player, inv));
-                    playerLocationCache.put(playerUUID, GLOBAL_INVENTORY_ID);
-                });
-            }).exceptionally(ex -> {
-                plugin.getLogger().log(java.util.logging.Level.SEVERE, "Failed to load global inventory for player " + playerUUID, ex);
-                // As a fallback, do not clear their realm inventory to prevent data loss.
-                return null;
-            });
-        }).whenComplete((res, err) -> ongoingOperations.remove(playerUUID));
+    /**
+     * Takes the player's prefetched inventory if it is for the given target. Any prefetch of the player is
+     * dropped either way, because the swap about to happen may make it stale.
+     *
+     * @return The prefetched inventory, or null if the swap has to load it.
+     */
+    private CompletableFuture<CapturedInventory> takePrefetch(UUID playerUUID, UUID targetRealmId) {
+        Prefetch prefetch = prefetches.getIfPresent(playerUUID);
+        prefetches.invalidate(playerUUID);
+        boolean hit = prefetch != null && prefetch.targetRealmId.equals(targetRealmId);
+        metrics.recordPrefetch(hit);
+        return hit ? prefetch.items : null;
+    }
 
-        ongoingOperations.put(playerUUID, operation);
+    private CompletableFuture<CapturedInventory> load(UUID realmId, UUID playerUUID) {
+        long startNanos = System.nanoTime();
+        return inventoryStorage.loadPlayerInventory(realmId, playerUUID).thenApply(optionalInventory -> {
+            // If no inventory is stored for the target, the player gets a fresh one.
+            CapturedInventory items = optionalInventory.map(stored -> decode(stored, realmId)).orElse(CapturedInventory.EMPTY);
+            metrics.record(Stage.LOAD, startNanos);
+            return items;
+        });
     }
 
     public void handlePlayerDisconnect(Player player) {
         UUID playerUUID = player.getUniqueId();
+        prefetches.invalidate(playerUUID);
 
-        // If a player disconnects mid-swap, their pre-swap inventory is in the cache.
-        // We must ensure this is saved back to their source location.
-        if (preSwapCache.containsKey(playerUUID)) {
-            SerializedInventory preSwapInv = preSwapCache.get(playerUUID);
-            inventoryStorage.savePlayerInventory(preSwapInv.getSourceRealmId(), playerUUID, preSwapInv)
-                .thenRun(() -> plugin.getLogger().info("Successfully saved pre-swap inventory for disconnected player " + playerUUID))
-                .exceptionally(ex -> {
-                    plugin.getLogger().severe("FAILED to save pre-swap inventory for disconnected player " + playerUUID);
-                    return null;
-                });
-            preSwapCache.remove(playerUUID);
+        // If a player disconnects mid-swap, the swap already saves their pre-swap inventory to its source.
+        // Give the items back so that the player's own data matches, and drop the swap along with any move
+        // coalesced into it. They now hold the source's items wherever they stand, which the next join sorts out.
+        PendingSwap swap = pendingSwaps.remove(playerUUID);
+        CapturedInventory previous = appliedInventories.remove(playerUUID);
+        UUID currentRealmId = swap != null ? swap.sourceRealmId : playerLocationCache.getOrDefault(playerUUID, GLOBAL_INVENTORY_ID);
+        player.getPersistentDataContainer().set(heldInventoryKey, PersistentDataType.STRING, currentRealmId.toString());
+        if (swap != null) {
+            swap.captured.applyTo(player);
+            plugin.getLogger().info("Cancelled inventory swap for disconnected player " + playerUUID);
         } else {
             // Standard disconnect, save their current inventory to their current location
-            UUID currentRealmId = playerLocationCache.getOrDefault(playerUUID, GLOBAL_INVENTORY_ID);
-            SerializedInventory currentInventory = serializeFromPlayer(player, currentRealmId);
-            inventoryStorage.savePlayerInventory(currentRealmId, playerUUID, currentInventory)
+            // The player keeps their items, so encode copies rather than stacks the server still uses
+            CapturedInventory captured = CapturedInventory.copy(player);
+            // In the lane, so it is written after any swap still saving and before the player's next swap loads it
+            inLane(playerUUID, () -> CompletableFuture.supplyAsync(() -> encode(captured, currentRealmId, previous), ioExecutor)
+                    .thenCompose(currentInventory -> currentInventory == null ? CompletableFuture.<Void>completedFuture(null)
+                            : inventoryStorage.savePlayerInventory(currentRealmId, playerUUID, currentInventory)))
                 .thenRun(() -> plugin.getLogger().info("Saved inventory for disconnected player " + playerUUID + " in location " + currentRealmId))
                 .exceptionally(ex -> {
-                     plugin.getLogger().severe("FAILED to save inventory for disconnected player " + playerUUID);
+                     plugin.getLogger().log(Level.SEVERE, "FAILED to save inventory for disconnected player " + playerUUID, ex);
                      return null;
                 });
         }
@@ -136,37 +293,137 @@ public class RealmInventoryService {
     }
 
     public void handlePlayerJoin(Player player) {
-        // On join, they are in the global world by default.
-        playerLocationCache.put(player.getUniqueId(), GLOBAL_INVENTORY_ID);
+        UUID playerUUID = player.getUniqueId();
+        // They hold the items of the inventory space they logged out in, which is usually the world they spawn in.
+        // Assuming the global one would let leaving a realm keep its items in the global inventory.
+        Realm realm = plugin.getRealmManager().getWorldResolver().resolve(player.getWorld());
+        UUID worldRealmId = realm != null ? realm.getRealmId() : GLOBAL_INVENTORY_ID;
+        UUID heldRealmId = getHeldInventory(player);
+        if (heldRealmId == null || heldRealmId.equals(worldRealmId)) {
+            setHeldInventory(player, worldRealmId);
+            return;
+        }
+        // They left mid-swap, or their realm's world was unloaded, possibly by a restart: store what they hold
+        // where it belongs and give them the inventory of the world they are in
+        playerLocationCache.put(playerUUID, heldRealmId);
+        swap(player, heldRealmId, worldRealmId);
     }
 
-    private SerializedInventory serializeFromPlayer(Player player, UUID sourceRealmId) {
-        PlayerInventory inv = player.getInventory();
+    /**
+     * Records which inventory space the player's items belong to, for this session and in the player's data.
+     * Must be called on the main thread whenever the player is given another inventory space's items.
+     */
+    private void setHeldInventory(Player player, UUID realmId) {
+        playerLocationCache.put(player.getUniqueId(), realmId);
+        player.getPersistentDataContainer().set(heldInventoryKey, PersistentDataType.STRING, realmId.toString());
+    }
+
+    /**
+     * @return The inventory space the player's items belonged to when their data was last saved, or null if
+     * unknown, such as on their first join.
+     */
+    private UUID getHeldInventory(Player player) {
+        String heldRealmId = player.getPersistentDataContainer().get(heldInventoryKey, PersistentDataType.STRING);
+        if (heldRealmId == null) {
+            return null;
+        }
         try {
-            String main = InventorySerializer.toBase64(inv.getContents());
-            String armor = InventorySerializer.toBase64(inv.getArmorContents());
-            String offhand = InventorySerializer.toBase64(new ItemStack[]{inv.getItemInOffHand()});
-            String enderChest = InventorySerializer.toBase64(player.getEnderChest().getContents());
-            return new SerializedInventory(main, armor, offhand, enderChest, sourceRealmId);
+            return UUID.fromString(heldRealmId);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Ignoring invalid held inventory " + heldRealmId + " of player " + player.getUniqueId());
+            return null;
+        }
+    }
+
+    /**
+     * @return The per-stage latency of inventory swaps.
+     */
+    public InventorySwapMetrics getSwapMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Encodes the sections that differ from the inventory the player was given in the same location.
+     *
+     * @param previous The stored inventory the player was last given, or null if unknown.
+     * @return The inventory to save, or null if storage already has exactly these items.
+     */
+    private SerializedInventory encode(CapturedInventory captured, UUID sourceRealmId, CapturedInventory previous) {
+        long startNanos = System.nanoTime();
+        try {
+            SerializedInventory stored = previous != null && sourceRealmId.equals(previous.realmId) ? previous.stored : null;
+            ItemStack[][] sections = captured.sections();
+            ItemStack[][] storedItems = stored == null ? null : previous.sections();
+            String[] storedSections = stored == null ? null : new String[]{stored.getMainContents(),
+                    stored.getArmorContents(), stored.getOffhandContents(), stored.getEnderChestContents()};
+            String[] encoded = new String[sections.length];
+            int changed = 0;
+            for (int i = 0; i < sections.length; i++) {
+                if (stored != null && storedSections[i] != null && sameItems(sections[i], storedItems[i], previous.slotHashes[i])) {
+                    encoded[i] = storedSections[i];
+                } else {
+                    encoded[i] = InventorySerializer.toBase64(sections[i]);
+                    changed |= 1 << i;
+                }
+            }
+            metrics.recordSections(sections.length - Integer.bitCount(changed), sections.length);
+            if (changed == 0) {
+                return null;
+            }
+            return new SerializedInventory(encoded[0], encoded[1], encoded[2], encoded[3], sourceRealmId)
+                    .withChangedSections(stored == null ? SerializedInventory.ALL_SECTIONS : changed);
         } catch (IOException e) {
-            throw new RuntimeException("Failed to serialize inventory for player " + player.getUniqueId(), e);
+            throw new UncheckedIOException("Failed to serialize inventory", e);
+        } finally {
+            metrics.record(Stage.ENCODE, startNanos);
         }
     }
 
-    private void applySerializedInventory(Player player, SerializedInventory sInv) {
+    private static CapturedInventory decode(SerializedInventory sInv, UUID realmId) {
         try {
-            ItemStack[] main = InventorySerializer.fromBase64(sInv.getMainContents());
-            ItemStack[] armor = InventorySerializer.fromBase64(sInv.getArmorContents());
             ItemStack[] offhand = InventorySerializer.fromBase64(sInv.getOffhandContents());
-            ItemStack[] enderChest = InventorySerializer.fromBase64(sInv.getEnderChestContents());
+            CapturedInventory items = new CapturedInventory(
+                    InventorySerializer.fromBase64(sInv.getMainContents()),
+                    InventorySerializer.fromBase64(sInv.getArmorContents()),
+                    offhand.length > 0 ? offhand[0] : null,
+                    InventorySerializer.fromBase64(sInv.getEnderChestContents()));
+            items.remember(sInv, realmId);
+            return items;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to deserialize inventory", e);
+        }
+    }
 
-            player.getInventory().setContents(main);
-            player.getInventory().setArmorContents(armor);
-            player.getInventory().setItemInOffHand(offhand.length > 0 ? offhand[0] : null);
-            player.getEnderChest().setContents(enderChest);
-        } catch (IOException | ClassNotFoundException e) {
-            plugin.getLogger().log(java.util.logging.Level.SEVERE, "Failed to deserialize and apply inventory for player " + player.getUniqueId(), e);
+    /**
+     * Compares a section slot by slot: by hash first, which rejects almost every change cheaply, then by
+     * equality. Empty slots match whether they are null or air.
+     */
+    private static boolean sameItems(ItemStack[] items, ItemStack[] storedItems, int[] storedHashes) {
+        if (items.length != storedItems.length) {
+            return false;
         }
+        for (int slot = 0; slot < items.length; slot++) {
+            ItemStack item = items[slot];
+            ItemStack storedItem = storedItems[slot];
+            if (isEmpty(item) || isEmpty(storedItem)) {
+                if (isEmpty(item) != isEmpty(storedItem)) {
+                    return false;
+                }
+                continue;
+            }
+            if (item.hashCode() != storedHashes[slot] || !item.equals(storedItem)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int slotHash(ItemStack item) {
+        return isEmpty(item) ? 0 : item.hashCode();
+    }
+
+    private static boolean isEmpty(ItemStack item) {
+        return item == null || item.getType().isAir();
     }
 
     private void clearPlayerInventory(Player player) {
@@ -177,8 +434,110 @@ public class RealmInventoryService {
         player.getEnderChest().clear();
     }
 
-    private boolean isOperationOngoing(UUID playerUUID) {
-        CompletableFuture<Void> existingOp = ongoingOperations.get(playerUUID);
-        return existingOp != null && !existingOp.isDone();
+    /**
+     * The items of a player's inventory, detached from the player. Once the player's inventory has been cleared,
+     * nothing else references these stacks, so they can be encoded on another thread.
+     */
+    private static final class CapturedInventory {
+        private static final CapturedInventory EMPTY = new CapturedInventory(new ItemStack[0], new ItemStack[4], null, new ItemStack[0]);
+
+        private final ItemStack[] main;
+        private final ItemStack[] armor;
+        private final ItemStack offhand;
+        private final ItemStack[] enderChest;
+        // Set on inventories loaded from storage: what they were decoded from, and the hash of every slot
+        private SerializedInventory stored;
+        private UUID realmId;
+        private int[][] slotHashes;
+
+        private CapturedInventory(ItemStack[] main, ItemStack[] armor, ItemStack offhand, ItemStack[] enderChest) {
+            this.main = main;
+            this.armor = armor;
+            this.offhand = offhand;
+            this.enderChest = enderChest;
+        }
+
+        private static CapturedInventory capture(Player player) {
+            PlayerInventory inv = player.getInventory();
+            return new CapturedInventory(inv.getContents(), inv.getArmorContents(), inv.getItemInOffHand(), player.getEnderChest().getContents());
+        }
+
+        /**
+         * Copies the player's items without taking them, for an inventory that stays in use while it is encoded.
+         * Must be called on the main thread.
+         */
+        private static CapturedInventory copy(Player player) {
+            PlayerInventory inv = player.getInventory();
+            ItemStack offhand = inv.getItemInOffHand();
+            return new CapturedInventory(cloneAll(inv.getContents()), cloneAll(inv.getArmorContents()),
+                    offhand != null ? offhand.clone() : null, cloneAll(player.getEnderChest().getContents()));
+        }
+
+        private static ItemStack[] cloneAll(ItemStack[] items) {
+            ItemStack[] copies = new ItemStack[items.length];
+            for (int slot = 0; slot < items.length; slot++) {
+                copies[slot] = items[slot] != null ? items[slot].clone() : null;
+            }
+            return copies;
+        }
+
+        private ItemStack[][] sections() {
+            return new ItemStack[][]{main, armor, new ItemStack[]{offhand}, enderChest};
+        }
+
+        /**
+         * Records where these items were loaded from and hashes every slot, so that a later save can tell
+         * which sections are unchanged. Called off the main thread, before the items are given to the player.
+         */
+        private void remember(SerializedInventory stored, UUID realmId) {
+            ItemStack[][] sections = sections();
+            int[][] hashes = new int[sections.length][];
+            for (int i = 0; i < sections.length; i++) {
+                hashes[i] = new int[sections[i].length];
+                for (int slot = 0; slot < sections[i].length; slot++) {
+                    hashes[i][slot] = slotHash(sections[i][slot]);
+                }
+            }
+            this.slotHashes = hashes;
+            this.realmId = realmId;
+            this.stored = stored;
+        }
+
+        private void applyTo(Player player) {
+            if (this == EMPTY) {
+                return;
+            }
+            player.getInventory().setContents(main);
+            player.getInventory().setArmorContents(armor);
+            player.getInventory().setItemInOffHand(offhand);
+            player.getEnderChest().setContents(enderChest);
+        }
+    }
+
+    private static final class Prefetch {
+        private final UUID targetRealmId;
+        private final CompletableFuture<CapturedInventory> items;
+
+        private Prefetch(UUID targetRealmId, CompletableFuture<CapturedInventory> items) {
+            this.targetRealmId = targetRealmId;
+            this.items = items;
+        }
+    }
+
+    private static final class PendingSwap {
+        private final CapturedInventory captured;
+        private final UUID sourceRealmId;
+        private final long startNanos;
+        // Only touched on the main thread
+        private UUID targetRealmId;
+        private UUID requestedRealmId;
+
+        private PendingSwap(CapturedInventory captured, UUID sourceRealmId, UUID targetRealmId, long startNanos) {
+            this.captured = captured;
+            this.sourceRealmId = sourceRealmId;
+            this.startNanos = startNanos;
+            this.targetRealmId = targetRealmId;
+            this.requestedRealmId = targetRealmId;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,149 @@
+package com.minekarta.advancedcorerealms.realm;
+
+import com.minekarta.advancedcorerealms.data.object.Realm;
+import com.minekarta.advancedcorerealms.manager.RealmManager;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps loaded worlds to the realms they belong to.
+ *
+ * <p>Realm worlds are named {@value #WORLD_PREFIX}{@code <world folder>}. Instead of parsing that name and
+ * looking the realm up on every event, the mapping is built once when a world loads and dropped when it
+ * unloads, so {@link #resolve(World)} is a single hash lookup on the world's UID and allocates nothing.
+ * This keeps block, interact and drop handlers cheap.</p>
+ *
+ * <p>The resolver holds the same {@link Realm} instance as the realm cache. While a realm's world is loaded,
+ * {@link RealmManager} reuses that instance if the realm is evicted from its cache and loaded again, so both
+ * always see the same object.</p>
+ */
+public class RealmWorldResolver implements Listener {
+
+    /** The prefix of every realm world's name, relative to the world container. */
+    public static final String WORLD_PREFIX = "realms/";
+
+    private final RealmManager realmManager;
+    // World UID -> realm, for every loaded realm world
+    private final Map<UUID, Realm> realmsByWorld = new ConcurrentHashMap<>();
+    // Realm id -> world UID, the reverse of realmsByWorld
+    private final Map<UUID, UUID> worldsByRealm = new ConcurrentHashMap<>();
+    // World folder -> world UID, for realm worlds that loaded before their realm was registered
+    private final Map<String, UUID> unboundWorlds = new ConcurrentHashMap<>();
+
+    public RealmWorldResolver(RealmManager realmManager) {
+        this.realmManager = realmManager;
+    }
+
+    /**
+     * Looks up the realm a world belongs to without allocating. Safe to call from any thread.
+     *
+     * @param world The world, may be null.
+     * @return The realm, or null if the world is not a loaded realm world.
+     */
+    public Realm resolve(World world) {
+        return world != null ? realmsByWorld.get(world.getUID()) : null;
+    }
+
+    /**
+     * @param world The world, may be null.
+     * @return An {@link Optional} containing the realm the world belongs to.
+     */
+    public Optional<Realm> find(World world) {
+        return Optional.ofNullable(resolve(world));
+    }
+
+    /**
+     * @param realmId The realm to look up.
+     * @return The realm instance bound to a loaded world, or null if the realm's world is not loaded.
+     */
+    public Realm getActiveRealm(UUID realmId) {
+        UUID worldId = worldsByRealm.get(realmId);
+        return worldId != null ? realmsByWorld.get(worldId) : null;
+    }
+
+    /**
+     * Binds every realm world that is already loaded. Called once on enable, after the listener is registered.
+     */
+    public void bindLoadedWorlds() {
+        for (World world : Bukkit.getWorlds()) {
+            bind(world);
+        }
+    }
+
+    /**
+     * Keeps the mapping in step with the realm cache. Called by {@link RealmManager} whenever it caches a realm,
+     * which also binds a newly created realm to a world that was loaded before the realm was registered.
+     *
+     * @param realm The realm that was cached.
+     */
+    public void refresh(Realm realm) {
+        UUID worldId = worldsByRealm.get(realm.getRealmId());
+        if (worldId == null && !unboundWorlds.isEmpty()) {
+            worldId = unboundWorlds.remove(realm.getWorldFolderName());
+            if (worldId != null) {
+                worldsByRealm.put(realm.getRealmId(), worldId);
+            }
+        }
+        if (worldId != null) {
+            realmsByWorld.put(worldId, realm);
+        }
+    }
+
+    /**
+     * Removes a deleted realm.
+     *
+     * @param realmId The realm that no longer exists.
+     */
+    public void forget(UUID realmId) {
+        UUID worldId = worldsByRealm.remove(realmId);
+        if (worldId != null) {
+            realmsByWorld.remove(worldId);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onWorldLoad(WorldLoadEvent event) {
+        bind(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        World world = event.getWorld();
+        if (!world.getName().startsWith(WORLD_PREFIX)) {
+            return;
+        }
+        UUID worldId = world.getUID();
+        Realm realm = realmsByWorld.remove(worldId);
+        if (realm != null) {
+            worldsByRealm.remove(realm.getRealmId(), worldId);
+        }
+        unboundWorlds.values().remove(worldId);
+    }
+
+    private void bind(World world) {
+        String worldName = world.getName();
+        if (!worldName.startsWith(WORLD_PREFIX)) {
+            return;
+        }
+        String worldFolderName = worldName.substring(WORLD_PREFIX.length());
+        UUID worldId = world.getUID();
+        Optional<Realm> realm = realmManager.getRealmByWorldFolderName(worldFolderName);
+        if (realm.isPresent()) {
+            worldsByRealm.put(realm.get().getRealmId(), worldId);
+            realmsByWorld.put(worldId, realm.get());
+        } else {
+            // Realm creation loads the world before it registers the realm; refresh(Realm) completes the binding.
+            unboundWorlds.put(worldFolderName, worldId);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes files so that readers only ever observe the old or the new content, never a partial one.
+ *
+ * <p>Content is streamed into a temporary sibling file ({@code <name>.tmp}), flushed and fsynced,
+ * then renamed over the target. Because the temporary file lives in the same directory the rename
+ * is atomic on every supported file system. A crash at any point leaves the previous file intact;
+ * stale temporary files are handled by the owning store on its next start.</p>
+ */
+public final class AtomicFileWriter {
+
+    /** Suffix appended to the target file name while it is being written. */
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private AtomicFileWriter() {
+    }
+
+    /**
+     * Produces the content of a file. The stream is buffered and must not be closed by the callback.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Atomically replaces {@code target} with the content produced by {@code content}.
+     *
+     * @param target  The file to create or replace.
+     * @param content Callback streaming the new content.
+     * @throws IOException If the content could not be written; the original file is left untouched.
+     */
+    public static void write(Path target, ContentWriter content) throws IOException {
+        Path temp = tempFileFor(target);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            content.writeTo(out);
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        moveIntoPlace(temp, target);
+    }
+
+    /**
+     * Atomically renames a fully written temporary file over its target.
+     *
+     * @param source The complete file to promote.
+     * @param target The file to replace.
+     * @throws IOException If the move fails.
+     */
+    public static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * @param target A file written through this class.
+     * @return The temporary file used while writing {@code target}.
+     */
+    public static Path tempFileFor(Path target) {
+        return target.resolveSibling(target.getFileName().toString() + TEMP_SUFFIX);
+    }
+
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        // Persists the rename itself. Not every platform allows opening a directory, which is harmless.
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+}
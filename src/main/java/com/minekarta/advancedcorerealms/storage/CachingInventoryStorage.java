@@ -0,0 +1,181 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.minekarta.advancedcorerealms.data.object.SerializedInventory;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Keeps recently used inventories in memory in front of another {@link InventoryStorage}, so that players going
+ * back and forth between a realm and the rest of the server do not read the same inventory from disk every time.
+ *
+ * <p>The cache is an LRU bounded by an approximate memory budget. It also remembers that a player has no
+ * inventory for a realm. A save is visible to loads at once: until the backing storage has finished writing it,
+ * the inventory is held as dirty outside the LRU, so it can never be evicted and then read back stale. The
+ * future returned by a save still completes only once the backing storage has it, because swaps rely on that
+ * before they discard the player's items.</p>
+ */
+public class CachingInventoryStorage implements InventoryStorage {
+
+    private final InventoryStorage backing;
+    private final Cache<Key, Optional<SerializedInventory>> cache;
+    /** Saved inventories the backing storage has not finished writing; checked before the LRU. */
+    private final ConcurrentMap<Key, SerializedInventory> dirty = new ConcurrentHashMap<>();
+    private final LongAdder dirtyHits = new LongAdder();
+    private final long budgetBytes;
+
+    /**
+     * @param backing     The storage that is read on a miss and written on every save.
+     * @param budgetBytes The approximate heap the cached inventories may use.
+     */
+    public CachingInventoryStorage(InventoryStorage backing, long budgetBytes) {
+        this.backing = backing;
+        this.budgetBytes = budgetBytes;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(budgetBytes)
+                .weigher((Key key, Optional<SerializedInventory> inventory) -> estimateFootprint(inventory))
+                .expireAfterAccess(30, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<Void> savePlayerInventory(UUID realmId, UUID playerUuid, SerializedInventory data) {
+        Key key = new Key(realmId, playerUuid);
+        dirty.put(key, data);
+        cache.put(key, Optional.of(data));
+        return backing.savePlayerInventory(realmId, playerUuid, data).whenComplete((ignored, ex) -> {
+            if (ex != null && dirty.get(key) == data) {
+                // Do not serve what storage does not have
+                cache.invalidate(key);
+            }
+            dirty.remove(key, data);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<SerializedInventory>> loadPlayerInventory(UUID realmId, UUID playerUuid) {
+        Key key = new Key(realmId, playerUuid);
+        SerializedInventory pending = dirty.get(key);
+        if (pending != null) {
+            dirtyHits.increment();
+            return CompletableFuture.completedFuture(Optional.of(pending));
+        }
+        Optional<SerializedInventory> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return backing.loadPlayerInventory(realmId, playerUuid).thenApply(inventory -> {
+            // A save that raced this load is newer; keep it
+            if (!dirty.containsKey(key)) {
+                cache.asMap().putIfAbsent(key, inventory);
+            }
+            return inventory;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePlayerInventory(UUID realmId, UUID playerUuid) {
+        Key key = new Key(realmId, playerUuid);
+        dirty.remove(key);
+        cache.invalidate(key);
+        return backing.deletePlayerInventory(realmId, playerUuid).whenComplete((ignored, ex) -> cache.invalidate(key));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteRealmInventories(UUID realmId) {
+        Predicate<Key> ofRealm = key -> key.realmId.equals(realmId);
+        dirty.keySet().removeIf(ofRealm);
+        cache.asMap().keySet().removeIf(ofRealm);
+        return backing.deleteRealmInventories(realmId).whenComplete((ignored, ex) -> cache.asMap().keySet().removeIf(ofRealm));
+    }
+
+    @Override
+    public CompletableFuture<Set<UUID>> sweepOrphanedInventories(Predicate<UUID> realmExists) {
+        return backing.sweepOrphanedInventories(realmExists).thenApply(swept -> {
+            cache.asMap().keySet().removeIf(key -> swept.contains(key.realmId));
+            return swept;
+        });
+    }
+
+    @Override
+    public void close() {
+        backing.close();
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return The storage behind this cache.
+     */
+    public InventoryStorage getBacking() {
+        return backing;
+    }
+
+    /**
+     * @return A one-line summary of the cache size and hit rate.
+     */
+    public String describe() {
+        CacheStats stats = cache.stats();
+        long hits = stats.hitCount() + dirtyHits.sum();
+        long usedBytes = 0;
+        for (Optional<SerializedInventory> inventory : cache.asMap().values()) {
+            usedBytes += estimateFootprint(inventory);
+        }
+        return String.format("Inventory cache: %d inventories, %.1f of %d MiB, hit rate %.1f%% (%d hits, %d misses), "
+                        + "%d evicted, %d being written",
+                cache.size(), usedBytes / (1024.0 * 1024.0), budgetBytes / (1024L * 1024L),
+                hits * 100.0 / Math.max(1L, hits + stats.missCount()), hits, stats.missCount(), stats.evictionCount(), dirty.size());
+    }
+
+    private static int estimateFootprint(Optional<SerializedInventory> inventory) {
+        int bytes = 128;
+        if (inventory.isPresent()) {
+            SerializedInventory data = inventory.get();
+            // Base64 strings are Latin-1, so one byte per character
+            bytes += 160 + length(data.getMainContents()) + length(data.getArmorContents())
+                    + length(data.getOffhandContents()) + length(data.getEnderChestContents());
+        }
+        return bytes;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static final class Key {
+        private final UUID realmId;
+        private final UUID playerUuid;
+
+        private Key(UUID realmId, UUID playerUuid) {
+            this.realmId = realmId;
+            this.playerUuid = playerUuid;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return realmId.equals(other.realmId) && playerUuid.equals(other.playerUuid);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(realmId, playerUuid);
+        }
+    }
+}
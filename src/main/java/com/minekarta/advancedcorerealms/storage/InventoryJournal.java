@@ -0,0 +1,592 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.minekarta.advancedcorerealms.data.object.SerializedInventory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * A write-ahead journal in front of another {@link InventoryStorage}.
+ *
+ * <p><b>Saves</b> are appended to {@code inventory-journal/journal-<n>.log} and complete once they are fsynced.
+ * Saves of all players that arrive within the commit interval are written and fsynced together, so a mass
+ * teleport costs one fsync per interval instead of one atomic file replacement per swap.</p>
+ *
+ * <p><b>Checkpoints</b> periodically write the journaled inventories to the backing storage. Repeated saves of the
+ * same inventory are coalesced, and all inventories of a player are written at once. A checkpoint starts a new
+ * segment first and deletes the older segments only after everything they contain has been written. Until then,
+ * journaled inventories are served from memory.</p>
+ *
+ * <p><b>Replay:</b> on {@link #open()}, segments left behind by a crash are read back, up to the first torn or
+ * corrupt record, and written to the backing storage by the first checkpoint.</p>
+ *
+ * <p>Records are framed as {@code [int length][int crc32c][byte type][realm uuid][player uuid][block]}, where the
+ * length and checksum cover everything after the checksum and the block is a {@link PackedInventoryFile} block.
+ * Deletions have no block. A save that only changed some sections of an inventory, as reported by
+ * {@link SerializedInventory#getChangedSections()}, is journaled as a delta block with just those sections; replay
+ * takes the rest from the previous record of the same inventory or from the backing storage.</p>
+ *
+ * <p>Deleting all inventories of a realm is not journaled: the realm's entries are dropped from memory and the
+ * backing storage deletes the rest once no checkpoint can write them back. Records of the realm replayed after a
+ * crash are removed by the orphan sweep.</p>
+ */
+public class InventoryJournal implements InventoryStorage {
+
+    /** The journal directory, relative to the plugin folder. */
+    public static final String DIRECTORY = "inventory-journal";
+
+    private static final byte RECORD_SAVE = 1;
+    private static final byte RECORD_DELETE = 2;
+    private static final byte RECORD_SAVE_DELTA = 3;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int RECORD_KEY_SIZE = 1 + 4 * Long.BYTES;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Logger logger;
+    private final InventoryStorage backing;
+    private final Path directory;
+    private final long commitIntervalMillis;
+    private final long checkpointIntervalMillis;
+    private final ScheduledExecutorService journalThread;
+
+    /** Journaled inventories not yet written to the backing storage. An entry without data is a deletion. */
+    private final ConcurrentMap<Key, Entry> unapplied = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+    private final AtomicBoolean commitScheduled = new AtomicBoolean();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder committedRecords = new LongAdder();
+    private final LongAdder committedBytes = new LongAdder();
+    private final LongAdder deltaRecords = new LongAdder();
+    private final LongAdder failedCommits = new LongAdder();
+
+    // Guarded by appendLock.
+    private List<PendingRecord> pending = new ArrayList<>();
+    private boolean closed;
+
+    // Journal-thread state.
+    private FileChannel segmentChannel;
+    private long currentSegment;
+    private CompletableFuture<Void> runningCheckpoint = CompletableFuture.completedFuture(null);
+
+    /**
+     * @param logger                   The plugin logger.
+     * @param backing                  The storage inventories are checkpointed to.
+     * @param directory                The directory holding the journal segments.
+     * @param commitIntervalMillis     How long saves are gathered before they are written with one fsync.
+     * @param checkpointIntervalMillis How often journaled inventories are written to the backing storage.
+     */
+    public InventoryJournal(Logger logger, InventoryStorage backing, Path directory, long commitIntervalMillis, long checkpointIntervalMillis) {
+        this.logger = logger;
+        this.backing = backing;
+        this.directory = directory;
+        this.commitIntervalMillis = commitIntervalMillis;
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        this.journalThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AdvancedCoreRealms-InventoryJournal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Replays the segments left by the previous run, starts a fresh segment and schedules checkpoints,
+     * the first of which runs right away.
+     *
+     * @throws IOException If the journal directory cannot be read or the new segment cannot be created.
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        long lastSegment = 0;
+        int replayedRecords = 0;
+        for (long segment : listSegments()) {
+            replayedRecords += replaySegment(segmentPath(segment));
+            lastSegment = segment;
+        }
+        startSegment(lastSegment + 1);
+        if (replayedRecords > 0) {
+            logger.info("Inventory journal replayed " + replayedRecords + " record(s) for " + unapplied.size()
+                    + " inventories that were not yet written to storage.");
+        }
+        journalThread.scheduleWithFixedDelay(this::checkpoint, 0L, checkpointIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Journals a save. The returned future completes once the save is durable in the journal.
+     */
+    @Override
+    public CompletableFuture<Void> savePlayerInventory(UUID realmId, UUID playerUuid, SerializedInventory data) {
+        Key key = new Key(realmId, playerUuid);
+        // A delta needs something to apply to; after a journaled deletion there is nothing
+        Entry previous = unapplied.get(key);
+        boolean delta = data.getChangedSections() != SerializedInventory.ALL_SECTIONS && (previous == null || previous.data != null);
+        byte[] block;
+        try {
+            block = PackedInventoryFile.encode(data, delta ? data.getChangedSections() : SerializedInventory.ALL_SECTIONS);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (delta) {
+            deltaRecords.increment();
+        }
+        return append(delta ? RECORD_SAVE_DELTA : RECORD_SAVE, key, new Entry(data), block, () -> backing.savePlayerInventory(realmId, playerUuid, data));
+    }
+
+    @Override
+    public CompletableFuture<Optional<SerializedInventory>> loadPlayerInventory(UUID realmId, UUID playerUuid) {
+        // An entry only leaves this map after the backing storage has it
+        Entry entry = unapplied.get(new Key(realmId, playerUuid));
+        if (entry != null) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(entry.data));
+        }
+        return backing.loadPlayerInventory(realmId, playerUuid);
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePlayerInventory(UUID realmId, UUID playerUuid) {
+        return append(RECORD_DELETE, new Key(realmId, playerUuid), new Entry(null), null, () -> backing.deletePlayerInventory(realmId, playerUuid));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteRealmInventories(UUID realmId) {
+        synchronized (appendLock) {
+            if (closed) {
+                return backing.deleteRealmInventories(realmId);
+            }
+            unapplied.keySet().removeIf(key -> key.realmId.equals(realmId));
+        }
+        // A running checkpoint may still write the realm's inventories; delete them after it
+        return CompletableFuture.supplyAsync(() -> runningCheckpoint, journalThread)
+                .thenCompose(checkpoint -> checkpoint.handle((ignored, ex) -> null))
+                .thenCompose(ignored -> backing.deleteRealmInventories(realmId));
+    }
+
+    @Override
+    public CompletableFuture<Set<UUID>> sweepOrphanedInventories(Predicate<UUID> realmExists) {
+        return backing.sweepOrphanedInventories(realmExists).thenApply(swept -> {
+            unapplied.keySet().removeIf(key -> swept.contains(key.realmId));
+            return swept;
+        });
+    }
+
+    /**
+     * Commits everything pending, writes all journaled inventories to the backing storage and closes the
+     * journal. Saves made afterwards go directly to the backing storage.
+     */
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            closed = true;
+        }
+        try {
+            journalThread.submit(this::commit).get(10, TimeUnit.SECONDS);
+            // Let a running checkpoint finish, then write what is left
+            journalThread.submit(() -> runningCheckpoint).get(10, TimeUnit.SECONDS).handle((ignored, ex) -> null).get(30, TimeUnit.SECONDS);
+            journalThread.submit(this::checkpoint).get(10, TimeUnit.SECONDS).get(30, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            logger.log(Level.WARNING, "Could not write every journaled inventory to storage on shutdown; "
+                    + "the journal is kept and replayed on the next start", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journalThread.shutdown();
+        try {
+            if (!journalThread.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Timed out waiting for the inventory journal to stop.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (segmentChannel != null) {
+            try {
+                segmentChannel.force(true);
+                segmentChannel.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to close inventory journal segment", e);
+            }
+        }
+        backing.close();
+    }
+
+    /**
+     * @return A one-line summary of group commits and inventories waiting for a checkpoint.
+     */
+    public String describe() {
+        long commitCount = commits.sum();
+        long recordCount = committedRecords.sum();
+        return String.format("Inventory journal: %d commits, %.1f records per commit, %.1f KiB per record, %d deltas, %d failed, "
+                        + "%d inventories awaiting checkpoint",
+                commitCount, recordCount / (double) Math.max(1L, commitCount), committedBytes.sum() / 1024.0 / Math.max(1L, recordCount),
+                deltaRecords.sum(), failedCommits.sum(), unapplied.size());
+    }
+
+    private CompletableFuture<Void> append(byte type, Key key, Entry entry, byte[] block, DirectWrite afterClose) {
+        PendingRecord record = new PendingRecord(encodeRecord(type, key, block));
+        synchronized (appendLock) {
+            if (closed) {
+                return afterClose.write();
+            }
+            // The same order for the in-memory state and the journal, so the latest save wins in both
+            unapplied.put(key, entry);
+            pending.add(record);
+        }
+        if (commitScheduled.compareAndSet(false, true)) {
+            journalThread.schedule(this::commit, commitIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return record.durable;
+    }
+
+    /**
+     * Writes every pending record with a single write and fsync. Runs on the journal thread.
+     */
+    private void commit() {
+        commitScheduled.set(false);
+        List<PendingRecord> batch;
+        synchronized (appendLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        int size = 0;
+        for (PendingRecord record : batch) {
+            size += record.bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (PendingRecord record : batch) {
+            buffer.put(record.bytes);
+        }
+        buffer.flip();
+        try {
+            long rollbackPosition = segmentChannel.size();
+            try {
+                while (buffer.hasRemaining()) {
+                    segmentChannel.write(buffer);
+                }
+                segmentChannel.force(false);
+            } catch (IOException e) {
+                rollback(rollbackPosition);
+                throw e;
+            }
+        } catch (IOException e) {
+            // The inventories stay in memory and are still written to the backing storage by the next checkpoint.
+            failedCommits.increment();
+            logger.log(Level.SEVERE, "Failed to commit " + batch.size() + " inventory journal record(s)", e);
+            for (PendingRecord record : batch) {
+                record.durable.completeExceptionally(e);
+            }
+            return;
+        }
+        commits.increment();
+        committedRecords.add(batch.size());
+        committedBytes.add(size);
+        for (PendingRecord record : batch) {
+            record.durable.complete(null);
+        }
+    }
+
+    /**
+     * Starts a new segment and writes everything journaled so far to the backing storage; the older segments are
+     * deleted once that has succeeded. Runs on the journal thread; does nothing while a checkpoint is running.
+     */
+    private CompletableFuture<Void> checkpoint() {
+        if (!runningCheckpoint.isDone()) {
+            return runningCheckpoint;
+        }
+        try {
+            if (unapplied.isEmpty() && segmentChannel.size() == 0) {
+                return runningCheckpoint;
+            }
+            // An empty segment is kept, so that retrying a failing checkpoint does not pile up segments
+            boolean roll = segmentChannel.size() > 0;
+            long coveredSegment = roll ? currentSegment : currentSegment - 1;
+            if (roll) {
+                startSegment(currentSegment + 1);
+            }
+            Map<Key, Entry> snapshot = new HashMap<>(unapplied);
+            runningCheckpoint = applyToBacking(snapshot).handle((ignored, ex) -> {
+                if (ex != null) {
+                    logger.log(Level.WARNING, "Inventory journal checkpoint failed; its segments are kept and it is retried", ex);
+                    return null;
+                }
+                deleteSegmentsUpTo(coveredSegment);
+                return null;
+            });
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to roll the inventory journal segment; checkpoint postponed", e);
+        }
+        return runningCheckpoint;
+    }
+
+    private CompletableFuture<Void> applyToBacking(Map<Key, Entry> snapshot) {
+        Map<UUID, Map<Key, Entry>> byPlayer = new HashMap<>();
+        for (Map.Entry<Key, Entry> entry : snapshot.entrySet()) {
+            byPlayer.computeIfAbsent(entry.getKey().playerUuid, id -> new HashMap<>()).put(entry.getKey(), entry.getValue());
+        }
+        List<CompletableFuture<Void>> writes = new ArrayList<>(byPlayer.size());
+        for (Map.Entry<UUID, Map<Key, Entry>> player : byPlayer.entrySet()) {
+            Map<UUID, SerializedInventory> saves = new HashMap<>();
+            List<CompletableFuture<Void>> playerWrites = new ArrayList<>();
+            for (Map.Entry<Key, Entry> entry : player.getValue().entrySet()) {
+                if (entry.getValue().data != null) {
+                    saves.put(entry.getKey().realmId, entry.getValue().data);
+                } else {
+                    playerWrites.add(backing.deletePlayerInventory(entry.getKey().realmId, player.getKey()));
+                }
+            }
+            if (!saves.isEmpty()) {
+                playerWrites.add(backing.savePlayerInventories(player.getKey(), saves));
+            }
+            writes.add(CompletableFuture.allOf(playerWrites.toArray(new CompletableFuture[0])).thenRun(() -> {
+                // Keep entries that were saved again meanwhile; the next checkpoint writes them
+                for (Map.Entry<Key, Entry> entry : player.getValue().entrySet()) {
+                    unapplied.remove(entry.getKey(), entry.getValue());
+                }
+            }));
+        }
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Reads a segment into memory, stopping at the first torn or corrupt record.
+     *
+     * @return The number of records read.
+     */
+    private int replaySegment(Path segmentFile) throws IOException {
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segmentFile)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (!replayRecord(in, length)) {
+                    logger.warning("Ignoring torn inventory journal record after " + records + " record(s) of " + segmentFile.getFileName());
+                    break;
+                }
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private boolean replayRecord(DataInputStream in, int length) throws IOException {
+        try {
+            int expectedCrc = in.readInt();
+            if (length < RECORD_KEY_SIZE || length > MAX_RECORD_SIZE) {
+                return false;
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+            CRC32C crc = new CRC32C();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != expectedCrc) {
+                return false;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            byte type = buffer.get();
+            Key key = new Key(new UUID(buffer.getLong(), buffer.getLong()), new UUID(buffer.getLong(), buffer.getLong()));
+            if (type == RECORD_DELETE) {
+                unapplied.put(key, new Entry(null));
+            } else if (type == RECORD_SAVE) {
+                byte[] block = new byte[length - RECORD_KEY_SIZE];
+                buffer.get(block);
+                unapplied.put(key, new Entry(PackedInventoryFile.decode(block)));
+            } else if (type == RECORD_SAVE_DELTA) {
+                byte[] block = new byte[length - RECORD_KEY_SIZE];
+                buffer.get(block);
+                SerializedInventory base = replayBase(key);
+                if (base == null) {
+                    logger.warning("Skipping inventory journal delta for player " + key.playerUuid + " in " + key.realmId
+                            + ": the inventory it changes no longer exists");
+                } else {
+                    unapplied.put(key, new Entry(PackedInventoryFile.decode(block, base)));
+                }
+            } else {
+                logger.warning("Skipping inventory journal record of unknown type " + type);
+            }
+            return true;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The inventory a replayed delta applies to: the latest record of it replayed so far, or else what the
+     * backing storage has.
+     */
+    private SerializedInventory replayBase(Key key) throws IOException {
+        Entry replayed = unapplied.get(key);
+        if (replayed != null) {
+            return replayed.data;
+        }
+        try {
+            return backing.loadPlayerInventory(key.realmId, key.playerUuid).get(30, TimeUnit.SECONDS).orElse(null);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Failed to load the base of an inventory journal delta", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading the base of an inventory journal delta", e);
+        }
+    }
+
+    private static byte[] encodeRecord(byte type, Key key, byte[] block) {
+        int length = RECORD_KEY_SIZE + (block == null ? 0 : block.length);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+        record.putInt(length).putInt(0).put(type)
+                .putLong(key.realmId.getMostSignificantBits()).putLong(key.realmId.getLeastSignificantBits())
+                .putLong(key.playerUuid.getMostSignificantBits()).putLong(key.playerUuid.getLeastSignificantBits());
+        if (block != null) {
+            record.put(block);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), RECORD_HEADER_SIZE, length);
+        record.putInt(Integer.BYTES, (int) crc.getValue());
+        return record.array();
+    }
+
+    private void rollback(long position) {
+        try {
+            segmentChannel.truncate(position);
+        } catch (IOException e) {
+            // A torn tail ends the replay of its segment; keep appending to a clean segment meanwhile.
+            logger.log(Level.SEVERE, "Failed to roll back inventory journal segment, starting a new one", e);
+            try {
+                startSegment(currentSegment + 1);
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, "Failed to start a new inventory journal segment", ex);
+            }
+        }
+    }
+
+    private void startSegment(long segment) throws IOException {
+        FileChannel next = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        FileChannel previous = segmentChannel;
+        segmentChannel = next;
+        currentSegment = segment;
+        if (previous != null) {
+            previous.force(true);
+            previous.close();
+        }
+    }
+
+    private void deleteSegmentsUpTo(long coveredSegment) {
+        for (long segment : listSegments()) {
+            if (segment <= coveredSegment) {
+                try {
+                    Files.deleteIfExists(segmentPath(segment));
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Failed to delete inventory journal segment " + segment, e);
+                }
+            }
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours.
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to list inventory journal segments", e);
+        }
+        segments.sort(Long::compare);
+        return segments;
+    }
+
+    @FunctionalInterface
+    private interface DirectWrite {
+        CompletableFuture<Void> write();
+    }
+
+    private static final class Key {
+        private final UUID realmId;
+        private final UUID playerUuid;
+
+        private Key(UUID realmId, UUID playerUuid) {
+            this.realmId = realmId;
+            this.playerUuid = playerUuid;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return realmId.equals(other.realmId) && playerUuid.equals(other.playerUuid);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(realmId, playerUuid);
+        }
+    }
+
+    /** Compared by identity, so a checkpoint only removes the exact entry it wrote. */
+    private static final class Entry {
+        private final SerializedInventory data;
+
+        private Entry(SerializedInventory data) {
+            this.data = data;
+        }
+    }
+
+    private static final class PendingRecord {
+        private final byte[] bytes;
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        private PendingRecord(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
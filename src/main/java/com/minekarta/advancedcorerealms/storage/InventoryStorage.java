@@ -2,9 +2,12 @@ package com.minekarta.advancedcorerealms.storage;
 
 import com.minekarta.advancedcorerealms.data.object.SerializedInventory;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 /**
  * An interface for storing and retrieving player inventories for realms.
@@ -38,4 +41,43 @@ public interface InventoryStorage {
      * @return A CompletableFuture that completes when the deletion is finished.
      */
     CompletableFuture<Void> deletePlayerInventory(UUID realmId, UUID playerUuid);
+
+    /**
+     * Deletes every player's inventory for a realm, for when the realm itself is deleted. The inventories are
+     * gone for loads once the future completes; the time that takes does not depend on how many there are, and
+     * the disk space may be reclaimed in the background afterwards.
+     *
+     * @param realmId The ID of the deleted realm.
+     * @return A CompletableFuture that completes when the inventories can no longer be loaded.
+     */
+    CompletableFuture<Void> deleteRealmInventories(UUID realmId);
+
+    /**
+     * Deletes the inventories of realms that no longer exist, such as those of realms deleted while the
+     * inventories could not be removed.
+     *
+     * @param realmExists Whether a realm ID that has inventories belongs to an existing realm.
+     * @return A CompletableFuture with the IDs of the realms whose inventories were deleted.
+     */
+    CompletableFuture<Set<UUID>> sweepOrphanedInventories(Predicate<UUID> realmExists);
+
+    /**
+     * Saves several inventories of one player. Storages that keep a player's inventories together
+     * can write them in one go.
+     *
+     * @param playerUuid  The UUID of the player.
+     * @param inventories The serialized inventories by realm ID.
+     * @return A CompletableFuture that completes when all of them are saved.
+     */
+    default CompletableFuture<Void> savePlayerInventories(UUID playerUuid, Map<UUID, SerializedInventory> inventories) {
+        return CompletableFuture.allOf(inventories.entrySet().stream()
+                .map(entry -> savePlayerInventory(entry.getKey(), playerUuid, entry.getValue()))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Finishes outstanding writes and releases resources. Called once on shutdown, before the storage executor stops.
+     */
+    default void close() {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import com.minekarta.advancedcorerealms.data.object.Realm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The original realm backend: one JSON file per realm in the {@code realms} directory.
+ * Every write goes through {@link AtomicFileWriter}, so a crash mid-save leaves the previous
+ * version of the file in place, and bulk loads are parsed on a {@link ParallelRealmLoader}.
+ */
+public class JsonRealmStorage implements RealmStorage {
+
+    private final Logger logger;
+    private final Gson gson;
+    private final File realmsDir;
+    private final ParallelRealmLoader realmLoader;
+
+    /**
+     * @param logger      The plugin logger.
+     * @param gson        Gson instance used for the realm files; its pretty-printing setting is kept.
+     * @param realmsDir   The directory holding the realm files.
+     * @param loadThreads The number of threads used by {@link #loadAll(Consumer)}.
+     */
+    public JsonRealmStorage(Logger logger, Gson gson, File realmsDir, int loadThreads) {
+        this.logger = logger;
+        this.gson = gson;
+        this.realmsDir = realmsDir;
+        this.realmLoader = new ParallelRealmLoader(logger, this::readRealmFile, loadThreads);
+    }
+
+    @Override
+    public void open() throws IOException {
+        Files.createDirectories(realmsDir.toPath());
+        recoverTempFiles();
+    }
+
+    @Override
+    public boolean hasData() throws IOException {
+        if (!realmsDir.isDirectory()) {
+            return false;
+        }
+        try (DirectoryStream<Path> realmFiles = Files.newDirectoryStream(realmsDir.toPath(), "*.json")) {
+            return realmFiles.iterator().hasNext();
+        }
+    }
+
+    @Override
+    public Realm load(UUID realmId) throws IOException {
+        File realmFile = realmFile(realmId);
+        if (!realmFile.exists()) {
+            return null;
+        }
+        return readRealmFile(realmFile.toPath());
+    }
+
+    @Override
+    public RealmLoadReport loadAll(Consumer<Realm> consumer) {
+        if (!realmsDir.exists()) {
+            return new RealmLoadReport("files", 0, 0, 0, 0L);
+        }
+        return realmLoader.load(realmsDir.toPath(), consumer);
+    }
+
+    @Override
+    public void save(Realm realm) throws IOException {
+        AtomicFileWriter.write(realmFile(realm.getRealmId()).toPath(), out -> {
+            // The writer is deliberately not closed: AtomicFileWriter owns the stream and fsyncs it.
+            JsonWriter jsonWriter = gson.newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            gson.toJson(realm, Realm.class, jsonWriter);
+            jsonWriter.flush();
+        });
+    }
+
+    @Override
+    public void delete(UUID realmId) throws IOException {
+        Files.deleteIfExists(realmFile(realmId).toPath());
+    }
+
+    @Override
+    public boolean supportsConcurrentWrites() {
+        // Every realm is its own file, so writes of different realms never touch the same data.
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // Nothing is held open between writes.
+    }
+
+    /**
+     * @return The directory holding the realm files.
+     */
+    public File getRealmsDir() {
+        return realmsDir;
+    }
+
+    private File realmFile(UUID realmId) {
+        return new File(realmsDir, realmId.toString() + ".json");
+    }
+
+    private Realm readRealmFile(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, Realm.class);
+        }
+    }
+
+    /**
+     * Resolves temporary files left behind by writes that were interrupted by a crash.
+     * A temporary file that parses into a complete realm holds the most recent state and is promoted
+     * over the realm file; anything else is a torn write and is deleted.
+     */
+    private void recoverTempFiles() {
+        try (DirectoryStream<Path> tempFiles = Files.newDirectoryStream(realmsDir.toPath(), "*.json" + AtomicFileWriter.TEMP_SUFFIX)) {
+            for (Path tempFile : tempFiles) {
+                String fileName = tempFile.getFileName().toString();
+                Path target = tempFile.resolveSibling(fileName.substring(0, fileName.length() - AtomicFileWriter.TEMP_SUFFIX.length()));
+                Realm realm = null;
+                try {
+                    realm = readRealmFile(tempFile);
+                } catch (IOException | JsonParseException e) {
+                    // Torn write; fall through to deletion.
+                }
+                if (realm != null && target.getFileName().toString().equals(realm.getRealmId() + ".json")) {
+                    AtomicFileWriter.moveIntoPlace(tempFile, target);
+                    logger.warning("Recovered interrupted save of realm " + realm.getName() + " from " + fileName);
+                } else {
+                    Files.deleteIfExists(tempFile);
+                    logger.warning("Discarded incomplete realm save " + fileName);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to recover temporary realm files", e);
+        }
+    }
+}
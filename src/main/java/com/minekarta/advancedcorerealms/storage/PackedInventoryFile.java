@@ -0,0 +1,299 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.minekarta.advancedcorerealms.data.object.SerializedInventory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The on-disk format of {@link PackedInventoryStorage}: every realm inventory of one player in a single file.
+ *
+ * <pre>
+ * header   int magic "ACRI", byte format version, int entry count
+ * index    per entry: long realm id (most significant bits), long realm id (least significant bits),
+ *          int offset of the entry's block from the end of the index, int block length
+ * blocks   per entry, independently deflate-compressed:
+ *          long saved-at epoch millis, byte has-source-realm, [long, long source realm id],
+ *          4 sections (main, armor, off-hand, ender chest) as int length (-1 for none) + raw item bytes
+ * </pre>
+ *
+ * <p>A block encoded with only some sections is a delta: the others are written as length -2 and taken from a
+ * base inventory when it is decoded. Delta blocks only appear in the {@link InventoryJournal}, never in a file.</p>
+ *
+ * <p>Because every block is compressed on its own and located through the index, a load reads the header,
+ * the index and one block, and a save re-encodes only the entry that changed; the other blocks are copied
+ * as they are. Sections are stored as the raw serialized item bytes rather than their Base64 text.</p>
+ */
+final class PackedInventoryFile {
+
+    static final String EXTENSION = ".inv";
+
+    private static final int MAGIC = 0x41435249; // "ACRI"
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES + 1 + Integer.BYTES;
+    private static final int INDEX_ENTRY_BYTES = 2 * Long.BYTES + 2 * Integer.BYTES;
+    // Guards against reading a corrupt count or length as a huge allocation
+    private static final int MAX_ENTRIES = 1 << 16;
+    private static final int MAX_BLOCK_BYTES = 64 * 1024 * 1024;
+    private static final int SECTION_NONE = -1;
+    private static final int SECTION_UNCHANGED = -2;
+
+    private PackedInventoryFile() {
+    }
+
+    /**
+     * Reads a single entry, touching only the header, the index and that entry's block.
+     *
+     * @param file    The player's file.
+     * @param realmId The realm whose inventory is wanted.
+     * @return The compressed block, or null if the file or the entry does not exist.
+     */
+    static byte[] readBlock(Path file, UUID realmId) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer index = readIndex(channel, file);
+            long dataStart = HEADER_BYTES + (long) index.capacity();
+            while (index.hasRemaining()) {
+                long most = index.getLong();
+                long least = index.getLong();
+                int offset = index.getInt();
+                int length = index.getInt();
+                if (most == realmId.getMostSignificantBits() && least == realmId.getLeastSignificantBits()) {
+                    return readFully(channel, dataStart + offset, checkLength(length, file), file);
+                }
+            }
+            return null;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Lists the realms a file has entries for, reading only the header and the index.
+     *
+     * @param file The player's file.
+     * @return The realm ids in file order; empty if the file does not exist.
+     */
+    static List<UUID> readRealmIds(Path file) throws IOException {
+        List<UUID> realmIds = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer index = readIndex(channel, file);
+            while (index.hasRemaining()) {
+                realmIds.add(new UUID(index.getLong(), index.getLong()));
+                index.position(index.position() + 2 * Integer.BYTES);
+            }
+        } catch (NoSuchFileException e) {
+            return realmIds;
+        }
+        return realmIds;
+    }
+
+    /**
+     * Reads every entry of a file without decompressing them.
+     *
+     * @param file The player's file.
+     * @return The compressed blocks by realm id, in file order; empty if the file does not exist.
+     */
+    static Map<UUID, byte[]> readAll(Path file) throws IOException {
+        Map<UUID, byte[]> blocks = new LinkedHashMap<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer index = readIndex(channel, file);
+            long dataStart = HEADER_BYTES + (long) index.capacity();
+            while (index.hasRemaining()) {
+                UUID realmId = new UUID(index.getLong(), index.getLong());
+                int offset = index.getInt();
+                int length = checkLength(index.getInt(), file);
+                blocks.put(realmId, readFully(channel, dataStart + offset, length, file));
+            }
+        } catch (NoSuchFileException e) {
+            return blocks;
+        }
+        return blocks;
+    }
+
+    /**
+     * Writes a complete file: header, index and the given blocks in iteration order.
+     *
+     * @param out    The destination stream.
+     * @param blocks The compressed blocks by realm id.
+     */
+    static void write(OutputStream out, Map<UUID, byte[]> blocks) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(FORMAT_VERSION);
+        data.writeInt(blocks.size());
+        int offset = 0;
+        for (Map.Entry<UUID, byte[]> entry : blocks.entrySet()) {
+            data.writeLong(entry.getKey().getMostSignificantBits());
+            data.writeLong(entry.getKey().getLeastSignificantBits());
+            data.writeInt(offset);
+            data.writeInt(entry.getValue().length);
+            offset += entry.getValue().length;
+        }
+        for (byte[] block : blocks.values()) {
+            data.write(block);
+        }
+        data.flush();
+    }
+
+    /**
+     * Compresses one inventory into a block.
+     */
+    static byte[] encode(SerializedInventory inventory) throws IOException {
+        return encode(inventory, SerializedInventory.ALL_SECTIONS);
+    }
+
+    /**
+     * Compresses the given sections of one inventory into a block; the others are left out as unchanged.
+     *
+     * @param sections A combination of the {@code SECTION_} flags of {@link SerializedInventory}.
+     */
+    static byte[] encode(SerializedInventory inventory, int sections) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream data = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            data.writeLong(inventory.getSavedAt().toEpochMilli());
+            UUID sourceRealmId = inventory.getSourceRealmId();
+            data.writeBoolean(sourceRealmId != null);
+            if (sourceRealmId != null) {
+                data.writeLong(sourceRealmId.getMostSignificantBits());
+                data.writeLong(sourceRealmId.getLeastSignificantBits());
+            }
+            writeSection(data, inventory.getMainContents(), sections, SerializedInventory.SECTION_MAIN);
+            writeSection(data, inventory.getArmorContents(), sections, SerializedInventory.SECTION_ARMOR);
+            writeSection(data, inventory.getOffhandContents(), sections, SerializedInventory.SECTION_OFFHAND);
+            writeSection(data, inventory.getEnderChestContents(), sections, SerializedInventory.SECTION_ENDER_CHEST);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decompresses a block written by {@link #encode(SerializedInventory)}.
+     */
+    static SerializedInventory decode(byte[] block) throws IOException {
+        return decode(block, null);
+    }
+
+    /**
+     * Decompresses a block, taking the sections a delta block left out from a base inventory.
+     *
+     * @param base The inventory the delta was made against, or null if the block must be complete.
+     */
+    static SerializedInventory decode(byte[] block, SerializedInventory base) throws IOException {
+        Inflater inflater = new Inflater();
+        try (DataInputStream data = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(block), inflater))) {
+            Instant savedAt = Instant.ofEpochMilli(data.readLong());
+            UUID sourceRealmId = data.readBoolean() ? new UUID(data.readLong(), data.readLong()) : null;
+            String main = readSection(data, base, SerializedInventory::getMainContents);
+            String armor = readSection(data, base, SerializedInventory::getArmorContents);
+            String offhand = readSection(data, base, SerializedInventory::getOffhandContents);
+            String enderChest = readSection(data, base, SerializedInventory::getEnderChestContents);
+            return new SerializedInventory(main, armor, offhand, enderChest, sourceRealmId, savedAt);
+        } catch (EOFException e) {
+            throw new IOException("Truncated inventory block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeSection(DataOutputStream data, String base64, int sections, int section) throws IOException {
+        if ((sections & section) == 0) {
+            data.writeInt(SECTION_UNCHANGED);
+            return;
+        }
+        if (base64 == null) {
+            data.writeInt(SECTION_NONE);
+            return;
+        }
+        byte[] raw = Base64.getDecoder().decode(base64);
+        data.writeInt(raw.length);
+        data.write(raw);
+    }
+
+    private static String readSection(DataInputStream data, SerializedInventory base,
+                                      Function<SerializedInventory, String> baseSection) throws IOException {
+        int length = data.readInt();
+        if (length == SECTION_UNCHANGED) {
+            if (base == null) {
+                throw new IOException("Inventory delta block without a base inventory");
+            }
+            return baseSection.apply(base);
+        }
+        if (length < 0) {
+            return null;
+        }
+        if (length > MAX_BLOCK_BYTES) {
+            throw new IOException("Inventory section of " + length + " bytes exceeds the limit");
+        }
+        byte[] raw = new byte[length];
+        data.readFully(raw);
+        return Base64.getEncoder().encodeToString(raw);
+    }
+
+    private static ByteBuffer readIndex(FileChannel channel, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, 0L, file);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException(file.getFileName() + " is not a packed inventory file");
+        }
+        byte version = header.get();
+        if (version != FORMAT_VERSION) {
+            throw new IOException(file.getFileName() + " has unsupported format version " + version);
+        }
+        int count = header.getInt();
+        if (count < 0 || count > MAX_ENTRIES) {
+            throw new IOException(file.getFileName() + " has a corrupt index (" + count + " entries)");
+        }
+        ByteBuffer index = ByteBuffer.allocate(count * INDEX_ENTRY_BYTES);
+        readFully(channel, index, HEADER_BYTES, file);
+        index.flip();
+        return index;
+    }
+
+    private static byte[] readFully(FileChannel channel, long position, int length, Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, position, file);
+        return buffer.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, Path file) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException(file.getFileName() + " is truncated");
+            }
+            position += read;
+        }
+    }
+
+    private static int checkLength(int length, Path file) throws IOException {
+        if (length < 0 || length > MAX_BLOCK_BYTES) {
+            throw new IOException(file.getFileName() + " has a corrupt index (block of " + length + " bytes)");
+        }
+        return length;
+    }
+}
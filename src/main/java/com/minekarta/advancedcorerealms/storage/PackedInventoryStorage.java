@@ -0,0 +1,260 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.google.common.util.concurrent.Striped;
+import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
+import com.minekarta.advancedcorerealms.data.object.SerializedInventory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores every realm inventory of a player in one compact binary file, {@code inventories-packed/<player>.inv}.
+ * See {@link PackedInventoryFile} for the format.
+ *
+ * <p>A swap reads one block from one file instead of parsing a YAML document, and a save re-encodes only the
+ * entry that changed. Files are replaced atomically through {@link AtomicFileWriter}. Writes to the same
+ * player's file are serialized with a striped lock; reads need no lock because a file is only ever replaced
+ * as a whole.</p>
+ *
+ * <p>Because a realm's inventories are spread over the files of all its members, deleting them is done in two
+ * steps. The realm is first marked as purged in memory, which hides its inventories from loads at once and keeps
+ * saves from writing new ones. The files are then rewritten without it in the background, in parallel, after
+ * which the mark is dropped. Any file rewrite in between drops the realm's entry as well.</p>
+ */
+public class PackedInventoryStorage implements InventoryStorage {
+
+    /** The directory of packed inventory files, relative to the plugin folder. */
+    public static final String DIRECTORY = "inventories-packed";
+
+    private final Logger logger;
+    private final Path directory;
+    private final Executor ioExecutor;
+    private final Striped<Lock> playerLocks = Striped.lock(64);
+    /** Realms whose inventories are deleted but may still have entries in some files. */
+    private final Set<UUID> purgedRealms = ConcurrentHashMap.newKeySet();
+
+    public PackedInventoryStorage(AdvancedCoreRealms plugin) {
+        this.logger = plugin.getLogger();
+        this.ioExecutor = plugin.getStorageManager().getIoExecutor();
+        this.directory = new File(plugin.getDataFolder(), DIRECTORY).toPath();
+        try {
+            Files.createDirectories(directory);
+            deleteStaleTempFiles();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not prepare the inventory directory " + directory, e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> savePlayerInventory(UUID realmId, UUID playerUuid, SerializedInventory data) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                writeAll(playerUuid, Map.of(realmId, data), true);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not save inventory for player " + playerUuid + " in realm " + realmId, e);
+                throw new UncheckedIOException(e);
+            }
+        }, ioExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> savePlayerInventories(UUID playerUuid, Map<UUID, SerializedInventory> inventories) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                writeAll(playerUuid, inventories, true);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not save " + inventories.size() + " inventories for player " + playerUuid, e);
+                throw new UncheckedIOException(e);
+            }
+        }, ioExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Optional<SerializedInventory>> loadPlayerInventory(UUID realmId, UUID playerUuid) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return Optional.ofNullable(read(realmId, playerUuid));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, ioExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePlayerInventory(UUID realmId, UUID playerUuid) {
+        return CompletableFuture.runAsync(() -> {
+            Lock lock = playerLocks.get(playerUuid);
+            lock.lock();
+            try {
+                Path file = fileFor(playerUuid);
+                Map<UUID, byte[]> blocks = PackedInventoryFile.readAll(file);
+                if (blocks.remove(realmId) == null) {
+                    return;
+                }
+                replace(file, blocks);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not delete inventory for player " + playerUuid + " in realm " + realmId, e);
+                throw new UncheckedIOException(e);
+            } finally {
+                lock.unlock();
+            }
+        }, ioExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteRealmInventories(UUID realmId) {
+        purgedRealms.add(realmId);
+        CompletableFuture.supplyAsync(this::listPlayerFiles, ioExecutor)
+                .thenCompose(files -> ParallelFileSweep.run(files, ioExecutor, logger, "inventory file",
+                        file -> {
+                            // Only files that hold the realm are read in full and rewritten
+                            if (PackedInventoryFile.readRealmIds(file).contains(realmId)) {
+                                removeRealms(file, realmId::equals);
+                            }
+                        }))
+                .whenComplete((failures, ex) -> {
+                    if (ex != null || failures > 0) {
+                        // Stay hidden; the orphan sweep removes what is left
+                        logger.log(Level.WARNING, "Could not remove the inventories of realm " + realmId + " from every file", ex);
+                    } else {
+                        purgedRealms.remove(realmId);
+                    }
+                });
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Set<UUID>> sweepOrphanedInventories(Predicate<UUID> realmExists) {
+        Set<UUID> swept = ConcurrentHashMap.newKeySet();
+        return CompletableFuture.supplyAsync(this::listPlayerFiles, ioExecutor)
+                .thenCompose(files -> ParallelFileSweep.run(files, ioExecutor, logger, "inventory file", file -> {
+                    List<UUID> orphans = new ArrayList<>();
+                    for (UUID realmId : PackedInventoryFile.readRealmIds(file)) {
+                        if (!realmExists.test(realmId)) {
+                            orphans.add(realmId);
+                        }
+                    }
+                    if (!orphans.isEmpty()) {
+                        removeRealms(file, orphans::contains);
+                        swept.addAll(orphans);
+                    }
+                }))
+                .thenApply(failures -> swept);
+    }
+
+    /**
+     * Reads one inventory on the calling thread.
+     *
+     * @return The inventory, or null if none is stored.
+     */
+    SerializedInventory read(UUID realmId, UUID playerUuid) throws IOException {
+        if (purgedRealms.contains(realmId)) {
+            return null;
+        }
+        byte[] block = PackedInventoryFile.readBlock(fileFor(playerUuid), realmId);
+        return block != null ? PackedInventoryFile.decode(block) : null;
+    }
+
+    /**
+     * Writes several inventories of one player with a single file replacement, on the calling thread.
+     * Used by the migration from YAML and by journal checkpoints.
+     *
+     * @param playerUuid  The player.
+     * @param inventories The inventories by realm id.
+     * @param overwrite   If false, realms that already have an entry keep it.
+     * @return The number of entries written.
+     */
+    int writeAll(UUID playerUuid, Map<UUID, SerializedInventory> inventories, boolean overwrite) throws IOException {
+        Lock lock = playerLocks.get(playerUuid);
+        lock.lock();
+        try {
+            Path file = fileFor(playerUuid);
+            Map<UUID, byte[]> blocks = PackedInventoryFile.readAll(file);
+            boolean dropped = blocks.keySet().removeIf(purgedRealms::contains);
+            int written = 0;
+            for (Map.Entry<UUID, SerializedInventory> entry : inventories.entrySet()) {
+                if (purgedRealms.contains(entry.getKey())) {
+                    continue;
+                }
+                if (overwrite || !blocks.containsKey(entry.getKey())) {
+                    blocks.put(entry.getKey(), PackedInventoryFile.encode(entry.getValue()));
+                    written++;
+                }
+            }
+            if (written > 0 || dropped) {
+                replace(file, blocks);
+            }
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites a player's file without the entries of some realms, under the player's lock.
+     */
+    private void removeRealms(Path file, Predicate<UUID> remove) throws IOException {
+        String name = file.getFileName().toString();
+        UUID playerUuid = UUID.fromString(name.substring(0, name.length() - PackedInventoryFile.EXTENSION.length()));
+        Lock lock = playerLocks.get(playerUuid);
+        lock.lock();
+        try {
+            Map<UUID, byte[]> blocks = PackedInventoryFile.readAll(file);
+            if (blocks.keySet().removeIf(remove)) {
+                replace(file, blocks);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void replace(Path file, Map<UUID, byte[]> blocks) throws IOException {
+        if (blocks.isEmpty()) {
+            Files.deleteIfExists(file);
+        } else {
+            AtomicFileWriter.write(file, out -> PackedInventoryFile.write(out, blocks));
+        }
+    }
+
+    private List<Path> listPlayerFiles() {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + PackedInventoryFile.EXTENSION)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return files;
+    }
+
+    private Path fileFor(UUID playerUuid) {
+        return directory.resolve(playerUuid + PackedInventoryFile.EXTENSION);
+    }
+
+    private void deleteStaleTempFiles() throws IOException {
+        // A temporary file is only complete once renamed, so a leftover one is always an interrupted write.
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + AtomicFileWriter.TEMP_SUFFIX)) {
+            for (Path temp : stream) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
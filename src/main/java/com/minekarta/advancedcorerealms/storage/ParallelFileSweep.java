@@ -0,0 +1,61 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a task over many files in a few parallel lanes on the storage executor. A sweep over thousands of files
+ * then neither runs on a single thread nor fills the executor's queue and slows down inventory swaps.
+ */
+final class ParallelFileSweep {
+
+    private static final int LANES = 4;
+
+    private ParallelFileSweep() {
+    }
+
+    /**
+     * The work for one item.
+     */
+    @FunctionalInterface
+    interface Task<T> {
+        void run(T item) throws IOException;
+    }
+
+    /**
+     * Runs the task for every item. A failing item is logged and skipped, the others still run.
+     *
+     * @param items    The items, usually files or directories.
+     * @param executor The storage executor.
+     * @param logger   The plugin logger.
+     * @param what     What an item is, for the log, such as "inventory file".
+     * @param task     The work for one item.
+     * @return A future with the number of items that failed, completed when every lane is done.
+     */
+    static <T> CompletableFuture<Integer> run(List<T> items, Executor executor, Logger logger, String what, Task<T> task) {
+        AtomicInteger failures = new AtomicInteger();
+        int lanes = Math.max(1, Math.min(LANES, items.size()));
+        List<CompletableFuture<Void>> futures = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            int first = lane;
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int i = first; i < items.size(); i += lanes) {
+                    T item = items.get(i);
+                    try {
+                        task.run(item);
+                    } catch (IOException | RuntimeException e) {
+                        failures.incrementAndGet();
+                        logger.log(Level.WARNING, "Could not sweep " + what + " " + item, e);
+                    }
+                }
+            }, executor));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> failures.get());
+    }
+}
@@ -0,0 +1,127 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.minekarta.advancedcorerealms.data.object.Realm;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Parses a directory of realm files on a bounded worker pool.
+ *
+ * <p>The directory is listed lazily and each file is handed to a worker as soon as it is found.
+ * The work queue is bounded; when it is full the listing thread parses the next file itself,
+ * which keeps memory flat regardless of how many files there are. Parsed realms are passed to
+ * the sink immediately, from worker threads, so the sink must be thread-safe.</p>
+ */
+final class ParallelRealmLoader {
+
+    /**
+     * Reads a single realm file.
+     */
+    @FunctionalInterface
+    interface RealmParser {
+        Realm parse(Path file) throws IOException;
+    }
+
+    private static final int QUEUE_SLOTS_PER_THREAD = 64;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Logger logger;
+    private final RealmParser parser;
+    private final int threads;
+
+    ParallelRealmLoader(Logger logger, RealmParser parser, int threads) {
+        this.logger = logger;
+        this.parser = parser;
+        this.threads = threads;
+    }
+
+    /**
+     * Loads every {@code *.json} file in the directory. Blocks until all files have been processed.
+     *
+     * @param directory The directory to scan.
+     * @param sink      Receives each successfully parsed realm.
+     * @return A report with counts and timing of the load.
+     */
+    RealmLoadReport load(Path directory, Consumer<Realm> sink) {
+        long startNanos = System.nanoTime();
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong lastProgressNanos = new AtomicLong(startNanos);
+        AtomicInteger workerIds = new AtomicInteger();
+        int files = 0;
+
+        logger.info("Loading realms from storage using " + threads + " threads...");
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_SLOTS_PER_THREAD),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "AdvancedCoreRealms-RealmLoader-" + workerIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        try (DirectoryStream<Path> realmFiles = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path file : realmFiles) {
+                files++;
+                pool.execute(() -> {
+                    parseInto(file, sink, loaded, failed);
+                    reportProgress(startNanos, lastProgressNanos, loaded.get(), failed.get());
+                });
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to list realms directory " + directory, e);
+        } finally {
+            pool.shutdown();
+            awaitQuietly(pool);
+        }
+        return new RealmLoadReport("files", files, loaded.get(), failed.get(), System.nanoTime() - startNanos);
+    }
+
+    private void parseInto(Path file, Consumer<Realm> sink, AtomicInteger loaded, AtomicInteger failed) {
+        try {
+            Realm realm = parser.parse(file);
+            if (realm == null) {
+                failed.incrementAndGet();
+                logger.warning("Realm file " + file.getFileName() + " is empty, skipping.");
+                return;
+            }
+            sink.accept(realm);
+            loaded.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            logger.log(Level.SEVERE, "Failed to load realm from file " + file, e);
+        }
+    }
+
+    private void reportProgress(long startNanos, AtomicLong lastProgressNanos, int loaded, int failed) {
+        long now = System.nanoTime();
+        long last = lastProgressNanos.get();
+        if (now - last < PROGRESS_INTERVAL_NANOS || !lastProgressNanos.compareAndSet(last, now)) {
+            return;
+        }
+        double seconds = (now - startNanos) / 1_000_000_000.0;
+        logger.info(String.format("Loading realms... %d loaded, %d failed (%.0f files/s)",
+                loaded, failed, (loaded + failed) / seconds));
+    }
+
+    private void awaitQuietly(ThreadPoolExecutor pool) {
+        try {
+            while (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warning("Still waiting for realm loader threads to finish...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        }
+    }
+}
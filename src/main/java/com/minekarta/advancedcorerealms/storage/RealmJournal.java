@@ -0,0 +1,550 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.minekarta.advancedcorerealms.data.object.Realm;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only, log-structured store for realms.
+ *
+ * <p><b>Layout</b> (inside the journal directory):</p>
+ * <ul>
+ *     <li>{@code snapshot.dat}: a full record for every live realm, plus the number of the last
+ *     journal segment it covers. Written atomically by background compaction.</li>
+ *     <li>{@code journal-<n>.log}: segments of records appended since the snapshot. A new segment
+ *     is started on every open and on every compaction.</li>
+ * </ul>
+ *
+ * <p><b>Records</b> are framed as {@code [int length][int crc32c][byte type][uuid][json]}, where the
+ * length and checksum cover everything after the checksum. A record is one of:</p>
+ * <ul>
+ *     <li><b>FULL:</b> the complete JSON of a realm.</li>
+ *     <li><b>PATCH:</b> only the top-level fields that changed since the previous record; removed
+ *     fields are written as JSON null.</li>
+ *     <li><b>DELETE:</b> a tombstone, without payload.</li>
+ * </ul>
+ *
+ * <p><b>Threading:</b> {@link #save(Realm)}, {@link #commit()} and {@link #delete(UUID)} must be called
+ * from a single writer thread. Saved records are staged in memory and written and fsynced together by
+ * {@link #commit()}, so a whole flush costs one fsync. Reads ({@link #load(UUID)}, {@link #loadAll(Consumer)})
+ * are safe from any thread and are served from memory.</p>
+ */
+public class RealmJournal implements RealmStorage {
+
+    private static final int SNAPSHOT_MAGIC = 0x41435253; // "ACRS"
+    private static final int FORMAT_VERSION = 1;
+    private static final byte RECORD_FULL = 1;
+    private static final byte RECORD_PATCH = 2;
+    private static final byte RECORD_DELETE = 3;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    private static final String SNAPSHOT_FILE = "snapshot.dat";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Logger logger;
+    private final Gson gson;
+    private final Path directory;
+    private final long compactionThresholdBytes;
+    private final ExecutorService compactor;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    /** Committed state: the compact JSON of every live realm, exactly as it would be rebuilt from disk. */
+    private final ConcurrentMap<UUID, String> committedJson = new ConcurrentHashMap<>();
+
+    // Writer-thread state.
+    private final ByteArrayOutputStream batchBuffer = new ByteArrayOutputStream();
+    private final DataOutputStream batchOut = new DataOutputStream(batchBuffer);
+    private final Map<UUID, String> stagedJson = new HashMap<>();
+    private FileChannel segmentChannel;
+    private long currentSegment;
+    private long bytesSinceSnapshot;
+
+    /**
+     * @param logger                   The plugin logger.
+     * @param gson                     Gson instance able to convert {@link Realm} objects.
+     * @param directory                The directory holding the snapshot and segments.
+     * @param compactionThresholdBytes Journal bytes written since the last snapshot that trigger a compaction.
+     */
+    public RealmJournal(Logger logger, Gson gson, Path directory, long compactionThresholdBytes) {
+        this.logger = logger;
+        this.gson = gson;
+        this.directory = directory;
+        this.compactionThresholdBytes = compactionThresholdBytes;
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AdvancedCoreRealms-JournalCompactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the latest snapshot, replays every newer segment and starts a fresh segment for appends.
+     * A torn record at the end of a segment (from a crash mid-append) is truncated away.
+     *
+     * @throws IOException If the journal directory cannot be read or the new segment cannot be created.
+     */
+    @Override
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        Files.deleteIfExists(AtomicFileWriter.tempFileFor(directory.resolve(SNAPSHOT_FILE)));
+
+        long coveredSegment = readSnapshot();
+        long lastSegment = coveredSegment;
+        long replayedBytes = 0;
+        for (long segment : listSegments()) {
+            Path segmentFile = segmentPath(segment);
+            if (segment <= coveredSegment) {
+                // Left over from a crash between writing a snapshot and deleting the segments it covers.
+                Files.deleteIfExists(segmentFile);
+                continue;
+            }
+            replayedBytes += replaySegment(segmentFile);
+            lastSegment = segment;
+        }
+        this.bytesSinceSnapshot = replayedBytes;
+        startSegment(lastSegment + 1);
+        logger.info("Realm journal opened with " + committedJson.size() + " realms (" + replayedBytes / 1024 + " KiB replayed from the log tail).");
+    }
+
+    @Override
+    public boolean hasData() {
+        return !committedJson.isEmpty();
+    }
+
+    /**
+     * Stages the current state of a realm for the next {@link #commit()}. Only the fields that changed
+     * since the last committed record are written; a realm whose state has not changed produces no record.
+     *
+     * @param realm The realm to record.
+     * @throws IOException If the realm cannot be encoded.
+     */
+    @Override
+    public void save(Realm realm) throws IOException {
+        UUID realmId = realm.getRealmId();
+        JsonObject current = gson.toJsonTree(realm, Realm.class).getAsJsonObject();
+        String currentJson = current.toString();
+        String previousJson = stagedJson.containsKey(realmId) ? stagedJson.get(realmId) : committedJson.get(realmId);
+        if (currentJson.equals(previousJson)) {
+            return;
+        }
+        JsonObject patch = previousJson == null ? null : diff(JsonParser.parseString(previousJson).getAsJsonObject(), current);
+        if (patch != null && patch.size() * 2 <= current.size()) {
+            writeRecord(batchOut, RECORD_PATCH, realmId, patch.toString());
+        } else {
+            writeRecord(batchOut, RECORD_FULL, realmId, currentJson);
+        }
+        stagedJson.put(realmId, currentJson);
+    }
+
+    /**
+     * Appends every staged record to the current segment and fsyncs it once.
+     * If the write fails the segment is rolled back and nothing staged becomes visible.
+     *
+     * @throws IOException If the records could not be made durable.
+     */
+    @Override
+    public void commit() throws IOException {
+        if (batchBuffer.size() == 0) {
+            return;
+        }
+        long rollbackPosition = segmentChannel.size();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(batchBuffer.toByteArray());
+            while (buffer.hasRemaining()) {
+                segmentChannel.write(buffer);
+            }
+            segmentChannel.force(false);
+            bytesSinceSnapshot += batchBuffer.size();
+        } catch (IOException e) {
+            rollback(rollbackPosition);
+            throw e;
+        } finally {
+            batchBuffer.reset();
+        }
+        for (Map.Entry<UUID, String> entry : stagedJson.entrySet()) {
+            if (entry.getValue() == null) {
+                committedJson.remove(entry.getKey());
+            } else {
+                committedJson.put(entry.getKey(), entry.getValue());
+            }
+        }
+        stagedJson.clear();
+        maybeCompact();
+    }
+
+    /**
+     * Writes a tombstone for a realm and commits it, together with anything else staged.
+     *
+     * @param realmId The realm to delete.
+     * @throws IOException If the tombstone could not be made durable.
+     */
+    @Override
+    public void delete(UUID realmId) throws IOException {
+        if (!committedJson.containsKey(realmId) && stagedJson.get(realmId) == null) {
+            return;
+        }
+        writeRecord(batchOut, RECORD_DELETE, realmId, null);
+        stagedJson.put(realmId, null);
+        commit();
+    }
+
+    /**
+     * @param realmId The realm to load.
+     * @return The committed state of the realm, or null if it does not exist.
+     */
+    @Override
+    public Realm load(UUID realmId) {
+        String json = committedJson.get(realmId);
+        return json == null ? null : gson.fromJson(json, Realm.class);
+    }
+
+    /**
+     * Decodes every committed realm and passes it to the consumer.
+     *
+     * @param consumer Receives each realm.
+     * @return A report with counts and timing.
+     */
+    @Override
+    public RealmLoadReport loadAll(Consumer<Realm> consumer) {
+        long startNanos = System.nanoTime();
+        int loaded = 0;
+        int failed = 0;
+        for (Map.Entry<UUID, String> entry : committedJson.entrySet()) {
+            try {
+                consumer.accept(gson.fromJson(entry.getValue(), Realm.class));
+                loaded++;
+            } catch (RuntimeException e) {
+                failed++;
+                logger.log(Level.SEVERE, "Failed to decode journaled realm " + entry.getKey(), e);
+            }
+        }
+        return new RealmLoadReport("journal entries", loaded + failed, loaded, failed, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Writes a snapshot of the committed state right away and drops every segment it covers. Waits for a
+     * background compaction started by an earlier commit first, so the two never write the snapshot at once.
+     * Must be called from the writer thread.
+     *
+     * @throws IOException If the snapshot could not be written.
+     */
+    public void compactNow() throws IOException {
+        try {
+            // The compactor is single-threaded, so this runs once any compaction queued before it is done
+            compactor.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to wait for realm journal compaction", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for realm journal compaction", e);
+        }
+        // Only the writer thread starts compactions, so nothing can take the flag between the wait and here
+        if (!compacting.compareAndSet(false, true)) {
+            throw new IOException("Realm journal compaction is still running");
+        }
+        try {
+            long coveredSegment = currentSegment;
+            Map<UUID, String> state = new HashMap<>(committedJson);
+            startSegment(currentSegment + 1);
+            bytesSinceSnapshot = 0;
+            writeSnapshot(state, coveredSegment);
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Waits for a running compaction and closes the current segment.
+     */
+    @Override
+    public void close() {
+        compactor.shutdown();
+        try {
+            if (!compactor.awaitTermination(60, TimeUnit.SECONDS)) {
+                logger.warning("Timed out waiting for realm journal compaction to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (segmentChannel != null) {
+            try {
+                segmentChannel.force(true);
+                segmentChannel.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to close realm journal segment", e);
+            }
+            segmentChannel = null;
+        }
+    }
+
+    private void maybeCompact() {
+        if (bytesSinceSnapshot < compactionThresholdBytes || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        // Everything up to the current segment is captured by this copy; new records go to the next segment.
+        long coveredSegment = currentSegment;
+        Map<UUID, String> state = new HashMap<>(committedJson);
+        try {
+            startSegment(currentSegment + 1);
+        } catch (IOException e) {
+            compacting.set(false);
+            logger.log(Level.SEVERE, "Failed to roll the realm journal segment; compaction postponed", e);
+            return;
+        }
+        bytesSinceSnapshot = 0;
+        compactor.execute(() -> {
+            try {
+                writeSnapshot(state, coveredSegment);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Realm journal compaction failed; segments are kept for replay", e);
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    private void writeSnapshot(Map<UUID, String> state, long coveredSegment) throws IOException {
+        long startNanos = System.nanoTime();
+        AtomicFileWriter.write(directory.resolve(SNAPSHOT_FILE), out -> {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(SNAPSHOT_MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeLong(coveredSegment);
+            data.writeInt(state.size());
+            for (Map.Entry<UUID, String> entry : state.entrySet()) {
+                writeRecord(data, RECORD_FULL, entry.getKey(), entry.getValue());
+            }
+            data.flush();
+        });
+        for (long segment : listSegments()) {
+            if (segment <= coveredSegment) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+        logger.info("Compacted realm journal: " + state.size() + " realms snapshotted in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms.");
+    }
+
+    private long readSnapshot() throws IOException {
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.isRegularFile(snapshotFile)) {
+            return 0L;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a realm journal snapshot: " + snapshotFile);
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported realm journal snapshot version " + version);
+            }
+            long coveredSegment = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                // Snapshots are written atomically, so any damage here is real corruption rather than a torn write.
+                if (readRecord(in) <= 0) {
+                    throw new IOException("Realm journal snapshot is corrupt at record " + i);
+                }
+            }
+            return coveredSegment;
+        }
+    }
+
+    /**
+     * Replays a segment into the committed state.
+     *
+     * @return The number of valid bytes in the segment.
+     */
+    private long replaySegment(Path segmentFile) throws IOException {
+        long validBytes = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segmentFile)))) {
+            while (true) {
+                int recordSize = readRecord(in);
+                if (recordSize <= 0) {
+                    if (recordSize < 0) {
+                        logger.warning("Truncating torn record at byte " + validBytes + " of " + segmentFile.getFileName());
+                    }
+                    break;
+                }
+                validBytes += recordSize;
+            }
+        }
+        if (validBytes < Files.size(segmentFile)) {
+            try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.WRITE)) {
+                channel.truncate(validBytes);
+                channel.force(true);
+            }
+        }
+        return validBytes;
+    }
+
+    /**
+     * Reads and applies one record.
+     *
+     * @return The size of the record in bytes, 0 at a clean end of stream, or -1 for a torn or corrupt record.
+     */
+    private int readRecord(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return 0;
+        }
+        try {
+            int expectedCrc = in.readInt();
+            if (length < 17 || length > MAX_RECORD_SIZE) {
+                return -1;
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+            CRC32C crc = new CRC32C();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != expectedCrc) {
+                return -1;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            byte type = buffer.get();
+            UUID realmId = new UUID(buffer.getLong(), buffer.getLong());
+            String payload = new String(body, 17, length - 17, StandardCharsets.UTF_8);
+            apply(type, realmId, payload);
+            return RECORD_HEADER_SIZE + length;
+        } catch (EOFException e) {
+            return -1;
+        }
+    }
+
+    private void apply(byte type, UUID realmId, String payload) {
+        switch (type) {
+            case RECORD_FULL -> committedJson.put(realmId, payload);
+            case RECORD_DELETE -> committedJson.remove(realmId);
+            case RECORD_PATCH -> {
+                String base = committedJson.get(realmId);
+                if (base == null) {
+                    logger.warning("Skipping journal patch for realm " + realmId + " without a base record.");
+                    return;
+                }
+                JsonObject merged = JsonParser.parseString(base).getAsJsonObject();
+                for (Map.Entry<String, JsonElement> field : JsonParser.parseString(payload).getAsJsonObject().entrySet()) {
+                    if (field.getValue().isJsonNull()) {
+                        merged.remove(field.getKey());
+                    } else {
+                        merged.add(field.getKey(), field.getValue());
+                    }
+                }
+                committedJson.put(realmId, merged.toString());
+            }
+            default -> logger.warning("Skipping journal record of unknown type " + type + " for realm " + realmId);
+        }
+    }
+
+    private static JsonObject diff(JsonObject previous, JsonObject current) {
+        JsonObject patch = new JsonObject();
+        for (Map.Entry<String, JsonElement> field : current.entrySet()) {
+            if (!field.getValue().equals(previous.get(field.getKey()))) {
+                patch.add(field.getKey(), field.getValue());
+            }
+        }
+        for (String key : previous.keySet()) {
+            if (!current.has(key)) {
+                patch.add(key, JsonNull.INSTANCE);
+            }
+        }
+        return patch;
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, UUID realmId, String payload) throws IOException {
+        byte[] json = payload == null ? new byte[0] : payload.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(17 + json.length);
+        body.put(type).putLong(realmId.getMostSignificantBits()).putLong(realmId.getLeastSignificantBits()).put(json);
+        CRC32C crc = new CRC32C();
+        crc.update(body.array(), 0, body.capacity());
+        out.writeInt(body.capacity());
+        out.writeInt((int) crc.getValue());
+        out.write(body.array());
+    }
+
+    private void rollback(long position) {
+        try {
+            segmentChannel.truncate(position);
+        } catch (IOException e) {
+            // The torn tail is truncated on the next open; keep appending to a clean segment meanwhile.
+            logger.log(Level.SEVERE, "Failed to roll back realm journal segment, starting a new one", e);
+            try {
+                startSegment(currentSegment + 1);
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, "Failed to start a new realm journal segment", ex);
+            }
+        }
+        stagedJson.clear();
+    }
+
+    private void startSegment(long segment) throws IOException {
+        FileChannel next = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        FileChannel previous = segmentChannel;
+        segmentChannel = next;
+        currentSegment = segment;
+        if (previous != null) {
+            previous.force(true);
+            previous.close();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours.
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to list realm journal segments", e);
+        }
+        segments.sort(Long::compare);
+        return segments;
+    }
+}
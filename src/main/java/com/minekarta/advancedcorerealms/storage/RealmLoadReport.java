@@ -0,0 +1,61 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summary of a bulk realm load, used to log and compare cold-start times between releases.
+ */
+public class RealmLoadReport {
+
+    private final String source;
+    private final int filesScanned;
+    private final int realmsLoaded;
+    private final int failures;
+    private final long elapsedNanos;
+
+    /**
+     * @param source       What was scanned, used in the summary line (for example "files").
+     * @param filesScanned The number of entries that were read.
+     * @param realmsLoaded The number of realms that were successfully decoded.
+     * @param failures     The number of entries that could not be decoded.
+     * @param elapsedNanos Wall-clock duration of the load.
+     */
+    public RealmLoadReport(String source, int filesScanned, int realmsLoaded, int failures, long elapsedNanos) {
+        this.source = source;
+        this.filesScanned = filesScanned;
+        this.realmsLoaded = realmsLoaded;
+        this.failures = failures;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getFilesScanned() {
+        return filesScanned;
+    }
+
+    public int getRealmsLoaded() {
+        return realmsLoaded;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * @return The average throughput of the load, in files per second.
+     */
+    public double getFilesPerSecond() {
+        return elapsedNanos == 0 ? filesScanned : filesScanned / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    /**
+     * @return A one-line, human-readable summary suitable for the server log.
+     */
+    public String describe() {
+        return String.format("Loaded %d realms from %d %s in %d ms (%.0f/s, %d failed)",
+                realmsLoaded, filesScanned, source, getElapsedMillis(), getFilesPerSecond(), failures);
+    }
+}
@@ -0,0 +1,85 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.minekarta.advancedcorerealms.data.object.Realm;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The small, immutable subset of a {@link Realm} kept in the {@link RealmMetadataIndex}:
+ * enough to answer name, owner, member and world lookups without loading the realm itself.
+ */
+public final class RealmMetadata {
+
+    static final int FLAG_FLAT = 1;
+    static final int FLAG_KEEP_LOADED = 1 << 1;
+
+    private final UUID realmId;
+    private final UUID owner;
+    private final String name;
+    private final String worldFolderName;
+    private final Set<UUID> members;
+    private final int flags;
+
+    RealmMetadata(UUID realmId, UUID owner, String name, String worldFolderName, Set<UUID> members, int flags) {
+        this.realmId = realmId;
+        this.owner = owner;
+        this.name = name;
+        this.worldFolderName = worldFolderName;
+        this.members = Set.copyOf(members);
+        this.flags = flags;
+    }
+
+    /**
+     * Captures the indexed fields of a realm.
+     *
+     * @param realm The realm to describe.
+     * @return The realm's metadata.
+     */
+    public static RealmMetadata of(Realm realm) {
+        Map<UUID, ?> members = realm.getMembers();
+        int flags = (realm.isFlat() ? FLAG_FLAT : 0) | (realm.isKeepLoaded() ? FLAG_KEEP_LOADED : 0);
+        return new RealmMetadata(realm.getRealmId(), realm.getOwner(), realm.getName(), realm.getWorldFolderName(),
+                members != null ? members.keySet() : Set.of(), flags);
+    }
+
+    public UUID getRealmId() {
+        return realmId;
+    }
+
+    public UUID getOwner() {
+        return owner;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getWorldFolderName() {
+        return worldFolderName;
+    }
+
+    /**
+     * @return The ids of every member, including the owner.
+     */
+    public Set<UUID> getMembers() {
+        return members;
+    }
+
+    public boolean isMember(UUID playerId) {
+        return members.contains(playerId);
+    }
+
+    public boolean isFlat() {
+        return (flags & FLAG_FLAT) != 0;
+    }
+
+    public boolean isKeepLoaded() {
+        return (flags & FLAG_KEEP_LOADED) != 0;
+    }
+
+    int getFlags() {
+        return flags;
+    }
+}
@@ -0,0 +1,447 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.minekarta.advancedcorerealms.data.object.Realm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * A compact index of {@link RealmMetadata} for every stored realm, persisted in a single file so
+ * that realm lookups work immediately after startup without deserializing any realm.
+ *
+ * <p><b>File layout</b> ({@code realm-index.dat}, big-endian):</p>
+ * <ul>
+ *     <li><b>Header</b> (32 bytes): magic, format version, state, storage backend tag, record count,
+ *     heap length and a CRC32C of everything after the header.</li>
+ *     <li><b>Records</b> (64 bytes each): realm id, owner, lower-case name hash, and offset/length pairs
+ *     into the heap for the name, world folder and member list, followed by the realm flags.</li>
+ *     <li><b>Heap</b>: UTF-8 strings and member UUIDs referenced by the records.</li>
+ * </ul>
+ *
+ * <p>The file is read once through a {@link MappedByteBuffer} and is only trusted if it was written by a
+ * clean shutdown: right after it is read, its state is flipped back to "open", so a crash before the next
+ * {@link #save()} forces a rebuild from storage. While the plugin runs, the index lives in memory and is
+ * kept current by {@link StorageManager} on every save and delete. Owner and member lookups are served
+ * from reverse maps, so they cost time proportional to the result, not to the number of realms. Names are
+ * kept sorted, so prefix searches walk only the matching range.</p>
+ */
+public class RealmMetadataIndex {
+
+    private static final int MAGIC = 0x41435249; // "ACRI"
+    private static final short FORMAT_VERSION = 1;
+    private static final short STATE_OPEN = 0;
+    private static final short STATE_CLEAN = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 64;
+    private static final int STATE_OFFSET = 6;
+
+    private final Logger logger;
+    private final Path file;
+    private final int sourceTag;
+    private final ConcurrentMap<UUID, RealmMetadata> byId = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<String, UUID> byName = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, UUID> byWorldFolder = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Set<UUID>> byOwner = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Set<UUID>> byMember = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private boolean persisted;
+
+    /**
+     * @param logger The plugin logger.
+     * @param file   The index file.
+     * @param source Identifies the storage backend; an index written for another backend is discarded.
+     */
+    public RealmMetadataIndex(Logger logger, Path file, String source) {
+        this.logger = logger;
+        this.file = file;
+        this.sourceTag = source.hashCode();
+    }
+
+    /**
+     * Reads the index file if it was written by a clean shutdown of the same storage backend.
+     *
+     * @return true if the index was loaded and is {@link #isReady() ready}; false if it must be rebuilt.
+     */
+    public synchronized boolean load() {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return discard("unexpected size " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != FORMAT_VERSION) {
+                return discard("unknown format");
+            }
+            if (buffer.getShort(STATE_OFFSET) != STATE_CLEAN) {
+                return discard("the server did not shut down cleanly");
+            }
+            if (buffer.getInt(8) != sourceTag) {
+                return discard("it was built for a different storage backend");
+            }
+            int recordCount = buffer.getInt(12);
+            int heapLength = buffer.getInt(16);
+            long heapStart = HEADER_SIZE + (long) recordCount * RECORD_SIZE;
+            if (recordCount < 0 || heapLength < 0 || heapStart + heapLength != size) {
+                return discard("truncated file");
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(HEADER_SIZE, (int) size - HEADER_SIZE));
+            if ((int) crc.getValue() != buffer.getInt(20)) {
+                return discard("checksum mismatch");
+            }
+            ByteBuffer heap = buffer.slice((int) heapStart, heapLength);
+            for (int i = 0; i < recordCount; i++) {
+                RealmMetadata metadata = readRecord(buffer, HEADER_SIZE + i * RECORD_SIZE, heap);
+                if (metadata == null) {
+                    return discard("corrupt record " + i);
+                }
+                add(metadata);
+            }
+
+            // From here on the file no longer describes the live data; only save() may mark it clean again.
+            channel.write(ByteBuffer.allocate(2).putShort(0, STATE_OPEN), STATE_OFFSET);
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Could not read the realm index, it will be rebuilt", e);
+            clear();
+            return false;
+        }
+        ready = true;
+        return true;
+    }
+
+    /**
+     * Writes the index file and marks it clean. Called on shutdown after the last realm write.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public synchronized void save() throws IOException {
+        if (!ready) {
+            // A partially rebuilt index must never be trusted on the next start.
+            Files.deleteIfExists(file);
+            return;
+        }
+        List<RealmMetadata> entries = List.copyOf(byId.values());
+        ByteBuffer records = ByteBuffer.allocate(entries.size() * RECORD_SIZE);
+        ByteArrayOutputStream heap = new ByteArrayOutputStream(entries.size() * 96);
+        for (RealmMetadata metadata : entries) {
+            writeRecord(records, metadata, heap);
+        }
+        byte[] heapBytes = heap.toByteArray();
+
+        CRC32C crc = new CRC32C();
+        crc.update(records.array());
+        crc.update(heapBytes);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putShort(FORMAT_VERSION)
+                .putShort(STATE_CLEAN)
+                .putInt(sourceTag)
+                .putInt(entries.size())
+                .putInt(heapBytes.length)
+                .putInt((int) crc.getValue());
+        AtomicFileWriter.write(file, out -> {
+            out.write(header.array());
+            out.write(records.array());
+            out.write(heapBytes);
+        });
+        persisted = true;
+    }
+
+    /**
+     * @return true once the index covers every stored realm, either loaded from disk or fully rebuilt.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Marks a rebuild as complete.
+     */
+    public void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Records the current metadata of a realm, replacing any previous entry.
+     *
+     * @param realm The saved realm.
+     */
+    public synchronized void put(Realm realm) {
+        RealmMetadata metadata = RealmMetadata.of(realm);
+        RealmMetadata previous = byId.get(metadata.getRealmId());
+        if (previous != null) {
+            unlink(previous);
+        }
+        add(metadata);
+        invalidateFile();
+    }
+
+    /**
+     * Records the current metadata of a realm that is already indexed. Unlike {@link #put(Realm)}, this cannot
+     * bring back a realm that was removed, so it is safe to call with a stale reference to a deleted realm.
+     *
+     * @param realm The saved realm.
+     * @return true if the realm was indexed and its entry was replaced.
+     */
+    public synchronized boolean replace(Realm realm) {
+        if (!byId.containsKey(realm.getRealmId())) {
+            return false;
+        }
+        put(realm);
+        return true;
+    }
+
+    /**
+     * Removes a realm from the index.
+     *
+     * @param realmId The deleted realm.
+     */
+    public synchronized void remove(UUID realmId) {
+        RealmMetadata previous = byId.get(realmId);
+        if (previous != null) {
+            unlink(previous);
+            invalidateFile();
+        }
+    }
+
+    public boolean contains(UUID realmId) {
+        return byId.containsKey(realmId);
+    }
+
+    public Optional<RealmMetadata> get(UUID realmId) {
+        return Optional.ofNullable(byId.get(realmId));
+    }
+
+    /**
+     * @param name The case-insensitive realm name.
+     * @return The id of the realm with that name, if indexed.
+     */
+    public Optional<UUID> findIdByName(String name) {
+        return Optional.ofNullable(byName.get(name.toLowerCase()));
+    }
+
+    /**
+     * Walks the realms whose names start with a prefix, in alphabetical order, stopping as soon as
+     * {@code limit} matches are found. Only the matching range of the sorted name map is visited.
+     *
+     * @param prefix The case-insensitive name prefix; empty for all realms.
+     * @param offset The number of matches to skip, for paging.
+     * @param limit  The maximum number of matches to return.
+     * @param filter Restricts which realms count as matches.
+     * @return Up to {@code limit} matching realms, ordered by name.
+     */
+    public List<RealmMetadata> findByNamePrefix(String prefix, int offset, int limit, Predicate<RealmMetadata> filter) {
+        List<RealmMetadata> matches = new ArrayList<>(Math.min(Math.max(limit, 0), 16));
+        if (limit <= 0) {
+            return matches;
+        }
+        String from = prefix.toLowerCase();
+        int skipped = 0;
+        for (Map.Entry<String, UUID> entry : byName.tailMap(from, true).entrySet()) {
+            if (!entry.getKey().startsWith(from)) {
+                break;
+            }
+            RealmMetadata metadata = byId.get(entry.getValue());
+            if (metadata == null || !filter.test(metadata)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            matches.add(metadata);
+            if (matches.size() >= limit) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    public Optional<UUID> findIdByWorldFolder(String worldFolderName) {
+        return Optional.ofNullable(byWorldFolder.get(worldFolderName));
+    }
+
+    public Set<UUID> findIdsByOwner(UUID ownerUuid) {
+        Set<UUID> realmIds = byOwner.get(ownerUuid);
+        return realmIds != null ? Set.copyOf(realmIds) : Set.of();
+    }
+
+    /**
+     * @param playerUuid The player.
+     * @return The ids of every realm the player is a member of, including owned realms.
+     */
+    public Set<UUID> findIdsByMember(UUID playerUuid) {
+        Set<UUID> realmIds = byMember.get(playerUuid);
+        return realmIds != null ? Set.copyOf(realmIds) : Set.of();
+    }
+
+    /**
+     * @param ownerUuid The owner.
+     * @return The number of realms the player owns.
+     */
+    public int countByOwner(UUID ownerUuid) {
+        Set<UUID> realmIds = byOwner.get(ownerUuid);
+        return realmIds != null ? realmIds.size() : 0;
+    }
+
+    /**
+     * @param playerUuid The player.
+     * @return The number of realms the player is a member of, including owned realms.
+     */
+    public int countByMember(UUID playerUuid) {
+        Set<UUID> realmIds = byMember.get(playerUuid);
+        return realmIds != null ? realmIds.size() : 0;
+    }
+
+    /**
+     * @return The number of indexed realms.
+     */
+    public int size() {
+        return byId.size();
+    }
+
+    private void add(RealmMetadata metadata) {
+        byId.put(metadata.getRealmId(), metadata);
+        byName.put(metadata.getName().toLowerCase(), metadata.getRealmId());
+        byWorldFolder.put(metadata.getWorldFolderName(), metadata.getRealmId());
+        link(byOwner, metadata.getOwner(), metadata.getRealmId());
+        for (UUID member : metadata.getMembers()) {
+            link(byMember, member, metadata.getRealmId());
+        }
+    }
+
+    private void unlink(RealmMetadata metadata) {
+        UUID realmId = metadata.getRealmId();
+        byId.remove(realmId);
+        byName.remove(metadata.getName().toLowerCase(), realmId);
+        byWorldFolder.remove(metadata.getWorldFolderName(), realmId);
+        unlink(byOwner, metadata.getOwner(), realmId);
+        for (UUID member : metadata.getMembers()) {
+            unlink(byMember, member, realmId);
+        }
+    }
+
+    private static void link(ConcurrentMap<UUID, Set<UUID>> index, UUID player, UUID realmId) {
+        index.computeIfAbsent(player, key -> ConcurrentHashMap.newKeySet()).add(realmId);
+    }
+
+    private static void unlink(ConcurrentMap<UUID, Set<UUID>> index, UUID player, UUID realmId) {
+        index.computeIfPresent(player, (key, realmIds) -> {
+            realmIds.remove(realmId);
+            return realmIds.isEmpty() ? null : realmIds;
+        });
+    }
+
+    private void clear() {
+        byId.clear();
+        byName.clear();
+        byWorldFolder.clear();
+        byOwner.clear();
+        byMember.clear();
+    }
+
+    private boolean discard(String reason) {
+        logger.info("Rebuilding the realm index because " + reason + ".");
+        clear();
+        return false;
+    }
+
+    /**
+     * Called after any change once the file has been written, so a stale clean index is never read back.
+     */
+    private void invalidateFile() {
+        if (!persisted) {
+            return;
+        }
+        persisted = false;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not remove the outdated realm index", e);
+        }
+    }
+
+    private static void writeRecord(ByteBuffer records, RealmMetadata metadata, ByteArrayOutputStream heap) {
+        byte[] name = metadata.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] worldFolder = metadata.getWorldFolderName().getBytes(StandardCharsets.UTF_8);
+        int nameOffset = heap.size();
+        heap.writeBytes(name);
+        int worldFolderOffset = heap.size();
+        heap.writeBytes(worldFolder);
+        int membersOffset = heap.size();
+        ByteBuffer members = ByteBuffer.allocate(metadata.getMembers().size() * 16);
+        for (UUID member : metadata.getMembers()) {
+            members.putLong(member.getMostSignificantBits()).putLong(member.getLeastSignificantBits());
+        }
+        heap.writeBytes(members.array());
+
+        records.putLong(metadata.getRealmId().getMostSignificantBits())
+                .putLong(metadata.getRealmId().getLeastSignificantBits())
+                .putLong(metadata.getOwner().getMostSignificantBits())
+                .putLong(metadata.getOwner().getLeastSignificantBits())
+                .putInt(metadata.getName().toLowerCase().hashCode())
+                .putInt(nameOffset)
+                .putInt(name.length)
+                .putInt(worldFolderOffset)
+                .putInt(worldFolder.length)
+                .putInt(membersOffset)
+                .putInt(metadata.getMembers().size())
+                .putInt(metadata.getFlags());
+    }
+
+    private static RealmMetadata readRecord(ByteBuffer buffer, int offset, ByteBuffer heap) {
+        UUID realmId = new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+        UUID owner = new UUID(buffer.getLong(offset + 16), buffer.getLong(offset + 24));
+        int nameHash = buffer.getInt(offset + 32);
+        String name = readString(heap, buffer.getInt(offset + 36), buffer.getInt(offset + 40));
+        String worldFolder = readString(heap, buffer.getInt(offset + 44), buffer.getInt(offset + 48));
+        int membersOffset = buffer.getInt(offset + 52);
+        int memberCount = buffer.getInt(offset + 56);
+        int flags = buffer.getInt(offset + 60);
+        if (name == null || worldFolder == null || name.toLowerCase().hashCode() != nameHash
+                || memberCount < 0 || membersOffset < 0 || (long) membersOffset + memberCount * 16L > heap.capacity()) {
+            return null;
+        }
+        Set<UUID> members = new HashSet<>(memberCount * 2);
+        for (int i = 0; i < memberCount; i++) {
+            int memberOffset = membersOffset + i * 16;
+            members.add(new UUID(heap.getLong(memberOffset), heap.getLong(memberOffset + 8)));
+        }
+        return new RealmMetadata(realmId, owner, name, worldFolder, members, flags);
+    }
+
+    private static String readString(ByteBuffer heap, int offset, int length) {
+        if (offset < 0 || length < 0 || (long) offset + length > heap.capacity()) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        heap.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,87 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.minekarta.advancedcorerealms.data.object.Realm;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * A persistence backend for {@link Realm} data.
+ *
+ * <p>Implementations are blocking and are only called from {@link StorageManager}, which owns
+ * the threading: {@link #save(Realm)}, {@link #commit()} and {@link #delete(UUID)} run on a single
+ * realm writer thread unless {@link #supportsConcurrentWrites()} is true, while reads may run
+ * concurrently on any storage thread.</p>
+ *
+ * <p>{@link #save(Realm)} may buffer; a save is only required to be durable once {@link #commit()}
+ * returns. This lets batching backends turn a whole flush window into one transaction or fsync.</p>
+ */
+public interface RealmStorage {
+
+    /**
+     * Prepares the backend for use, creating files or tables and recovering from an unclean shutdown.
+     *
+     * @throws IOException If the backend cannot be opened.
+     */
+    void open() throws IOException;
+
+    /**
+     * @return true if the backend already holds at least one realm.
+     * @throws IOException If the backend cannot be read.
+     */
+    boolean hasData() throws IOException;
+
+    /**
+     * @param realmId The realm to load.
+     * @return The stored realm, or null if it does not exist.
+     * @throws IOException If the realm cannot be read.
+     */
+    Realm load(UUID realmId) throws IOException;
+
+    /**
+     * Loads every stored realm. The consumer may be called from several threads at once.
+     *
+     * @param consumer Receives each realm.
+     * @return A report with counts and timing.
+     * @throws IOException If the backend cannot be read at all. Individual unreadable realms are counted as failures.
+     */
+    RealmLoadReport loadAll(Consumer<Realm> consumer) throws IOException;
+
+    /**
+     * Records the current state of a realm. Durable no later than the next {@link #commit()}.
+     *
+     * @param realm The realm to save.
+     * @throws IOException If the realm cannot be written.
+     */
+    void save(Realm realm) throws IOException;
+
+    /**
+     * Makes every preceding {@link #save(Realm)} durable.
+     *
+     * @throws IOException If the batch cannot be committed; none of the batch is considered saved.
+     */
+    default void commit() throws IOException {
+    }
+
+    /**
+     * Removes a realm. Durable when the method returns.
+     *
+     * @param realmId The realm to delete.
+     * @throws IOException If the realm cannot be deleted.
+     */
+    void delete(UUID realmId) throws IOException;
+
+    /**
+     * @return true if different realms may be saved, committed and deleted from several threads at once.
+     * Writes of the same realm are always ordered on one thread.
+     */
+    default boolean supportsConcurrentWrites() {
+        return false;
+    }
+
+    /**
+     * Releases files, connections and threads held by the backend. Called after the last write.
+     */
+    void close();
+}
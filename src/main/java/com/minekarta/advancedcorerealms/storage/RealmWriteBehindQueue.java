@@ -0,0 +1,340 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.minekarta.advancedcorerealms.data.object.Realm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A write-behind buffer for realm saves.
+ *
+ * <p>Instead of rewriting a realm's file on every mutation, callers mark the realm dirty and
+ * a flush thread writes each dirty realm once per flush window. Any number of saves
+ * for the same realm inside one window collapse into one write of its latest state.</p>
+ *
+ * <p>Realms are striped across one or more <i>lanes</i> by their id. Each lane has its own flush thread,
+ * so different realms can be written in parallel, while every write and delete of a single realm always
+ * runs in order on the same lane.</p>
+ *
+ * <p><b>Guarantees:</b></p>
+ * <ul>
+ *     <li><b>Completion:</b> the future returned by {@link #enqueue(Realm, boolean)} completes only after
+ *     a write that started after the call has reached disk.</li>
+ *     <li><b>Last write wins:</b> all writes and deletes of a realm run on its lane's thread, so an older
+ *     state of a realm can never overwrite a newer one.</li>
+ *     <li><b>Delete fencing:</b> once {@link #discardAndRun(UUID, StorageTask)} has been called for a realm,
+ *     pending saves of it and saves made until the delete has finished are dropped, so a late save cannot
+ *     bring a deleted realm back. The fence is lifted once the delete has succeeded, so it holds no memory
+ *     for realms that are gone; from then on the writer's {@link RealmWriter#accepts(UUID)} keeps the realm
+ *     out.</li>
+ *     <li><b>Drain:</b> {@link #close()} stops the timers and writes everything that is still pending.</li>
+ * </ul>
+ */
+public class RealmWriteBehindQueue {
+
+    /**
+     * Performs the actual write of a single realm. Only ever invoked from a lane's flush thread;
+     * with several lanes, different lanes call it concurrently for different realms.
+     */
+    @FunctionalInterface
+    public interface RealmWriter {
+        void write(Realm realm) throws IOException;
+
+        /**
+         * Called once after every realm of a flush has been written, before any future completes.
+         * Batching backends make the whole flush durable here, for example with a single fsync.
+         *
+         * @param written The realms written in this flush, in write order.
+         */
+        default void commit(List<Realm> written) throws IOException {
+        }
+
+        /**
+         * Whether saves of a realm are still wanted. Checked under the same lock as the delete fence, so once
+         * this returns false for a realm, no save of it is queued anymore.
+         *
+         * @param realmId The realm about to be queued.
+         * @return false if the realm no longer exists, for example after its delete has finished.
+         */
+        default boolean accepts(UUID realmId) {
+            return true;
+        }
+    }
+
+    /**
+     * A unit of storage work that must be ordered with respect to realm writes.
+     */
+    @FunctionalInterface
+    public interface StorageTask {
+        void run() throws IOException;
+    }
+
+    private final Logger logger;
+    private final RealmWriter writer;
+    private final Lane[] lanes;
+    private final Set<UUID> deletedRealms = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * @param logger              The plugin logger.
+     * @param writer              Writes and commits realms.
+     * @param flushIntervalMillis The flush window.
+     * @param laneCount           The number of independent write lanes; 1 for backends with a single writer.
+     */
+    public RealmWriteBehindQueue(Logger logger, RealmWriter writer, long flushIntervalMillis, int laneCount) {
+        this.logger = logger;
+        this.writer = writer;
+        this.lanes = new Lane[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            String threadName = lanes.length == 1 ? "AdvancedCoreRealms-RealmWriter" : "AdvancedCoreRealms-RealmWriter-" + i;
+            lanes[i] = new Lane(threadName, flushIntervalMillis);
+        }
+    }
+
+    /**
+     * Marks a realm as dirty so that its current state is written in the next flush.
+     *
+     * @param realm  The realm to persist.
+     * @param urgent If true, a flush is triggered immediately instead of waiting for the next window.
+     * @return A future that completes once a write containing this change has hit disk.
+     */
+    public CompletableFuture<Void> enqueue(Realm realm, boolean urgent) {
+        UUID realmId = realm.getRealmId();
+        if (deletedRealms.contains(realmId) || !writer.accepts(realmId)) {
+            return droppedAfterDelete(realm);
+        }
+        if (closed) {
+            return writeNow(realm);
+        }
+        Lane lane = laneFor(realmId);
+        PendingWrite pending = lane.dirtyRealms.compute(realmId, (id, existing) -> {
+            // Checked under the entry lock, so it cannot interleave with the removal in discardAndRun.
+            if (deletedRealms.contains(id) || !writer.accepts(id)) {
+                return null;
+            }
+            if (existing == null) {
+                return new PendingWrite(realm);
+            }
+            existing.realm = realm;
+            return existing;
+        });
+        if (pending == null) {
+            return droppedAfterDelete(realm);
+        }
+        if (urgent) {
+            lane.requestFlush();
+        }
+        return pending.future;
+    }
+
+    /**
+     * Fences a realm against further saves, drops any pending write for it and runs the given task on
+     * the realm's lane, after every write of it that was already in progress. Used for deletes.
+     * The fence is lifted when the task succeeds, so the task must also make {@link RealmWriter#accepts(UUID)}
+     * return false for the realm.
+     *
+     * @param realmId The realm whose pending and future writes should be discarded.
+     * @param task    The storage work to run in order.
+     * @return A future that completes when the task has finished.
+     */
+    public CompletableFuture<Void> discardAndRun(UUID realmId, StorageTask task) {
+        deletedRealms.add(realmId);
+        Lane lane = laneFor(realmId);
+        PendingWrite discarded = lane.dirtyRealms.remove(realmId);
+        if (discarded != null) {
+            discarded.future.complete(null);
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Runnable ordered = () -> {
+            try {
+                task.run();
+                // Runs on the realm's lane after every earlier write of it, and the fence kept new ones out;
+                // the task made the writer reject the realm, which keeps later saves out
+                deletedRealms.remove(realmId);
+                result.complete(null);
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        };
+        if (closed) {
+            ordered.run();
+            return result;
+        }
+        try {
+            lane.executor.execute(ordered);
+        } catch (RejectedExecutionException e) {
+            ordered.run();
+        }
+        return result;
+    }
+
+    /**
+     * @param realmId The realm to check.
+     * @return true if the realm is being deleted through {@link #discardAndRun(UUID, StorageTask)}, or its delete failed.
+     */
+    public boolean isDeleted(UUID realmId) {
+        return deletedRealms.contains(realmId);
+    }
+
+    /**
+     * @param realmId The realm to look up.
+     * @return The realm state waiting to be written, or null if nothing is pending for it.
+     */
+    public Realm getPending(UUID realmId) {
+        PendingWrite pending = laneFor(realmId).dirtyRealms.get(realmId);
+        return pending != null ? pending.realm : null;
+    }
+
+    /**
+     * @return The number of realms currently waiting to be written.
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (Lane lane : lanes) {
+            count += lane.dirtyRealms.size();
+        }
+        return count;
+    }
+
+    /**
+     * Stops the flush timers and synchronously writes every pending realm.
+     * Saves enqueued after this call are written directly on the calling thread.
+     */
+    public void close() {
+        closed = true;
+        for (Lane lane : lanes) {
+            lane.executor.shutdown();
+        }
+        try {
+            for (Lane lane : lanes) {
+                if (!lane.executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    logger.warning("Timed out waiting for the realm writer to finish its current flush.");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = getPendingCount();
+        for (Lane lane : lanes) {
+            lane.flush();
+        }
+        if (remaining > 0) {
+            logger.info("Flushed " + remaining + " pending realm save(s) on shutdown.");
+        }
+    }
+
+    private Lane laneFor(UUID realmId) {
+        return lanes[Math.floorMod(realmId.hashCode(), lanes.length)];
+    }
+
+    private CompletableFuture<Void> droppedAfterDelete(Realm realm) {
+        logger.fine("Ignoring save of deleted realm " + realm.getName());
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private CompletableFuture<Void> writeNow(Realm realm) {
+        try {
+            writer.write(realm);
+            writer.commit(List.of(realm));
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.SEVERE, "Failed to save realm " + realm.getName(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * One stripe of the queue: a dirty set and the single thread that flushes it.
+     */
+    private final class Lane {
+        private final ScheduledExecutorService executor;
+        private final ConcurrentMap<UUID, PendingWrite> dirtyRealms = new ConcurrentHashMap<>();
+
+        private Lane(String threadName, long flushIntervalMillis) {
+            this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor.scheduleWithFixedDelay(this::flushSafely, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void requestFlush() {
+            try {
+                executor.execute(this::flushSafely);
+            } catch (RejectedExecutionException ignored) {
+                // Closing; the final drain in close() picks up the pending write.
+            }
+        }
+
+        private void flushSafely() {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Unexpected error while flushing realm saves", e);
+            }
+        }
+
+        private void flush() {
+            if (dirtyRealms.isEmpty()) {
+                return;
+            }
+            List<UUID> realmIds = new ArrayList<>(dirtyRealms.keySet());
+            List<PendingWrite> written = new ArrayList<>(realmIds.size());
+            for (UUID realmId : realmIds) {
+                PendingWrite pending = dirtyRealms.remove(realmId);
+                if (pending == null) {
+                    continue;
+                }
+                try {
+                    writer.write(pending.realm);
+                    written.add(pending);
+                } catch (IOException | RuntimeException e) {
+                    logger.log(Level.SEVERE, "Failed to save realm " + pending.realm.getName() + ", it will be retried on the next flush", e);
+                    retryLater(pending, e);
+                }
+            }
+            if (written.isEmpty()) {
+                return;
+            }
+            try {
+                writer.commit(written.stream().map(pending -> pending.realm).toList());
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.SEVERE, "Failed to commit " + written.size() + " realm save(s), they will be retried on the next flush", e);
+                written.forEach(pending -> retryLater(pending, e));
+                return;
+            }
+            written.forEach(pending -> pending.future.complete(null));
+        }
+
+        private void retryLater(PendingWrite pending, Throwable cause) {
+            // Keep the realm dirty so the data is not lost, but fail the callers of this attempt.
+            UUID realmId = pending.realm.getRealmId();
+            if (!deletedRealms.contains(realmId) && writer.accepts(realmId)) {
+                dirtyRealms.putIfAbsent(realmId, new PendingWrite(pending.realm));
+            }
+            pending.future.completeExceptionally(cause);
+        }
+    }
+
+    private static final class PendingWrite {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private volatile Realm realm;
+
+        private PendingWrite(Realm realm) {
+            this.realm = realm;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.google.gson.Gson;
+import com.minekarta.advancedcorerealms.data.object.Realm;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores realms in an embedded, file-backed SQLite database.
+ *
+ * <p>Each realm is one row holding its JSON, keyed by realm id. The owner, name and world folder are
+ * copied into plain columns for people inspecting the database; lookups by them are answered by the
+ * {@link RealmMetadataIndex}, so they are not indexed here. Saves are collected and written by
+ * {@link #commit()} as a single batched upsert inside one transaction.</p>
+ *
+ * <p>The SQLite JDBC driver ships with Paper and Spigot, so no extra library is needed on the server.
+ * Writes use their own connection on the writer thread; reads share a second connection, which
+ * WAL mode allows to proceed while a write is in progress.</p>
+ */
+public class SqliteRealmStorage implements RealmStorage {
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS realms ("
+            + "realm_id TEXT PRIMARY KEY NOT NULL, "
+            + "owner TEXT NOT NULL, "
+            + "name TEXT NOT NULL, "
+            + "name_lower TEXT NOT NULL, "
+            + "world_folder TEXT NOT NULL, "
+            + "data TEXT NOT NULL, "
+            + "updated_at INTEGER NOT NULL)";
+    private static final String UPSERT = "INSERT INTO realms (realm_id, owner, name, name_lower, world_folder, data, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT(realm_id) DO UPDATE SET owner = excluded.owner, name = excluded.name, name_lower = excluded.name_lower, "
+            + "world_folder = excluded.world_folder, data = excluded.data, updated_at = excluded.updated_at";
+
+    private final Logger logger;
+    private final Gson gson;
+    private final File databaseFile;
+    private final List<Realm> pendingSaves = new ArrayList<>();
+    private final Object readLock = new Object();
+    private Connection writeConnection;
+    private Connection readConnection;
+
+    /**
+     * @param logger       The plugin logger.
+     * @param gson         Gson instance used to encode the realm column.
+     * @param databaseFile The SQLite database file; created if missing.
+     */
+    public SqliteRealmStorage(Logger logger, Gson gson, File databaseFile) {
+        this.logger = logger;
+        this.gson = gson;
+        this.databaseFile = databaseFile;
+    }
+
+    @Override
+    public void open() throws IOException {
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            throw new IOException("The SQLite JDBC driver is not available on this server", e);
+        }
+        String url = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
+        try {
+            writeConnection = DriverManager.getConnection(url);
+            try (Statement statement = writeConnection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                // FULL makes every commit durable, which the write-behind queue relies on.
+                statement.execute("PRAGMA synchronous=FULL");
+                statement.execute(CREATE_TABLE);
+                // Created by earlier versions; nothing queries these columns, so the indexes only slowed down upserts.
+                statement.execute("DROP INDEX IF EXISTS idx_realms_owner");
+                statement.execute("DROP INDEX IF EXISTS idx_realms_name");
+                statement.execute("DROP INDEX IF EXISTS idx_realms_world_folder");
+            }
+            writeConnection.setAutoCommit(false);
+            writeConnection.commit();
+            readConnection = DriverManager.getConnection(url);
+        } catch (SQLException e) {
+            close();
+            throw new IOException("Could not open realm database " + databaseFile, e);
+        }
+    }
+
+    @Override
+    public boolean hasData() throws IOException {
+        synchronized (readLock) {
+            try (Statement statement = readConnection.createStatement();
+                 ResultSet result = statement.executeQuery("SELECT 1 FROM realms LIMIT 1")) {
+                return result.next();
+            } catch (SQLException e) {
+                throw new IOException("Failed to query realm database", e);
+            }
+        }
+    }
+
+    @Override
+    public Realm load(UUID realmId) throws IOException {
+        synchronized (readLock) {
+            try (PreparedStatement statement = readConnection.prepareStatement("SELECT data FROM realms WHERE realm_id = ?")) {
+                statement.setString(1, realmId.toString());
+                try (ResultSet result = statement.executeQuery()) {
+                    return result.next() ? gson.fromJson(result.getString(1), Realm.class) : null;
+                }
+            } catch (SQLException e) {
+                throw new IOException("Failed to load realm " + realmId, e);
+            }
+        }
+    }
+
+    @Override
+    public RealmLoadReport loadAll(Consumer<Realm> consumer) throws IOException {
+        long startNanos = System.nanoTime();
+        int rows = 0;
+        int failed = 0;
+        synchronized (readLock) {
+            try (Statement statement = readConnection.createStatement()) {
+                statement.setFetchSize(512);
+                try (ResultSet result = statement.executeQuery("SELECT realm_id, data FROM realms")) {
+                    while (result.next()) {
+                        rows++;
+                        try {
+                            consumer.accept(gson.fromJson(result.getString(2), Realm.class));
+                        } catch (RuntimeException e) {
+                            failed++;
+                            logger.log(Level.SEVERE, "Failed to decode realm " + result.getString(1) + " from the database", e);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IOException("Failed to load realms from the database", e);
+            }
+        }
+        return new RealmLoadReport("rows", rows, rows - failed, failed, System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public void save(Realm realm) {
+        pendingSaves.add(realm);
+    }
+
+    @Override
+    public void commit() throws IOException {
+        if (pendingSaves.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (PreparedStatement statement = writeConnection.prepareStatement(UPSERT)) {
+            for (Realm realm : pendingSaves) {
+                statement.setString(1, realm.getRealmId().toString());
+                statement.setString(2, realm.getOwner().toString());
+                statement.setString(3, realm.getName());
+                statement.setString(4, realm.getName().toLowerCase());
+                statement.setString(5, realm.getWorldFolderName());
+                statement.setString(6, gson.toJson(realm, Realm.class));
+                statement.setLong(7, now);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            writeConnection.commit();
+        } catch (SQLException | RuntimeException e) {
+            rollbackQuietly();
+            throw new IOException("Failed to write " + pendingSaves.size() + " realm(s) to the database", e);
+        } finally {
+            pendingSaves.clear();
+        }
+    }
+
+    @Override
+    public void delete(UUID realmId) throws IOException {
+        // Keep writes ordered: anything saved earlier in this flush goes in first.
+        commit();
+        try (PreparedStatement statement = writeConnection.prepareStatement("DELETE FROM realms WHERE realm_id = ?")) {
+            statement.setString(1, realmId.toString());
+            statement.executeUpdate();
+            writeConnection.commit();
+        } catch (SQLException e) {
+            rollbackQuietly();
+            throw new IOException("Failed to delete realm " + realmId + " from the database", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(readConnection);
+        closeQuietly(writeConnection);
+        readConnection = null;
+        writeConnection = null;
+    }
+
+    private void rollbackQuietly() {
+        try {
+            writeConnection.rollback();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to roll back realm database transaction", e);
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to close realm database connection", e);
+        }
+    }
+}
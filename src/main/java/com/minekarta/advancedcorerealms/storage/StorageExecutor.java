@@ -0,0 +1,211 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The plugin's executor for blocking storage I/O, used instead of {@code ForkJoinPool.commonPool()}
+ * so file and database work never competes with parallel streams or other plugins.
+ *
+ * <p><b>Backends:</b> either one virtual thread per task, or a fixed pool of platform threads.</p>
+ *
+ * <p><b>Backpressure:</b> at most {@code maxPending} tasks may be queued or running. When that limit is
+ * reached, {@link #execute(Runnable)} waits up to the saturation timeout for a slot and then runs the
+ * task on the calling thread, which slows the producer down without ever dropping a write. The server
+ * thread never waits or runs storage work itself: its tasks are queued past the limit instead.</p>
+ *
+ * <p><b>Shutdown:</b> {@link #shutdown(long)} stops accepting new tasks and waits for queued and
+ * running tasks; anything submitted afterwards runs on the caller.</p>
+ */
+public class StorageExecutor implements Executor {
+
+    /**
+     * The available thread models.
+     */
+    public enum Type {
+        /** A new virtual thread for every task. */
+        VIRTUAL,
+        /** A fixed pool of platform threads. */
+        PLATFORM
+    }
+
+    private final Logger logger;
+    private final Type type;
+    private final ExecutorService delegate;
+    private final Semaphore slots;
+    private final int maxPending;
+    private final long saturationTimeoutMillis;
+    private final BooleanSupplier mainThread;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder overLimit = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private volatile boolean shutdown;
+
+    /**
+     * @param logger                  The plugin logger.
+     * @param type                    The thread model.
+     * @param platformThreads         The pool size for {@link Type#PLATFORM}.
+     * @param maxPending              The maximum number of queued plus running tasks.
+     * @param saturationTimeoutMillis How long a submitter waits for a free slot before running the task itself.
+     * @param mainThread              Tells whether the caller is the server thread, which is never blocked.
+     */
+    public StorageExecutor(Logger logger, Type type, int platformThreads, int maxPending, long saturationTimeoutMillis,
+                           BooleanSupplier mainThread) {
+        this.logger = logger;
+        this.type = type;
+        this.maxPending = maxPending;
+        this.slots = new Semaphore(maxPending);
+        this.saturationTimeoutMillis = saturationTimeoutMillis;
+        this.mainThread = mainThread;
+        if (type == Type.VIRTUAL) {
+            ThreadFactory factory = Thread.ofVirtual().name("AdvancedCoreRealms-IO-", 0).factory();
+            this.delegate = Executors.newThreadPerTaskExecutor(factory);
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            // The queue is unbounded because the semaphore already caps how many tasks can be in it.
+            this.delegate = new ThreadPoolExecutor(platformThreads, platformThreads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "AdvancedCoreRealms-IO-" + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submitted.increment();
+        if (shutdown) {
+            callerRuns.increment();
+            runMeasured(task, 0L);
+            return;
+        }
+        boolean holdsSlot;
+        if (mainThread.getAsBoolean()) {
+            // A tick must not stall on disk I/O; the delegate's queue is unbounded, so go past the limit
+            holdsSlot = slots.tryAcquire();
+            if (!holdsSlot) {
+                overLimit.increment();
+            }
+        } else if (acquireSlot()) {
+            holdsSlot = true;
+        } else {
+            callerRuns.increment();
+            runMeasured(task, 0L);
+            return;
+        }
+        long queuedAt = System.nanoTime();
+        pending.incrementAndGet();
+        try {
+            delegate.execute(() -> {
+                try {
+                    runMeasured(task, System.nanoTime() - queuedAt);
+                } finally {
+                    pending.decrementAndGet();
+                    if (holdsSlot) {
+                        slots.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Lost a race with shutdown; the task still has to run.
+            pending.decrementAndGet();
+            if (holdsSlot) {
+                slots.release();
+            }
+            callerRuns.increment();
+            runMeasured(task, 0L);
+        }
+    }
+
+    private boolean acquireSlot() {
+        if (slots.tryAcquire()) {
+            return true;
+        }
+        try {
+            return slots.tryAcquire(saturationTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void runMeasured(Runnable task, long waitedNanos) {
+        queueNanos.add(waitedNanos);
+        maxQueueNanos.accumulateAndGet(waitedNanos, Math::max);
+        long startNanos = System.nanoTime();
+        try {
+            task.run();
+            completed.increment();
+        } catch (RuntimeException | Error e) {
+            failed.increment();
+            throw e;
+        } finally {
+            runNanos.add(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Stops accepting new tasks and waits for every queued and running task to finish.
+     *
+     * @param timeoutMillis The maximum time to wait.
+     * @return true if all tasks finished in time.
+     */
+    public boolean shutdown(long timeoutMillis) {
+        shutdown = true;
+        delegate.shutdown();
+        try {
+            if (delegate.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.log(Level.WARNING, pending.get() + " storage task(s) were still running after " + timeoutMillis + " ms.");
+        return false;
+    }
+
+    /**
+     * @return The number of tasks that are queued or running.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * @return The configured thread model.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return A one-line summary of throughput, saturation and latency since startup.
+     */
+    public String describe() {
+        long done = Math.max(1L, completed.sum() + failed.sum());
+        return String.format("Storage I/O (%s): %d submitted, %d pending of %d, %d failed, %d ran on caller, "
+                        + "%d queued over the limit by the server thread, avg wait %.2f ms (max %.2f ms), avg run %.2f ms",
+                type.name().toLowerCase(), submitted.sum(), pending.get(), maxPending, failed.sum(), callerRuns.sum(), overLimit.sum(),
+                queueNanos.sum() / 1_000_000.0 / done, maxQueueNanos.get() / 1_000_000.0, runNanos.sum() / 1_000_000.0 / done);
+    }
+}
@@ -3,135 +3,286 @@ package com.minekarta.advancedcorerealms.storage;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
+import com.minekarta.advancedcorerealms.config.StorageConfig;
 import com.minekarta.advancedcorerealms.data.object.Realm;
 import com.minekarta.advancedcorerealms.utils.InstantAdapter;
 import com.minekarta.advancedcorerealms.utils.UUIDAdapter;
+import org.bukkit.Bukkit;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 import java.util.logging.Level;
-import java.util.stream.Stream;
 
 /**
- * Manages the persistence of Realm data using JSON files.
- * Each realm is stored as a separate .json file in the 'realms' directory.
+ * Manages the persistence of Realm data.
+ * The actual storage is delegated to a {@link RealmStorage} backend chosen by {@code storage.backend}:
+ * one JSON file per realm (the default), a log-structured {@link RealmJournal}, or an embedded SQLite database.
+ * Saves go through a {@link RealmWriteBehindQueue}, so bursts of updates to the same realm
+ * result in a single write per flush window, and batching backends commit each window as one unit.
+ * Writes of one realm are always ordered; backends that allow it write different realms on parallel lanes.
+ * Saves and deletes are mirrored into a {@link RealmMetadataIndex}, which is persisted on
+ * shutdown so lookups work right after the next start without loading any realm.
  */
 public class StorageManager {
 
     private final AdvancedCoreRealms plugin;
+    private final StorageConfig storageConfig;
     private final File realmsDir;
     private final Gson gson;
+    private final StorageExecutor ioExecutor;
+    private final RealmStorage storage;
+    private final RealmMetadataIndex metadataIndex;
+    private final RealmWriteBehindQueue writeQueue;
 
     public StorageManager(AdvancedCoreRealms plugin) {
         this.plugin = plugin;
+        this.storageConfig = new StorageConfig(plugin.getConfig());
         this.realmsDir = new File(plugin.getDataFolder(), "realms");
-        if (!realmsDir.exists() && !realmsDir.mkdirs()) {
-            plugin.getLogger().severe("Could not create realms storage directory!");
-        }
 
-        this.gson = new GsonBuilder()
+        GsonBuilder gsonBuilder = new GsonBuilder()
                 .registerTypeAdapter(UUID.class, new UUIDAdapter())
-                .registerTypeAdapter(Instant.class, new InstantAdapter())
-                .setPrettyPrinting()
-                .create();
+                .registerTypeAdapter(Instant.class, new InstantAdapter());
+        // Pretty printing only helps people reading the JSON files; other backends always store compact JSON.
+        if (storageConfig.isPrettyPrint() && storageConfig.getBackend() == StorageConfig.Backend.JSON) {
+            gsonBuilder.setPrettyPrinting();
+        }
+        this.gson = gsonBuilder.create();
+
+        this.ioExecutor = new StorageExecutor(plugin.getLogger(), storageConfig.getIoExecutorType(), storageConfig.getIoThreads(),
+                storageConfig.getIoMaxPending(), storageConfig.getIoSaturationTimeoutMillis(), Bukkit::isPrimaryThread);
+        this.storage = openStorage(storageConfig);
+        this.metadataIndex = new RealmMetadataIndex(plugin.getLogger(),
+                new File(plugin.getDataFolder(), "realm-index.dat").toPath(), storageConfig.getBackend().name());
+        metadataIndex.load();
+        this.writeQueue = new RealmWriteBehindQueue(plugin.getLogger(), new RealmWriteBehindQueue.RealmWriter() {
+            @Override
+            public void write(Realm realm) throws IOException {
+                storage.save(realm);
+            }
+
+            @Override
+            public void commit(List<Realm> written) throws IOException {
+                storage.commit();
+            }
+
+            @Override
+            public boolean accepts(UUID realmId) {
+                // A deleted realm has left the index, so a stale reference to it cannot write it again.
+                return metadataIndex.contains(realmId);
+            }
+        }, storageConfig.getFlushIntervalMillis(), storage.supportsConcurrentWrites() ? storageConfig.getWriteLanes() : 1);
+    }
+
+    private RealmStorage openStorage(StorageConfig storageConfig) {
+        JsonRealmStorage jsonStorage = new JsonRealmStorage(plugin.getLogger(), gson, realmsDir, storageConfig.getLoadThreads());
+        RealmStorage selected = switch (storageConfig.getBackend()) {
+            case JSON -> jsonStorage;
+            case JOURNAL -> new RealmJournal(plugin.getLogger(), gson,
+                    new File(plugin.getDataFolder(), "realm-journal").toPath(), storageConfig.getJournalCompactionThresholdBytes());
+            case SQLITE -> new SqliteRealmStorage(plugin.getLogger(), gson,
+                    new File(plugin.getDataFolder(), storageConfig.getSqliteFile()));
+        };
+        try {
+            selected.open();
+            if (selected != jsonStorage && !selected.hasData() && jsonStorage.hasData()) {
+                migrateFromJson(jsonStorage, selected, storageConfig.getBackend());
+            }
+        } catch (IOException e) {
+            // Refuse to continue on an unreadable backend: silently starting empty would lose every realm.
+            selected.close();
+            throw new IllegalStateException("Could not open the " + storageConfig.getBackend().name().toLowerCase() + " realm storage", e);
+        }
+        plugin.getLogger().info("Using " + storageConfig.getBackend().name().toLowerCase() + " realm storage.");
+        return selected;
     }
 
     /**
-     * Asynchronously saves a realm to its corresponding JSON file.
+     * One-shot migration from the per-realm JSON layout into an empty backend.
+     * The realms are written as a single commit, and the old directory is kept as {@code realms-migrated}
+     * so it can be inspected or restored by hand.
+     */
+    private void migrateFromJson(JsonRealmStorage source, RealmStorage target, StorageConfig.Backend backend) throws IOException {
+        source.open();
+        plugin.getLogger().info("Migrating realm files into " + backend.name().toLowerCase() + " storage...");
+        Queue<Realm> realms = new ConcurrentLinkedQueue<>();
+        RealmLoadReport report = source.loadAll(realms::add);
+        if (report.getFailures() > 0) {
+            throw new IOException(report.getFailures() + " realm files could not be read; fix or remove them before migrating");
+        }
+        for (Realm realm : realms) {
+            target.save(realm);
+        }
+        target.commit();
+        if (target instanceof RealmJournal journal) {
+            journal.compactNow();
+        }
+
+        File backupDir = new File(plugin.getDataFolder(), "realms-migrated");
+        if (backupDir.exists()) {
+            backupDir = new File(plugin.getDataFolder(), "realms-migrated-" + System.currentTimeMillis());
+        }
+        Files.move(realmsDir.toPath(), backupDir.toPath());
+        plugin.getLogger().info("Migrated " + realms.size() + " realms. The old files were moved to " + backupDir.getName() + ".");
+    }
+
+    /**
+     * Marks a realm for saving. The write is deferred to the next flush window and coalesced
+     * with any other saves of the same realm made in the meantime. The realm index is updated right away,
+     * so lookups reflect the change before it is flushed. Saves of a realm that is not indexed, such as one
+     * deleted while a menu or an update still held it, are dropped.
      *
      * @param realm The realm to save.
-     * @return A CompletableFuture that completes when the save operation is done.
+     * @return A CompletableFuture that completes once a write containing the realm's current state is on disk.
      */
     public CompletableFuture<Void> saveRealm(Realm realm) {
-        return CompletableFuture.runAsync(() -> {
-            File realmFile = new File(realmsDir, realm.getRealmId().toString() + ".json");
-            try (FileWriter writer = new FileWriter(realmFile)) {
-                gson.toJson(realm, writer);
-            } catch (IOException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to save realm " + realm.getName(), e);
-                throw new RuntimeException("Failed to save realm", e);
-            }
-        });
+        // Only the snapshot is handed to the writer threads, so later changes on the main thread cannot tear it.
+        Realm snapshot = realm.snapshot();
+        if (!writeQueue.isDeleted(snapshot.getRealmId())) {
+            metadataIndex.replace(snapshot);
+        }
+        return writeQueue.enqueue(snapshot, false);
     }
 
     /**
-     * Asynchronously loads a single realm from its JSON file.
+     * Saves a realm in the next flush, which is triggered right away instead of waiting for the window to elapse.
+     * Intended for realm creation, where the caller waits on the result: unlike {@link #saveRealm(Realm)}, this
+     * adds a realm that is not indexed yet, so it must not be called with a realm that may have been deleted.
+     *
+     * @param realm The realm to save.
+     * @return A CompletableFuture that completes once the realm is on disk.
+     */
+    public CompletableFuture<Void> saveRealmNow(Realm realm) {
+        Realm snapshot = realm.snapshot();
+        if (!writeQueue.isDeleted(snapshot.getRealmId())) {
+            metadataIndex.put(snapshot);
+        }
+        return writeQueue.enqueue(snapshot, true);
+    }
+
+    /**
+     * Waits for in-flight storage I/O, flushes every pending realm save, writes the realm index
+     * and stops the background threads.
+     * Must be called from the plugin's onDisable.
+     */
+    public void shutdown() {
+        // In-flight I/O may still enqueue realm saves, so it has to finish before the queue is drained.
+        ioExecutor.shutdown(30_000L);
+        plugin.getLogger().info(ioExecutor.describe());
+        writeQueue.close();
+        try {
+            metadataIndex.save();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to write the realm index, it will be rebuilt on the next start", e);
+        }
+        storage.close();
+    }
+
+    /**
+     * Asynchronously loads a single realm from storage.
      *
      * @param realmId The UUID of the realm to load.
      * @return A CompletableFuture containing the loaded Realm, or null if not found.
      */
     public CompletableFuture<Realm> loadRealm(UUID realmId) {
+        Realm pending = writeQueue.getPending(realmId);
+        if (pending != null) {
+            // The buffered state is newer than anything in storage; copy it so the writer's snapshot stays private.
+            return CompletableFuture.completedFuture(pending.snapshot());
+        }
         return CompletableFuture.supplyAsync(() -> {
-            File realmFile = new File(realmsDir, realmId.toString() + ".json");
-            if (!realmFile.exists()) {
-                return null;
-            }
-            try (FileReader reader = new FileReader(realmFile)) {
-                return gson.fromJson(reader, Realm.class);
+            try {
+                return loadRealmBlocking(realmId);
             } catch (IOException e) {
                 plugin.getLogger().log(Level.SEVERE, "Failed to load realm " + realmId, e);
                 throw new RuntimeException("Failed to load realm", e);
             }
-        });
+        }, ioExecutor);
+    }
+
+    /**
+     * Loads a single realm on the calling thread, preferring a state that is still waiting to be written.
+     * Intended for loaders that already run off the main thread.
+     *
+     * @param realmId The UUID of the realm to load.
+     * @return The loaded Realm, or null if not found.
+     * @throws IOException If the realm could not be read.
+     */
+    public Realm loadRealmBlocking(UUID realmId) throws IOException {
+        Realm pending = writeQueue.getPending(realmId);
+        return pending != null ? pending.snapshot() : storage.load(realmId);
     }
 
     /**
-     * Asynchronously loads all realms from the storage directory.
+     * Asynchronously loads all realms from storage. JSON files are parsed on a bounded worker pool.
+     * Realms are handed to the consumer as soon as they are parsed, possibly from several threads.
      *
-     * @return A CompletableFuture containing a list of all loaded realms.
+     * @param consumer Thread-safe callback receiving each loaded realm.
+     * @return A CompletableFuture containing a timing summary once every realm has been processed.
      */
-    public CompletableFuture<List<Realm>> loadAllRealms() {
+    public CompletableFuture<RealmLoadReport> loadAllRealms(Consumer<Realm> consumer) {
         return CompletableFuture.supplyAsync(() -> {
-            List<Realm> realms = new ArrayList<>();
-            if (!realmsDir.exists()) {
-                return realms;
-            }
-            try (Stream<Path> paths = Files.walk(realmsDir.toPath())) {
-                paths.filter(Files::isRegularFile)
-                     .filter(path -> path.toString().endsWith(".json"))
-                     .forEach(path -> {
-                         try (FileReader reader = new FileReader(path.toFile())) {
-                             Realm realm = gson.fromJson(reader, Realm.class);
-                             if (realm != null) {
-                                 realms.add(realm);
-                             }
-                         } catch (IOException e) {
-                             plugin.getLogger().log(Level.SEVERE, "Failed to load realm from file " + path, e);
-                         }
-                     });
+            try {
+                // A full load doubles as an index rebuild.
+                RealmLoadReport report = storage.loadAll(realm -> {
+                    metadataIndex.put(realm);
+                    consumer.accept(realm);
+                });
+                metadataIndex.markReady();
+                return report;
             } catch (IOException e) {
-                plugin.getLogger().log(Level.SEVERE, "Failed to walk realms directory", e);
+                plugin.getLogger().log(Level.SEVERE, "Failed to load realms", e);
+                throw new RuntimeException("Failed to load realms", e);
             }
-            return realms;
-        });
+        }, ioExecutor);
     }
 
     /**
-     * Asynchronously deletes a realm's JSON file.
+     * Asynchronously deletes a realm from storage, discarding any save of it that is still buffered.
      *
      * @param realmId The UUID of the realm to delete.
      * @return A CompletableFuture that completes when the deletion is done.
      */
     public CompletableFuture<Void> deleteRealm(UUID realmId) {
-        return CompletableFuture.runAsync(() -> {
-            File realmFile = new File(realmsDir, realmId.toString() + ".json");
-            if (realmFile.exists()) {
-                try {
-                    Files.delete(realmFile.toPath());
-                } catch (IOException e) {
-                    plugin.getLogger().log(Level.SEVERE, "Failed to delete realm file " + realmId, e);
-                    throw new RuntimeException("Failed to delete realm file", e);
-                }
-            }
+        // Run on the writer thread so a buffered save of this realm cannot recreate it afterwards.
+        return writeQueue.discardAndRun(realmId, () -> {
+            storage.delete(realmId);
+            metadataIndex.remove(realmId);
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * @return The executor for blocking storage I/O. Use it instead of the common pool for any file or database work.
+     */
+    public StorageExecutor getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * @return The number of realms with changes that are buffered but not yet written.
+     */
+    public int getPendingWriteCount() {
+        return writeQueue.getPendingCount();
+    }
+
+    /**
+     * @return The storage settings read from config.yml at startup.
+     */
+    public StorageConfig getStorageConfig() {
+        return storageConfig;
+    }
+
+    /**
+     * @return The in-memory index of realm names, owners, members and worlds, kept current with every save and delete.
+     */
+    public RealmMetadataIndex getMetadataIndex() {
+        return metadataIndex;
+    }
+}
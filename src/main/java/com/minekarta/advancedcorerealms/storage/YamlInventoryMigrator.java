@@ -0,0 +1,142 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.minekarta.advancedcorerealms.AdvancedCoreRealms;
+import com.minekarta.advancedcorerealms.data.object.SerializedInventory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Moves inventories from the {@link YamlInventoryStorage} layout ({@code inventories/<realm>/<player>.yml})
+ * into a {@link PackedInventoryStorage}.
+ *
+ * <p>Files are grouped by player, so each player's packed file is written once with all of their realms.
+ * Entries that already exist in the packed store are newer than the YAML file and are kept. Migrated files are
+ * moved to {@code inventories-migrated}; files that fail stay where they are and are retried on the next start.</p>
+ */
+public class YamlInventoryMigrator {
+
+    private final Logger logger;
+    private final File legacyDir;
+    private final File backupDir;
+    private final PackedInventoryStorage target;
+    private final Executor ioExecutor;
+
+    public YamlInventoryMigrator(AdvancedCoreRealms plugin, PackedInventoryStorage target) {
+        this.logger = plugin.getLogger();
+        this.legacyDir = new File(plugin.getDataFolder(), "inventories");
+        this.backupDir = new File(plugin.getDataFolder(), "inventories-migrated");
+        this.target = target;
+        this.ioExecutor = plugin.getStorageManager().getIoExecutor();
+    }
+
+    /**
+     * Migrates every YAML inventory that is still present, waiting until all players are done.
+     */
+    public void migrateIfNeeded() {
+        Map<UUID, Map<UUID, File>> filesByPlayer = scan();
+        if (filesByPlayer.isEmpty()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        logger.info("Migrating YAML inventories of " + filesByPlayer.size() + " players into packed storage...");
+        AtomicInteger migratedFiles = new AtomicInteger();
+        AtomicInteger failedPlayers = new AtomicInteger();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(filesByPlayer.size());
+        for (Map.Entry<UUID, Map<UUID, File>> entry : filesByPlayer.entrySet()) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    migratedFiles.addAndGet(migratePlayer(entry.getKey(), entry.getValue()));
+                } catch (IOException | RuntimeException e) {
+                    failedPlayers.incrementAndGet();
+                    logger.log(Level.WARNING, "Could not migrate the inventories of player " + entry.getKey(), e);
+                }
+            }, ioExecutor));
+        }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+        deleteEmptyRealmDirectories();
+        logger.info(String.format("Migrated %d inventory files in %.1f s; the originals were moved to %s.%s",
+                migratedFiles.get(), (System.nanoTime() - startNanos) / 1_000_000_000.0, backupDir.getName(),
+                failedPlayers.get() > 0 ? " " + failedPlayers.get() + " player(s) failed and will be retried on the next start." : ""));
+    }
+
+    private int migratePlayer(UUID playerUuid, Map<UUID, File> files) throws IOException {
+        Map<UUID, SerializedInventory> inventories = new LinkedHashMap<>();
+        for (Map.Entry<UUID, File> entry : files.entrySet()) {
+            SerializedInventory inventory = YamlInventoryStorage.readFile(entry.getValue());
+            if (inventory.getMainContents() == null) {
+                // Unreadable or empty; it is still moved aside so it is not retried forever.
+                logger.warning("Skipping inventory file without contents: " + entry.getValue());
+                continue;
+            }
+            inventories.put(entry.getKey(), inventory);
+        }
+        target.writeAll(playerUuid, inventories, false);
+        for (Map.Entry<UUID, File> entry : files.entrySet()) {
+            Path backup = backupDir.toPath().resolve(entry.getKey().toString()).resolve(entry.getValue().getName());
+            Files.createDirectories(backup.getParent());
+            Files.move(entry.getValue().toPath(), backup, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return files.size();
+    }
+
+    /**
+     * @return The YAML files by player, then by realm.
+     */
+    private Map<UUID, Map<UUID, File>> scan() {
+        Map<UUID, Map<UUID, File>> filesByPlayer = new HashMap<>();
+        File[] realmDirs = legacyDir.listFiles(File::isDirectory);
+        if (realmDirs == null) {
+            return filesByPlayer;
+        }
+        for (File realmDir : realmDirs) {
+            UUID realmId = parseUuid(realmDir.getName());
+            File[] playerFiles = realmDir.listFiles((dir, name) -> name.endsWith(".yml"));
+            if (realmId == null || playerFiles == null) {
+                continue;
+            }
+            for (File playerFile : playerFiles) {
+                UUID playerUuid = parseUuid(playerFile.getName().substring(0, playerFile.getName().length() - ".yml".length()));
+                if (playerUuid != null) {
+                    filesByPlayer.computeIfAbsent(playerUuid, id -> new HashMap<>()).put(realmId, playerFile);
+                }
+            }
+        }
+        return filesByPlayer;
+    }
+
+    private void deleteEmptyRealmDirectories() {
+        File[] realmDirs = legacyDir.listFiles(File::isDirectory);
+        if (realmDirs == null) {
+            return;
+        }
+        for (File realmDir : realmDirs) {
+            String[] remaining = realmDir.list();
+            if (remaining != null && remaining.length == 0) {
+                realmDir.delete();
+            }
+        }
+    }
+
+    private static UUID parseUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
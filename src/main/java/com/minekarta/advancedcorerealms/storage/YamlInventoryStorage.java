@@ -7,21 +7,49 @@ import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.stream.Stream;
 
+/**
+ * Stores every inventory in its own YAML file, {@code inventories/<realm>/<player>.yml}.
+ *
+ * <p>The inventories of a deleted realm are removed by renaming the realm's directory into
+ * {@code inventories-trash}, which takes the same time however many members the realm had, and then deleting
+ * the trash in the background. Trash left behind by a restart is deleted on the next start.</p>
+ */
 public class YamlInventoryStorage implements InventoryStorage {
 
     private final AdvancedCoreRealms plugin;
     private final File inventoriesDir;
+    private final Path trashDir;
+    private final Executor ioExecutor;
 
     public YamlInventoryStorage(AdvancedCoreRealms plugin) {
         this.plugin = plugin;
+        this.ioExecutor = plugin.getStorageManager().getIoExecutor();
         this.inventoriesDir = new File(plugin.getDataFolder(), "inventories");
         if (!inventoriesDir.exists()) {
             inventoriesDir.mkdirs();
         }
+        this.trashDir = new File(plugin.getDataFolder(), "inventories-trash").toPath();
+        ioExecutor.execute(this::emptyTrash);
     }
 
     private File getPlayerFile(UUID realmId, UUID playerUuid) {
@@ -48,7 +76,7 @@ public class YamlInventoryStorage implements InventoryStorage {
             } catch (IOException e) {
                 plugin.getLogger().log(java.util.logging.Level.SEVERE, "Could not save inventory for player " + playerUuid + " in realm " + realmId, e);
             }
-        });
+        }, ioExecutor);
     }
 
     @Override
@@ -58,17 +86,28 @@ public class YamlInventoryStorage implements InventoryStorage {
             if (!playerFile.exists()) {
                 return Optional.empty();
             }
-            FileConfiguration config = YamlConfiguration.loadConfiguration(playerFile);
-            String mainContents = config.getString("mainContents");
-            String armorContents = config.getString("armorContents");
-            String offhandContents = config.getString("offhandContents");
-            String enderChestContents = config.getString("enderChestContents");
-            String sourceRealmIdStr = config.getString("sourceRealmId");
-            UUID sourceRealmId = sourceRealmIdStr != null ? UUID.fromString(sourceRealmIdStr) : null;
-
-            SerializedInventory inventory = new SerializedInventory(mainContents, armorContents, offhandContents, enderChestContents, sourceRealmId);
-            return Optional.of(inventory);
-        });
+            return Optional.of(readFile(playerFile));
+        }, ioExecutor);
+    }
+
+    /**
+     * Parses one inventory file of this layout. Also used by {@link YamlInventoryMigrator}.
+     *
+     * @param playerFile The {@code <player>.yml} file.
+     * @return The inventory it contains.
+     */
+    static SerializedInventory readFile(File playerFile) {
+        FileConfiguration config = YamlConfiguration.loadConfiguration(playerFile);
+        String mainContents = config.getString("mainContents");
+        String armorContents = config.getString("armorContents");
+        String offhandContents = config.getString("offhandContents");
+        String enderChestContents = config.getString("enderChestContents");
+        String sourceRealmIdStr = config.getString("sourceRealmId");
+        UUID sourceRealmId = sourceRealmIdStr != null ? UUID.fromString(sourceRealmIdStr) : null;
+        String savedAtStr = config.getString("savedAt");
+        Instant savedAt = savedAtStr != null ? Instant.parse(savedAtStr) : Instant.now();
+
+        return new SerializedInventory(mainContents, armorContents, offhandContents, enderChestContents, sourceRealmId, savedAt);
     }
 
     @Override
@@ -78,6 +117,93 @@ public class YamlInventoryStorage implements InventoryStorage {
             if (playerFile.exists()) {
                 playerFile.delete();
             }
+        }, ioExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteRealmInventories(UUID realmId) {
+        return CompletableFuture.runAsync(() -> {
+            Path trashed;
+            try {
+                trashed = moveToTrash(realmId);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not delete the inventories of realm " + realmId, e);
+                throw new UncheckedIOException(e);
+            }
+            if (trashed != null) {
+                ioExecutor.execute(() -> deleteTrashed(trashed));
+            }
+        }, ioExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Set<UUID>> sweepOrphanedInventories(Predicate<UUID> realmExists) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<UUID> orphans = new ArrayList<>();
+            File[] realmDirs = inventoriesDir.listFiles(File::isDirectory);
+            if (realmDirs != null) {
+                for (File realmDir : realmDirs) {
+                    try {
+                        UUID realmId = UUID.fromString(realmDir.getName());
+                        if (!realmExists.test(realmId)) {
+                            orphans.add(realmId);
+                        }
+                    } catch (IllegalArgumentException ignored) {
+                        // Not a realm directory.
+                    }
+                }
+            }
+            return orphans;
+        }, ioExecutor).thenCompose(orphans -> {
+            Set<UUID> swept = ConcurrentHashMap.newKeySet();
+            return ParallelFileSweep.run(orphans, ioExecutor, plugin.getLogger(), "inventories of realm", realmId -> {
+                Path trashed = moveToTrash(realmId);
+                if (trashed != null) {
+                    deleteTrashed(trashed);
+                    swept.add(realmId);
+                }
+            }).thenApply(failures -> swept);
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Renames a realm's inventory directory into the trash, so that its inventories are gone in one step.
+     *
+     * @return The directory in the trash, or null if the realm had no inventories.
+     */
+    private Path moveToTrash(UUID realmId) throws IOException {
+        Files.createDirectories(trashDir);
+        Path trashed = trashDir.resolve(realmId + "-" + System.nanoTime());
+        try {
+            // Both directories are in the plugin folder, so this is a rename on every supported file system
+            Files.move(new File(inventoriesDir, realmId.toString()).toPath(), trashed, StandardCopyOption.ATOMIC_MOVE);
+            return trashed;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void deleteTrashed(Path trashed) {
+        try (Stream<Path> files = Files.walk(trashed)) {
+            // Deepest first, so directories are empty when their turn comes
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not empty " + trashed + "; it is retried on the next start", e);
+        }
+    }
+
+    private void emptyTrash() {
+        if (!Files.isDirectory(trashDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> trashed = Files.newDirectoryStream(trashDir)) {
+            for (Path entry : trashed) {
+                deleteTrashed(entry);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not empty the inventory trash " + trashDir, e);
+        }
+    }
+}
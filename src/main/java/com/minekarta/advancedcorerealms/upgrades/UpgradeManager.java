@@ -59,13 +59,24 @@ public class UpgradeManager {
 
         if (economyService.withdraw(player, cost)) {
             String oldDifficulty = realm.getDifficulty();
-            realm.setDifficulty(newDifficulty.toLowerCase());
+            String difficulty = newDifficulty.toLowerCase();
 
-            // Asynchronously save the updated realm data
-            realmManager.updateRealm(realm).thenRun(() -> {
+            // Re-checked against the realm's current state, in case someone else changed the difficulty meanwhile
+            realmManager.modifyRealm(realm, current -> {
+                if (current.getDifficulty().equalsIgnoreCase(difficulty)) {
+                    return false;
+                }
+                current.setDifficulty(difficulty);
+                return true;
+            }).thenAccept(updated -> {
+                if (updated.isEmpty()) {
+                    economyService.deposit(player, cost);
+                    languageManager.sendMessage(player, "upgrade.already-owned");
+                    return;
+                }
                 // Apply the change to the live world on the main thread
                 Bukkit.getScheduler().runTask(plugin, () -> {
-                    World world = realm.getBukkitWorld();
+                    World world = updated.get().getBukkitWorld();
                     if (world != null) {
                         try {
                             world.setDifficulty(Difficulty.valueOf(newDifficulty.toUpperCase()));
@@ -78,7 +89,16 @@ public class UpgradeManager {
             }).exceptionally(ex -> {
                 plugin.getLogger().log(Level.SEVERE, "Failed to apply difficulty upgrade for realm " + realm.getName() + ". Refunding player.", ex);
                 economyService.deposit(player, cost); // Refund on failure
-                realm.setDifficulty(oldDifficulty); // Revert in-memory change
+                if (!RealmManager.isUpdateConflict(ex)) {
+                    // Revert the applied change, unless the difficulty has been changed again since
+                    realmManager.modifyRealm(realm, current -> {
+                        if (!current.getDifficulty().equals(difficulty)) {
+                            return false;
+                        }
+                        current.setDifficulty(oldDifficulty);
+                        return true;
+                    });
+                }
                 languageManager.sendMessage(player, "upgrade.failure-refunded");
                 return null;
             });
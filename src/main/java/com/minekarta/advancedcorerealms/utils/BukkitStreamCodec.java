@@ -0,0 +1,54 @@
+package com.minekarta.advancedcorerealms.utils;
+
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.util.io.BukkitObjectInputStream;
+import org.bukkit.util.io.BukkitObjectOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * The original codec: Java serialization through {@link BukkitObjectOutputStream}. Works on any Bukkit server,
+ * but is slow and bulky. Data written before codecs existed is in this format without a header.
+ */
+public final class BukkitStreamCodec implements InventoryCodec {
+
+    public static final byte ID = 1;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return "bukkit";
+    }
+
+    @Override
+    public byte[] encode(ItemStack[] items) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream)) {
+            dataOutput.writeInt(items.length);
+            for (ItemStack item : items) {
+                dataOutput.writeObject(item);
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public ItemStack[] decode(byte[] data) throws IOException {
+        try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(new ByteArrayInputStream(data))) {
+            int size = dataInput.readInt();
+            ItemStack[] items = new ItemStack[size];
+            for (int i = 0; i < size; i++) {
+                items[i] = (ItemStack) dataInput.readObject();
+            }
+            return items;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Inventory contains an unknown class", e);
+        }
+    }
+}
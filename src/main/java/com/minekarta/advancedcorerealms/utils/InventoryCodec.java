@@ -0,0 +1,35 @@
+package com.minekarta.advancedcorerealms.utils;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.io.IOException;
+
+/**
+ * Turns an array of item stacks into bytes and back. Every codec has a fixed id that is written into the
+ * header of the data it produces, so {@link InventorySerializer} can decode data written by any registered
+ * codec, whichever one is currently configured for writing.
+ */
+public interface InventoryCodec {
+
+    /**
+     * @return The id stored in the header of encoded data. Must never change once data has been written with it.
+     */
+    byte getId();
+
+    /**
+     * @return The name used in the configuration and in benchmark output.
+     */
+    String getName();
+
+    /**
+     * @param items The items to encode; null and air entries are allowed.
+     * @return The encoded items, without header.
+     */
+    byte[] encode(ItemStack[] items) throws IOException;
+
+    /**
+     * @param data Data produced by {@link #encode(ItemStack[])}, without header.
+     * @return The items, with the same length and positions as when they were encoded.
+     */
+    ItemStack[] decode(byte[] data) throws IOException;
+}
@@ -0,0 +1,152 @@
+package com.minekarta.advancedcorerealms.utils;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.block.ShulkerBox;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BlockStateMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Compares the encode and decode time and the encoded size of every {@link InventoryCodec}, with and without
+ * compression, on a full late-game inventory: enchanted netherite gear and shulker boxes full of items in both
+ * the inventory and the ender chest. Run in-game through {@code /realms stats codec}, so it measures the real
+ * server implementation of the item formats.
+ */
+public final class InventoryCodecBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 100;
+
+    private InventoryCodecBenchmark() {
+    }
+
+    /**
+     * Builds the sample inventory. Creates item meta, so it must be called on the main thread.
+     *
+     * @return The main, armor, off-hand and ender chest sections.
+     */
+    public static ItemStack[][] sampleInventory() {
+        ItemStack[] main = new ItemStack[36];
+        main[0] = enchanted(Material.NETHERITE_SWORD, "Blade of the Realm", Enchantment.SHARPNESS, 5, Enchantment.UNBREAKING, 3, Enchantment.MENDING, 1);
+        main[1] = enchanted(Material.NETHERITE_PICKAXE, "Realm Breaker", Enchantment.EFFICIENCY, 5, Enchantment.FORTUNE, 3, Enchantment.MENDING, 1);
+        main[2] = enchanted(Material.BOW, "Longshot", Enchantment.POWER, 5, Enchantment.INFINITY, 1, Enchantment.UNBREAKING, 3);
+        main[3] = new ItemStack(Material.GOLDEN_CARROT, 64);
+        for (int slot = 4; slot < 9; slot++) {
+            main[slot] = new ItemStack(slot % 2 == 0 ? Material.COBBLESTONE : Material.OAK_LOG, 64);
+        }
+        for (int slot = 9; slot < 27; slot++) {
+            main[slot] = filledShulker();
+        }
+        for (int slot = 27; slot < 36; slot++) {
+            main[slot] = new ItemStack(Material.DIAMOND, 64);
+        }
+
+        ItemStack[] armor = {
+                enchanted(Material.NETHERITE_BOOTS, null, Enchantment.PROTECTION, 4, Enchantment.UNBREAKING, 3, Enchantment.MENDING, 1),
+                enchanted(Material.NETHERITE_LEGGINGS, null, Enchantment.PROTECTION, 4, Enchantment.UNBREAKING, 3, Enchantment.MENDING, 1),
+                enchanted(Material.NETHERITE_CHESTPLATE, null, Enchantment.PROTECTION, 4, Enchantment.UNBREAKING, 3, Enchantment.MENDING, 1),
+                enchanted(Material.NETHERITE_HELMET, null, Enchantment.PROTECTION, 4, Enchantment.UNBREAKING, 3, Enchantment.MENDING, 1)
+        };
+
+        ItemStack[] enderChest = new ItemStack[27];
+        for (int slot = 0; slot < enderChest.length; slot++) {
+            enderChest[slot] = filledShulker();
+        }
+        return new ItemStack[][]{main, armor, {new ItemStack(Material.TOTEM_OF_UNDYING)}, enderChest};
+    }
+
+    /**
+     * Runs the benchmark on the calling thread. Takes a few seconds, so it should not run on the main thread.
+     *
+     * @param sections The sections returned by {@link #sampleInventory()}.
+     * @return One summary line per codec and compression setting.
+     */
+    public static List<String> run(ItemStack[][] sections) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (InventoryCodec codec : InventorySerializer.getCodecs()) {
+            for (boolean compress : new boolean[]{false, true}) {
+                for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                    decodeAll(encodeAll(sections, codec, compress));
+                }
+                long encodeNanos = 0;
+                long decodeNanos = 0;
+                byte[][] encoded = null;
+                for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    encoded = encodeAll(sections, codec, compress);
+                    long encodedAt = System.nanoTime();
+                    decodeAll(encoded);
+                    encodeNanos += encodedAt - start;
+                    decodeNanos += System.nanoTime() - encodedAt;
+                }
+                int bytes = 0;
+                int base64Chars = 0;
+                for (byte[] section : encoded) {
+                    bytes += section.length;
+                    base64Chars += Base64.getEncoder().encodeToString(section).length();
+                }
+                lines.add(String.format("%s%s: encode %.3f ms, decode %.3f ms, %,d bytes (%,d as Base64)",
+                        codec.getName(), compress ? "+deflate" : "", encodeNanos / 1_000_000.0 / MEASURED_ROUNDS,
+                        decodeNanos / 1_000_000.0 / MEASURED_ROUNDS, bytes, base64Chars));
+            }
+        }
+        return lines;
+    }
+
+    private static byte[][] encodeAll(ItemStack[][] sections, InventoryCodec codec, boolean compress) throws IOException {
+        byte[][] encoded = new byte[sections.length][];
+        for (int i = 0; i < sections.length; i++) {
+            encoded[i] = InventorySerializer.toBytes(sections[i], codec, compress);
+        }
+        return encoded;
+    }
+
+    private static void decodeAll(byte[][] encoded) throws IOException {
+        for (byte[] section : encoded) {
+            InventorySerializer.fromBytes(section);
+        }
+    }
+
+    private static ItemStack filledShulker() {
+        ItemStack[] contents = new ItemStack[27];
+        for (int slot = 0; slot < contents.length; slot++) {
+            contents[slot] = switch (slot % 3) {
+                case 0 -> enchanted(Material.NETHERITE_PICKAXE, null, Enchantment.EFFICIENCY, 5, Enchantment.UNBREAKING, 3, Enchantment.MENDING, 1);
+                case 1 -> new ItemStack(Material.DIAMOND, 64);
+                default -> new ItemStack(Material.OAK_LOG, 64);
+            };
+        }
+        ItemStack shulker = new ItemStack(Material.SHULKER_BOX);
+        if (shulker.getItemMeta() instanceof BlockStateMeta meta && meta.getBlockState() instanceof ShulkerBox box) {
+            box.getInventory().setContents(contents);
+            meta.setBlockState(box);
+            shulker.setItemMeta(meta);
+        }
+        return shulker;
+    }
+
+    private static ItemStack enchanted(Material material, String name, Enchantment first, int firstLevel,
+                                       Enchantment second, int secondLevel, Enchantment third, int thirdLevel) {
+        ItemStack item = new ItemStack(material);
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) {
+            return item;
+        }
+        meta.addEnchant(first, firstLevel, true);
+        meta.addEnchant(second, secondLevel, true);
+        meta.addEnchant(third, thirdLevel, true);
+        if (name != null) {
+            meta.displayName(Component.text(name));
+            meta.lore(List.of(Component.text("Forged in a realm"), Component.text("Never leaves its owner")));
+        }
+        item.setItemMeta(meta);
+        return item;
+    }
+}
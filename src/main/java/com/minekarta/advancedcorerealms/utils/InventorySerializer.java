@@ -1,51 +1,156 @@
 package com.minekarta.advancedcorerealms.utils;
 
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.util.io.BukkitObjectInputStream;
-import org.bukkit.util.io.BukkitObjectOutputStream;
+
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
+/**
+ * Serializes inventories with a pluggable {@link InventoryCodec}.
+ *
+ * <p>Encoded data starts with a short header naming the codec and whether the payload is deflate-compressed:</p>
+ * <pre>
+ * byte magic 0xA5, byte header version, byte codec id, byte flags (bit 0: deflated), payload
+ * </pre>
+ * <p>Data without this header is from before codecs existed and is read with {@link BukkitStreamCodec}; a Java
+ * serialization stream always starts with 0xAC, so the two can never be confused. New data is written with the
+ * codec chosen by {@link #configure(InventoryCodec, boolean)}, and everything that was ever written stays readable.</p>
+ */
 public class InventorySerializer {
 
+    private static final byte MAGIC = (byte) 0xA5;
+    private static final byte HEADER_VERSION = 1;
+    private static final int HEADER_BYTES = 4;
+    private static final int FLAG_DEFLATED = 1;
+
+    private static final List<InventoryCodec> CODECS = List.of(new BukkitStreamCodec(), new PaperBytesCodec());
+    private static final InventoryCodec LEGACY_CODEC = CODECS.get(0);
+
+    private static volatile InventoryCodec writeCodec = CODECS.get(1);
+    private static volatile boolean compress = false;
+
+    /**
+     * Sets how new data is written. Existing data is read regardless of this setting.
+     *
+     * @param codec    The codec for new data.
+     * @param compress Whether to deflate the codec's output.
+     */
+    public static void configure(InventoryCodec codec, boolean compress) {
+        InventorySerializer.writeCodec = codec;
+        InventorySerializer.compress = compress;
+    }
+
+    /**
+     * @return Every codec that can be read, in id order.
+     */
+    public static List<InventoryCodec> getCodecs() {
+        return CODECS;
+    }
+
+    /**
+     * @param name A codec name, such as {@code paper}.
+     * @return The codec, or null if there is none with that name.
+     */
+    public static InventoryCodec getCodec(String name) {
+        for (InventoryCodec codec : CODECS) {
+            if (codec.getName().equalsIgnoreCase(name)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
     /**
-     * Serializes an array of ItemStacks to a Base64 string.
+     * Serializes an array of ItemStacks to a Base64 string with the configured codec.
      *
      * @param items The array of ItemStacks to serialize.
      * @return A Base64 encoded string representing the inventory.
      * @throws IOException If an I/O error occurs during serialization.
      */
     public static String toBase64(ItemStack[] items) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        try (BukkitObjectOutputStream dataOutput = new BukkitObjectOutputStream(outputStream)) {
-            dataOutput.writeInt(items.length);
-            for (ItemStack item : items) {
-                dataOutput.writeObject(item);
-            }
-            return Base64.getEncoder().encodeToString(outputStream.toByteArray());
-        }
+        return Base64.getEncoder().encodeToString(toBytes(items, writeCodec, compress));
     }
 
     /**
-     * Deserializes a Base64 string into an array of ItemStacks.
+     * Deserializes a Base64 string into an array of ItemStacks, whichever codec wrote it.
      *
      * @param data The Base64 encoded string.
      * @return An array of ItemStacks.
-     * @throws IOException            If an I/O error occurs during deserialization.
-     * @throws ClassNotFoundException If the class of a serialized object cannot be found.
+     * @throws IOException If the data is corrupt or was written by an unknown codec.
+     */
+    public static ItemStack[] fromBase64(String data) throws IOException {
+        return fromBytes(Base64.getDecoder().decode(data));
+    }
+
+    /**
+     * Serializes items with a header, using the given codec.
+     *
+     * @param items    The items.
+     * @param codec    The codec to encode them with.
+     * @param compress Whether to deflate the codec's output.
+     * @return The header followed by the payload.
      */
-    public static ItemStack[] fromBase64(String data) throws IOException, ClassNotFoundException {
-        byte[] bytes = Base64.getDecoder().decode(data);
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-        try (BukkitObjectInputStream dataInput = new BukkitObjectInputStream(inputStream)) {
-            int size = dataInput.readInt();
-            ItemStack[] items = new ItemStack[size];
-            for (int i = 0; i < size; i++) {
-                items[i] = (ItemStack) dataInput.readObject();
+    public static byte[] toBytes(ItemStack[] items, InventoryCodec codec, boolean compress) throws IOException {
+        byte[] payload = codec.encode(items);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_BYTES + payload.length);
+        bytes.write(MAGIC);
+        bytes.write(HEADER_VERSION);
+        bytes.write(codec.getId());
+        bytes.write(compress ? FLAG_DEFLATED : 0);
+        if (compress) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+                out.write(payload);
+            } finally {
+                deflater.end();
+            }
+        } else {
+            bytes.write(payload);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes data written by {@link #toBytes(ItemStack[], InventoryCodec, boolean)}, or legacy data
+     * without a header.
+     */
+    public static ItemStack[] fromBytes(byte[] data) throws IOException {
+        if (data.length == 0 || data[0] != MAGIC) {
+            return LEGACY_CODEC.decode(data);
+        }
+        if (data.length < HEADER_BYTES) {
+            throw new IOException("Truncated inventory header");
+        }
+        if (data[1] != HEADER_VERSION) {
+            throw new IOException("Unsupported inventory header version " + data[1]);
+        }
+        InventoryCodec codec = null;
+        for (InventoryCodec candidate : CODECS) {
+            if (candidate.getId() == data[2]) {
+                codec = candidate;
+            }
+        }
+        if (codec == null) {
+            throw new IOException("Inventory was written by unknown codec " + data[2]);
+        }
+        byte[] payload = Arrays.copyOfRange(data, HEADER_BYTES, data.length);
+        if ((data[3] & FLAG_DEFLATED) != 0) {
+            Inflater inflater = new Inflater();
+            try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(payload), inflater)) {
+                payload = in.readAllBytes();
+            } finally {
+                inflater.end();
             }
-            return items;
         }
+        return codec.decode(payload);
     }
-}
\ No newline at end of file
+}
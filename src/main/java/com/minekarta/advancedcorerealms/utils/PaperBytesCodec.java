@@ -0,0 +1,81 @@
+package com.minekarta.advancedcorerealms.utils;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Stores every item as Paper's own binary item format ({@link ItemStack#serializeAsBytes()}): the item's NBT,
+ * compressed and tagged with the data version, so items are upgraded correctly after a Minecraft update.
+ *
+ * <pre>
+ * int slot count, then per slot: int length (-1 for an empty slot) + item bytes
+ * </pre>
+ */
+public final class PaperBytesCodec implements InventoryCodec {
+
+    public static final byte ID = 2;
+
+    // Guards against reading a corrupt count or length as a huge allocation
+    private static final int MAX_SLOTS = 1 << 12;
+    private static final int MAX_ITEM_BYTES = 8 * 1024 * 1024;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return "paper";
+    }
+
+    @Override
+    public byte[] encode(ItemStack[] items) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + items.length * 64);
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(items.length);
+        for (ItemStack item : items) {
+            if (item == null || item.getType().isAir()) {
+                data.writeInt(-1);
+                continue;
+            }
+            byte[] itemBytes = item.serializeAsBytes();
+            data.writeInt(itemBytes.length);
+            data.write(itemBytes);
+        }
+        data.flush();
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public ItemStack[] decode(byte[] encoded) throws IOException {
+        try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            int size = data.readInt();
+            if (size < 0 || size > MAX_SLOTS) {
+                throw new IOException("Corrupt inventory (" + size + " slots)");
+            }
+            ItemStack[] items = new ItemStack[size];
+            for (int i = 0; i < size; i++) {
+                int length = data.readInt();
+                if (length < 0) {
+                    continue;
+                }
+                if (length > MAX_ITEM_BYTES) {
+                    throw new IOException("Corrupt inventory (item of " + length + " bytes)");
+                }
+                byte[] itemBytes = new byte[length];
+                data.readFully(itemBytes);
+                items[i] = ItemStack.deserializeBytes(itemBytes);
+            }
+            return items;
+        } catch (EOFException e) {
+            throw new IOException("Truncated inventory", e);
+        }
+    }
+}
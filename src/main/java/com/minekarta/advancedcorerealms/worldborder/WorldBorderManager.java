@@ -81,12 +81,26 @@ public class WorldBorderManager {
 
         // Withdraw money and proceed with the upgrade
         if (economyService.withdraw(player, cost)) {
-            realm.setBorderTierId(targetTier.getId());
-            realm.setBorderSize((int) targetTier.getSize());
+            String oldTierId = realm.getBorderTierId();
+            int oldSize = realm.getBorderSize();
 
-            realmManager.updateRealm(realm).thenRun(() -> {
+            // Re-checked against the realm's current tier, in case another upgrade was bought meanwhile
+            realmManager.modifyRealm(realm, current -> {
+                WorldBorderTier tier = worldBorderConfig.getTier(current.getBorderTierId());
+                if (tier != null && targetTier.getSize() <= tier.getSize()) {
+                    return false;
+                }
+                current.setBorderTierId(targetTier.getId());
+                current.setBorderSize((int) targetTier.getSize());
+                return true;
+            }).thenAccept(updated -> {
+                if (updated.isEmpty()) {
+                    economyService.deposit(player, cost);
+                    languageManager.sendMessage(player, "error.border.not_an_upgrade");
+                    return;
+                }
                 // Apply the new border and notify the player
-                applyBorder(realm);
+                applyBorder(updated.get());
                 languageManager.sendMessage(player, "upgrade.success", "%upgrade%", "Border");
 
                 // Notify other players in the world
@@ -101,6 +115,17 @@ public class WorldBorderManager {
             }).exceptionally(ex -> {
                 plugin.getLogger().log(Level.SEVERE, "Failed to save realm after border upgrade. Refunding player.", ex);
                 economyService.deposit(player, cost); // Refund on failure
+                if (!RealmManager.isUpdateConflict(ex)) {
+                    // Revert the applied upgrade, unless the border has been changed again since
+                    realmManager.modifyRealm(realm, current -> {
+                        if (!targetTier.getId().equals(current.getBorderTierId())) {
+                            return false;
+                        }
+                        current.setBorderTierId(oldTierId);
+                        current.setBorderSize(oldSize);
+                        return true;
+                    });
+                }
                 languageManager.sendMessage(player, "upgrade.failure-refunded");
                 return null;
             });
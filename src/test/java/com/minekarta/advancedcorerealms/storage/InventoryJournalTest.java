@@ -0,0 +1,201 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.minekarta.advancedcorerealms.data.object.SerializedInventory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryJournalTest {
+
+    // Checkpoints only run on open and close, so a failing backing storage leaves the journal behind
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 3_600_000L;
+
+    private final UUID realmId = UUID.randomUUID();
+    private final UUID playerUuid = UUID.randomUUID();
+    private final MemoryInventoryStorage backing = new MemoryInventoryStorage();
+
+    @TempDir
+    Path directory;
+
+    private InventoryJournal open() throws IOException {
+        InventoryJournal journal = new InventoryJournal(Logger.getLogger("InventoryJournalTest"), backing, directory,
+                1L, CHECKPOINT_INTERVAL_MILLIS);
+        journal.open();
+        // Runs on the journal thread after the checkpoint open() starts, so saves cannot race with it
+        journal.deleteRealmInventories(UUID.randomUUID()).join();
+        return journal;
+    }
+
+    private static String section(String text) {
+        return Base64.getEncoder().encodeToString(text.getBytes());
+    }
+
+    private static SerializedInventory inventory(String main, String armor) {
+        return new SerializedInventory(section(main), section(armor), null, null, null);
+    }
+
+    private SerializedInventory load(InventoryJournal journal) {
+        return journal.loadPlayerInventory(realmId, playerUuid).join().orElseThrow();
+    }
+
+    @Test
+    void closeWritesJournaledInventoriesToTheBackingStorage() throws IOException {
+        InventoryJournal journal = open();
+        journal.savePlayerInventory(realmId, playerUuid, inventory("main", "armor")).join();
+        assertTrue(backing.inventories.isEmpty());
+
+        journal.close();
+
+        assertEquals(section("main"), backing.inventories.get(realmId + "/" + playerUuid).getMainContents());
+        assertEquals(0, segmentCount());
+    }
+
+    @Test
+    void deltaRecordsReplayOntoTheSaveBeforeThem() throws IOException {
+        InventoryJournal journal = open();
+        journal.savePlayerInventory(realmId, playerUuid, inventory("first", "armor")).join();
+        journal.savePlayerInventory(realmId, playerUuid,
+                inventory("second", "armor").withChangedSections(SerializedInventory.SECTION_MAIN)).join();
+        assertTrue(journal.describe().contains("1 deltas"), journal.describe());
+        backing.failing = true;
+        journal.close();
+        assertTrue(backing.inventories.isEmpty());
+
+        backing.failing = false;
+        InventoryJournal reopened = open();
+        SerializedInventory replayed = load(reopened);
+        assertEquals(section("second"), replayed.getMainContents());
+        assertEquals(section("armor"), replayed.getArmorContents());
+        reopened.close();
+    }
+
+    @Test
+    void aReplayedDeltaAppliesToTheBackingStorageWhenItIsTheFirstRecord() throws IOException {
+        InventoryJournal first = open();
+        first.savePlayerInventory(realmId, playerUuid, inventory("stored", "stored-armor")).join();
+        first.close();
+
+        InventoryJournal second = open();
+        second.savePlayerInventory(realmId, playerUuid,
+                inventory("changed", "stored-armor").withChangedSections(SerializedInventory.SECTION_MAIN)).join();
+        backing.failing = true;
+        second.close();
+
+        backing.failing = false;
+        InventoryJournal reopened = open();
+        SerializedInventory replayed = load(reopened);
+        assertEquals(section("changed"), replayed.getMainContents());
+        assertEquals(section("stored-armor"), replayed.getArmorContents());
+        reopened.close();
+    }
+
+    @Test
+    void aSaveAfterADeleteIsJournaledInFull() throws IOException {
+        InventoryJournal journal = open();
+        journal.savePlayerInventory(realmId, playerUuid, inventory("old", "old-armor")).join();
+        journal.deletePlayerInventory(realmId, playerUuid).join();
+        journal.savePlayerInventory(realmId, playerUuid,
+                inventory("new", "new-armor").withChangedSections(SerializedInventory.SECTION_MAIN)).join();
+        assertTrue(journal.describe().contains("0 deltas"), journal.describe());
+        backing.failing = true;
+        journal.close();
+
+        backing.failing = false;
+        InventoryJournal reopened = open();
+        assertEquals(section("new-armor"), load(reopened).getArmorContents());
+        reopened.close();
+    }
+
+    @Test
+    void replayStopsAtATornRecord() throws IOException {
+        InventoryJournal journal = open();
+        journal.savePlayerInventory(realmId, playerUuid, inventory("durable", "armor")).join();
+        backing.failing = true;
+        journal.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        backing.failing = false;
+        InventoryJournal reopened = open();
+        assertEquals(section("durable"), load(reopened).getMainContents());
+        reopened.close();
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log") && fileSize(file) > 0).count();
+        }
+    }
+
+    private static long fileSize(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * A backing storage that keeps inventories in memory and can be made to fail every write.
+     */
+    private static final class MemoryInventoryStorage implements InventoryStorage {
+
+        private final Map<String, SerializedInventory> inventories = new ConcurrentHashMap<>();
+        private volatile boolean failing;
+
+        @Override
+        public CompletableFuture<Void> savePlayerInventory(UUID realmId, UUID playerUuid, SerializedInventory data) {
+            if (failing) {
+                return CompletableFuture.failedFuture(new IOException("storage unavailable"));
+            }
+            inventories.put(realmId + "/" + playerUuid, data);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Optional<SerializedInventory>> loadPlayerInventory(UUID realmId, UUID playerUuid) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(inventories.get(realmId + "/" + playerUuid)));
+        }
+
+        @Override
+        public CompletableFuture<Void> deletePlayerInventory(UUID realmId, UUID playerUuid) {
+            if (failing) {
+                return CompletableFuture.failedFuture(new IOException("storage unavailable"));
+            }
+            inventories.remove(realmId + "/" + playerUuid);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> deleteRealmInventories(UUID realmId) {
+            inventories.keySet().removeIf(key -> key.startsWith(realmId + "/"));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Set<UUID>> sweepOrphanedInventories(Predicate<UUID> realmExists) {
+            return CompletableFuture.completedFuture(Set.of());
+        }
+    }
+}
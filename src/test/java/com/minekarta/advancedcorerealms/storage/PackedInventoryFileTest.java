@@ -0,0 +1,108 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.minekarta.advancedcorerealms.data.object.SerializedInventory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackedInventoryFileTest {
+
+    @TempDir
+    Path directory;
+
+    private static String section(String text) {
+        return Base64.getEncoder().encodeToString(text.getBytes());
+    }
+
+    private static SerializedInventory inventory(String label, UUID sourceRealmId) {
+        return new SerializedInventory(section(label + "-main"), section(label + "-armor"), null,
+                section(label + "-ender"), sourceRealmId, Instant.ofEpochMilli(1_700_000_000_000L));
+    }
+
+    private Path writeFile(Map<UUID, byte[]> blocks) throws IOException {
+        Path file = directory.resolve(UUID.randomUUID() + PackedInventoryFile.EXTENSION);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            PackedInventoryFile.write(out, blocks);
+        }
+        return file;
+    }
+
+    @Test
+    void aBlockDecodesToTheInventoryItWasEncodedFrom() throws IOException {
+        UUID sourceRealmId = UUID.randomUUID();
+        SerializedInventory original = inventory("a", sourceRealmId);
+
+        SerializedInventory decoded = PackedInventoryFile.decode(PackedInventoryFile.encode(original));
+
+        assertEquals(original.getMainContents(), decoded.getMainContents());
+        assertEquals(original.getArmorContents(), decoded.getArmorContents());
+        assertNull(decoded.getOffhandContents());
+        assertEquals(original.getEnderChestContents(), decoded.getEnderChestContents());
+        assertEquals(sourceRealmId, decoded.getSourceRealmId());
+        assertEquals(original.getSavedAt(), decoded.getSavedAt());
+    }
+
+    @Test
+    void eachEntryIsFoundThroughTheIndex() throws IOException {
+        Map<UUID, byte[]> blocks = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            blocks.put(UUID.randomUUID(), PackedInventoryFile.encode(inventory("realm" + i, null)));
+        }
+        Path file = writeFile(blocks);
+
+        assertEquals(List.copyOf(blocks.keySet()), PackedInventoryFile.readRealmIds(file));
+        for (Map.Entry<UUID, byte[]> entry : blocks.entrySet()) {
+            assertArrayEquals(entry.getValue(), PackedInventoryFile.readBlock(file, entry.getKey()));
+        }
+        Map<UUID, byte[]> all = PackedInventoryFile.readAll(file);
+        assertEquals(List.copyOf(blocks.keySet()), List.copyOf(all.keySet()));
+        assertNull(PackedInventoryFile.readBlock(file, UUID.randomUUID()));
+    }
+
+    @Test
+    void aMissingFileReadsAsEmpty() throws IOException {
+        Path file = directory.resolve("missing" + PackedInventoryFile.EXTENSION);
+
+        assertNull(PackedInventoryFile.readBlock(file, UUID.randomUUID()));
+        assertTrue(PackedInventoryFile.readRealmIds(file).isEmpty());
+        assertTrue(PackedInventoryFile.readAll(file).isEmpty());
+    }
+
+    @Test
+    void aFileWithoutTheHeaderIsRejected() throws IOException {
+        Path file = directory.resolve("garbage" + PackedInventoryFile.EXTENSION);
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+
+        assertThrows(IOException.class, () -> PackedInventoryFile.readRealmIds(file));
+    }
+
+    @Test
+    void aDeltaBlockTakesTheUnchangedSectionsFromItsBase() throws IOException {
+        SerializedInventory base = inventory("base", null);
+        SerializedInventory changed = inventory("changed", null);
+
+        byte[] delta = PackedInventoryFile.encode(changed, SerializedInventory.SECTION_MAIN);
+        SerializedInventory merged = PackedInventoryFile.decode(delta, base);
+
+        assertEquals(changed.getMainContents(), merged.getMainContents());
+        assertEquals(base.getArmorContents(), merged.getArmorContents());
+        assertEquals(base.getEnderChestContents(), merged.getEnderChestContents());
+        assertThrows(IOException.class, () -> PackedInventoryFile.decode(delta));
+    }
+}
@@ -0,0 +1,159 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.minekarta.advancedcorerealms.data.object.Realm;
+import com.minekarta.advancedcorerealms.utils.InstantAdapter;
+import com.minekarta.advancedcorerealms.utils.UUIDAdapter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RealmJournalTest {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(UUID.class, new UUIDAdapter())
+            .registerTypeAdapter(Instant.class, new InstantAdapter())
+            .create();
+
+    @TempDir
+    Path directory;
+
+    private final List<RealmJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        opened.forEach(RealmJournal::close);
+    }
+
+    private RealmJournal open() throws IOException {
+        // Compaction only happens when a test asks for it
+        RealmJournal journal = new RealmJournal(Logger.getLogger("RealmJournalTest"), GSON, directory, Long.MAX_VALUE);
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+
+    @Test
+    void replaysFullPatchAndDeleteRecordsOnOpen() throws IOException {
+        UUID owner = UUID.randomUUID();
+        UUID member = UUID.randomUUID();
+        Realm kept = new Realm("Kept", owner, "flat");
+        Realm deleted = new Realm("Deleted", owner, "flat");
+
+        RealmJournal journal = open();
+        journal.save(kept);
+        journal.save(deleted);
+        journal.commit();
+        kept.setName("Renamed");
+        kept.addMember(member);
+        journal.save(kept);
+        journal.commit();
+        journal.delete(deleted.getRealmId());
+        journal.close();
+
+        RealmJournal reopened = open();
+        Realm loaded = reopened.load(kept.getRealmId());
+        assertNotNull(loaded);
+        assertEquals("Renamed", loaded.getName());
+        assertTrue(loaded.isMember(member));
+        assertNull(reopened.load(deleted.getRealmId()));
+        List<Realm> all = new ArrayList<>();
+        reopened.loadAll(all::add);
+        assertEquals(1, all.size());
+    }
+
+    @Test
+    void stagedSavesAreOnlyVisibleAfterCommit() throws IOException {
+        Realm realm = new Realm("Staged", UUID.randomUUID(), "flat");
+
+        RealmJournal journal = open();
+        journal.save(realm);
+        assertNull(journal.load(realm.getRealmId()));
+        journal.commit();
+        assertNotNull(journal.load(realm.getRealmId()));
+    }
+
+    @Test
+    void truncatesATornRecordAtTheEndOfTheLog() throws IOException {
+        Realm realm = new Realm("Survivor", UUID.randomUUID(), "flat");
+
+        RealmJournal journal = open();
+        journal.save(realm);
+        journal.commit();
+        journal.close();
+        // A crash in the middle of an append leaves a partial record behind
+        Path segment = segments().get(segments().size() - 1);
+        Files.write(segment, new byte[]{0, 0, 1, 0, 42, 42}, StandardOpenOption.APPEND);
+
+        RealmJournal reopened = open();
+        assertEquals("Survivor", reopened.load(realm.getRealmId()).getName());
+    }
+
+    @Test
+    void compactionWritesASnapshotAndDropsCoveredSegments() throws IOException {
+        UUID owner = UUID.randomUUID();
+        Realm first = new Realm("First", owner, "flat");
+        Realm second = new Realm("Second", owner, "flat");
+
+        RealmJournal journal = open();
+        journal.save(first);
+        journal.save(second);
+        journal.commit();
+        journal.delete(second.getRealmId());
+        List<Path> before = segments();
+        journal.compactNow();
+
+        assertTrue(Files.exists(directory.resolve("snapshot.dat")));
+        for (Path segment : before) {
+            assertFalse(Files.exists(segment), segment + " should be covered by the snapshot");
+        }
+
+        // Records after the snapshot are replayed on top of it
+        first.setName("AfterSnapshot");
+        journal.save(first);
+        journal.commit();
+        journal.close();
+
+        RealmJournal reopened = open();
+        assertEquals("AfterSnapshot", reopened.load(first.getRealmId()).getName());
+        assertNull(reopened.load(second.getRealmId()));
+    }
+
+    @Test
+    void compactNowCanRunTwiceInARow() throws IOException {
+        Realm realm = new Realm("Twice", UUID.randomUUID(), "flat");
+
+        RealmJournal journal = open();
+        journal.save(realm);
+        journal.commit();
+        journal.compactNow();
+        journal.compactNow();
+        journal.close();
+
+        assertEquals("Twice", open().load(realm.getRealmId()).getName());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.minekarta.advancedcorerealms.data.object.Realm;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RealmMetadataIndexTest {
+
+    private static final Logger LOGGER = Logger.getLogger("RealmMetadataIndexTest");
+
+    @TempDir
+    Path directory;
+
+    private RealmMetadataIndex index(String source) {
+        return new RealmMetadataIndex(LOGGER, directory.resolve("realms.idx"), source);
+    }
+
+    @Test
+    void aSavedIndexLoadsWithEveryLookup() throws IOException {
+        UUID owner = UUID.randomUUID();
+        UUID member = UUID.randomUUID();
+        Realm castle = new Realm("Castle", owner, "flat");
+        castle.addMember(member);
+        Realm cabin = new Realm("Cabin", owner, "flat");
+
+        RealmMetadataIndex index = index("journal");
+        index.put(castle);
+        index.put(cabin);
+        index.markReady();
+        index.save();
+
+        RealmMetadataIndex loaded = index("journal");
+        assertTrue(loaded.load());
+        assertTrue(loaded.isReady());
+        assertEquals(2, loaded.size());
+        assertEquals(Optional.of(castle.getRealmId()), loaded.findIdByName("castle"));
+        assertEquals(Set.of(castle.getRealmId(), cabin.getRealmId()), loaded.findIdsByOwner(owner));
+        assertEquals(Set.of(castle.getRealmId()), loaded.findIdsByMember(member));
+        assertEquals(Optional.of(cabin.getRealmId()), loaded.findIdByWorldFolder(cabin.getWorldFolderName()));
+        assertEquals(2, loaded.countByOwner(owner));
+
+        List<RealmMetadata> page = loaded.findByNamePrefix("ca", 0, 10, metadata -> true);
+        assertEquals(List.of("Cabin", "Castle"), page.stream().map(RealmMetadata::getName).toList());
+    }
+
+    @Test
+    void renamesAndRemovalsUpdateTheLookups() {
+        UUID owner = UUID.randomUUID();
+        Realm realm = new Realm("Old", owner, "flat");
+
+        RealmMetadataIndex index = index("journal");
+        index.put(realm);
+        realm.setName("New");
+        index.put(realm);
+
+        assertEquals(Optional.empty(), index.findIdByName("Old"));
+        assertEquals(Optional.of(realm.getRealmId()), index.findIdByName("NEW"));
+
+        index.remove(realm.getRealmId());
+        assertFalse(index.contains(realm.getRealmId()));
+        assertTrue(index.findIdsByOwner(owner).isEmpty());
+    }
+
+    @Test
+    void replaceNeverBringsBackARemovedRealm() {
+        Realm realm = new Realm("Gone", UUID.randomUUID(), "flat");
+
+        RealmMetadataIndex index = index("journal");
+        assertFalse(index.replace(realm));
+        index.put(realm);
+        realm.setName("Renamed");
+        assertTrue(index.replace(realm));
+        assertEquals(Optional.of(realm.getRealmId()), index.findIdByName("Renamed"));
+
+        index.remove(realm.getRealmId());
+        assertFalse(index.replace(realm));
+        assertFalse(index.contains(realm.getRealmId()));
+    }
+
+    @Test
+    void aMissingFileMustBeRebuilt() {
+        RealmMetadataIndex index = index("journal");
+        assertFalse(index.load());
+        assertFalse(index.isReady());
+    }
+
+    @Test
+    void anIndexFromAnotherBackendIsDiscarded() throws IOException {
+        RealmMetadataIndex index = index("journal");
+        index.put(new Realm("Castle", UUID.randomUUID(), "flat"));
+        index.markReady();
+        index.save();
+
+        RealmMetadataIndex other = index("sqlite");
+        assertFalse(other.load());
+        assertEquals(0, other.size());
+    }
+
+    @Test
+    void anIndexLoadedWithoutACleanShutdownIsDiscarded() throws IOException {
+        RealmMetadataIndex index = index("journal");
+        index.put(new Realm("Castle", UUID.randomUUID(), "flat"));
+        index.markReady();
+        index.save();
+
+        assertTrue(index("journal").load());
+        // The first load marked the file open and nothing saved it again, as after a crash
+        assertFalse(index("journal").load());
+    }
+
+    @Test
+    void aCorruptIndexIsRebuiltFromTheStoredRealms() throws IOException {
+        Realm realm = new Realm("Castle", UUID.randomUUID(), "flat");
+        RealmMetadataIndex index = index("journal");
+        index.put(realm);
+        index.markReady();
+        index.save();
+
+        Path file = directory.resolve("realms.idx");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x7F;
+        Files.write(file, bytes);
+
+        RealmMetadataIndex rebuilt = index("journal");
+        assertFalse(rebuilt.load());
+        assertEquals(0, rebuilt.size());
+        rebuilt.put(realm);
+        rebuilt.markReady();
+        rebuilt.save();
+
+        RealmMetadataIndex loaded = index("journal");
+        assertTrue(loaded.load());
+        assertEquals(Optional.of(realm.getRealmId()), loaded.findIdByName("Castle"));
+    }
+
+    @Test
+    void anUnfinishedRebuildIsNeverSaved() throws IOException {
+        RealmMetadataIndex index = index("journal");
+        index.put(new Realm("Castle", UUID.randomUUID(), "flat"));
+        index.save();
+
+        assertFalse(Files.exists(directory.resolve("realms.idx")));
+    }
+}
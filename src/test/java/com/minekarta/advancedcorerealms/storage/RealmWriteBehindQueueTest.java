@@ -0,0 +1,159 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.minekarta.advancedcorerealms.data.object.Realm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RealmWriteBehindQueueTest {
+
+    // Long enough that only urgent saves and close() flush during a test
+    private static final long FLUSH_INTERVAL_MILLIS = 60_000L;
+
+    private final List<String> writes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger commits = new AtomicInteger();
+    private final AtomicBoolean failWrites = new AtomicBoolean();
+    // Realms whose delete has been written, as the realm index forgets them in StorageManager
+    private final Set<UUID> forgotten = ConcurrentHashMap.newKeySet();
+    private final RealmWriteBehindQueue queue = new RealmWriteBehindQueue(Logger.getLogger("RealmWriteBehindQueueTest"),
+            new RealmWriteBehindQueue.RealmWriter() {
+                @Override
+                public void write(Realm realm) throws IOException {
+                    if (failWrites.get()) {
+                        throw new IOException("disk full");
+                    }
+                    writes.add(realm.getName());
+                }
+
+                @Override
+                public void commit(List<Realm> written) {
+                    commits.incrementAndGet();
+                }
+
+                @Override
+                public boolean accepts(UUID realmId) {
+                    return !forgotten.contains(realmId);
+                }
+            }, FLUSH_INTERVAL_MILLIS, 2);
+
+    @AfterEach
+    void closeQueue() {
+        queue.close();
+    }
+
+    @Test
+    void savesOfOneRealmInAWindowBecomeOneWriteOfTheLatestState() {
+        Realm realm = new Realm("v0", UUID.randomUUID(), "flat");
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            realm.setName("v" + i);
+            futures.add(queue.enqueue(realm, false));
+        }
+        assertEquals(1, queue.getPendingCount());
+        assertSame(realm, queue.getPending(realm.getRealmId()));
+
+        futures.add(queue.enqueue(realm, true));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        assertEquals(List.of("v5"), writes);
+        assertEquals(1, commits.get());
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    void aFailedWriteStaysPendingAndFailsItsCallers() {
+        Realm realm = new Realm("Retried", UUID.randomUUID(), "flat");
+        failWrites.set(true);
+
+        CompletableFuture<Void> failed = queue.enqueue(realm, true);
+        assertThrows(CompletionException.class, failed::join);
+        assertEquals(1, queue.getPendingCount());
+
+        failWrites.set(false);
+        queue.enqueue(realm, true).join();
+        assertEquals(List.of("Retried"), writes);
+    }
+
+    @Test
+    void deleteDropsPendingConcurrentAndLaterSaves() throws Exception {
+        Realm realm = new Realm("Doomed", UUID.randomUUID(), "flat");
+        UUID realmId = realm.getRealmId();
+        queue.enqueue(realm, false);
+
+        CountDownLatch deleting = new CountDownLatch(1);
+        CountDownLatch finishDelete = new CountDownLatch(1);
+        CompletableFuture<Void> delete = queue.discardAndRun(realmId, () -> {
+            deleting.countDown();
+            try {
+                finishDelete.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            forgotten.add(realmId);
+        });
+        assertTrue(deleting.await(10, TimeUnit.SECONDS));
+
+        // A late save while the delete is in flight must not bring the realm back
+        assertTrue(queue.isDeleted(realmId));
+        queue.enqueue(realm, true).join();
+        assertNull(queue.getPending(realmId));
+
+        finishDelete.countDown();
+        delete.join();
+        assertFalse(queue.isDeleted(realmId), "the tombstone should be dropped once the delete is written");
+
+        // A stale reference, such as an open menu, saving after the delete has finished
+        queue.enqueue(realm, true).join();
+        assertNull(queue.getPending(realmId));
+        queue.close();
+        assertTrue(writes.isEmpty());
+    }
+
+    @Test
+    void aFailedDeleteKeepsTheFence() {
+        Realm realm = new Realm("Stuck", UUID.randomUUID(), "flat");
+
+        CompletableFuture<Void> delete = queue.discardAndRun(realm.getRealmId(), () -> {
+            throw new IOException("read-only file system");
+        });
+        assertThrows(CompletionException.class, delete::join);
+
+        assertTrue(queue.isDeleted(realm.getRealmId()));
+        queue.enqueue(realm, true).join();
+        assertTrue(writes.isEmpty());
+    }
+
+    @Test
+    void closeWritesEverythingStillPending() {
+        UUID owner = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            queue.enqueue(new Realm("Realm" + i, owner, "flat"), false);
+        }
+
+        queue.close();
+
+        assertEquals(10, writes.size());
+        assertEquals(0, queue.getPendingCount());
+    }
+}
@@ -0,0 +1,145 @@
+package com.minekarta.advancedcorerealms.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.minekarta.advancedcorerealms.data.object.Realm;
+import com.minekarta.advancedcorerealms.realm.Role;
+import com.minekarta.advancedcorerealms.utils.InstantAdapter;
+import com.minekarta.advancedcorerealms.utils.UUIDAdapter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqliteRealmStorageTest {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(UUID.class, new UUIDAdapter())
+            .registerTypeAdapter(Instant.class, new InstantAdapter())
+            .create();
+
+    @TempDir
+    Path directory;
+
+    private final List<SqliteRealmStorage> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeStorages() {
+        opened.forEach(SqliteRealmStorage::close);
+    }
+
+    private SqliteRealmStorage open() throws IOException {
+        SqliteRealmStorage storage = new SqliteRealmStorage(Logger.getLogger("SqliteRealmStorageTest"), GSON,
+                new File(directory.toFile(), "realms.db"));
+        storage.open();
+        opened.add(storage);
+        return storage;
+    }
+
+    @Test
+    void savedRealmsSurviveAReopen() throws IOException {
+        UUID owner = UUID.randomUUID();
+        UUID member = UUID.randomUUID();
+        Realm realm = new Realm("Castle", owner, "flat");
+        realm.addMember(member, Role.ADMIN);
+        realm.setMaxPlayers(12);
+
+        SqliteRealmStorage storage = open();
+        assertFalse(storage.hasData());
+        storage.save(realm);
+        storage.commit();
+        storage.close();
+
+        SqliteRealmStorage reopened = open();
+        assertTrue(reopened.hasData());
+        Realm loaded = reopened.load(realm.getRealmId());
+        assertNotNull(loaded);
+        assertEquals("Castle", loaded.getName());
+        assertEquals(owner, loaded.getOwner());
+        assertEquals(Role.ADMIN, loaded.getRole(member));
+        assertEquals(12, loaded.getMaxPlayers());
+    }
+
+    @Test
+    void aLaterSaveReplacesTheRow() throws IOException {
+        Realm realm = new Realm("Before", UUID.randomUUID(), "flat");
+
+        SqliteRealmStorage storage = open();
+        storage.save(realm);
+        storage.commit();
+        realm.setName("After");
+        storage.save(realm);
+        storage.commit();
+
+        assertEquals("After", storage.load(realm.getRealmId()).getName());
+        List<Realm> all = new ArrayList<>();
+        RealmLoadReport report = storage.loadAll(all::add);
+        assertEquals(1, all.size());
+        assertEquals(0, report.getFailures());
+    }
+
+    @Test
+    void deleteRemovesOnlyThatRealm() throws IOException {
+        UUID owner = UUID.randomUUID();
+        Realm kept = new Realm("Kept", owner, "flat");
+        Realm deleted = new Realm("Deleted", owner, "flat");
+
+        SqliteRealmStorage storage = open();
+        storage.save(kept);
+        storage.save(deleted);
+        storage.commit();
+        storage.delete(deleted.getRealmId());
+
+        assertNull(storage.load(deleted.getRealmId()));
+        assertNotNull(storage.load(kept.getRealmId()));
+    }
+
+    @Test
+    void openingAnOlderDatabaseDropsItsUnusedIndexes() throws IOException, SQLException {
+        File file = new File(directory.toFile(), "realms.db");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE realms (realm_id TEXT PRIMARY KEY NOT NULL, owner TEXT NOT NULL, name TEXT NOT NULL, "
+                    + "name_lower TEXT NOT NULL, world_folder TEXT NOT NULL, data TEXT NOT NULL, updated_at INTEGER NOT NULL)");
+            statement.execute("CREATE INDEX idx_realms_owner ON realms (owner)");
+            statement.execute("CREATE INDEX idx_realms_name ON realms (name_lower)");
+            statement.execute("CREATE INDEX idx_realms_world_folder ON realms (world_folder)");
+        }
+
+        open().close();
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT name FROM sqlite_master WHERE type = 'index' AND name LIKE 'idx_%'")) {
+            assertFalse(result.next(), "unused index left behind");
+        }
+    }
+
+    @Test
+    void uncommittedSavesAreNotVisible() throws IOException {
+        Realm realm = new Realm("Pending", UUID.randomUUID(), "flat");
+
+        SqliteRealmStorage storage = open();
+        storage.save(realm);
+        assertNull(storage.load(realm.getRealmId()));
+    }
+}
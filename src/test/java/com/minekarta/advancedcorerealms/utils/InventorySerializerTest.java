@@ -0,0 +1,81 @@
+package com.minekarta.advancedcorerealms.utils;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Empty slots are encoded without a running server, so these tests use inventories without items; the
+ * item formats themselves are compared in-game by {@code /realms stats codec}.
+ */
+class InventorySerializerTest {
+
+    private static final byte MAGIC = (byte) 0xA5;
+
+    @Test
+    void dataStartsWithAHeaderNamingItsCodec() throws IOException {
+        byte[] data = InventorySerializer.toBytes(new ItemStack[41], InventorySerializer.getCodec("paper"), false);
+
+        assertEquals(MAGIC, data[0]);
+        assertEquals(1, data[1]);
+        assertEquals(PaperBytesCodec.ID, data[2]);
+        assertEquals(0, data[3]);
+
+        ItemStack[] items = InventorySerializer.fromBytes(data);
+        assertEquals(41, items.length);
+        for (ItemStack item : items) {
+            assertNull(item);
+        }
+    }
+
+    @Test
+    void compressedDataIsInflatedOnRead() throws IOException {
+        InventoryCodec codec = InventorySerializer.getCodec("paper");
+        byte[] plain = InventorySerializer.toBytes(new ItemStack[2000], codec, false);
+        byte[] deflated = InventorySerializer.toBytes(new ItemStack[2000], codec, true);
+
+        assertEquals(1, deflated[3]);
+        assertTrue(deflated.length < plain.length);
+        assertEquals(2000, InventorySerializer.fromBytes(deflated).length);
+    }
+
+    @Test
+    void everyCodecIsReadWhicheverIsConfiguredForWriting() throws IOException {
+        for (InventoryCodec codec : InventorySerializer.getCodecs()) {
+            byte[] data = InventorySerializer.toBytes(new ItemStack[4], codec, true);
+            assertEquals(codec.getId(), data[2]);
+            assertEquals(4, InventorySerializer.fromBytes(data).length, codec.getName());
+        }
+    }
+
+    @Test
+    void dataWithoutAHeaderIsReadAsLegacyBukkitStreams() throws IOException {
+        byte[] legacy = new BukkitStreamCodec().encode(new ItemStack[36]);
+        assertNotEquals(MAGIC, legacy[0]);
+
+        assertEquals(36, InventorySerializer.fromBytes(legacy).length);
+        assertEquals(36, InventorySerializer.fromBase64(Base64.getEncoder().encodeToString(legacy)).length);
+    }
+
+    @Test
+    void malformedHeadersAreRejected() {
+        assertThrows(IOException.class, () -> InventorySerializer.fromBytes(new byte[]{MAGIC, 1}));
+        assertThrows(IOException.class, () -> InventorySerializer.fromBytes(new byte[]{MAGIC, 9, PaperBytesCodec.ID, 0}));
+        assertThrows(IOException.class, () -> InventorySerializer.fromBytes(new byte[]{MAGIC, 1, 99, 0}));
+    }
+
+    @Test
+    void codecsAreLookedUpByName() {
+        assertEquals(PaperBytesCodec.ID, InventorySerializer.getCodec("PAPER").getId());
+        assertEquals(BukkitStreamCodec.ID, InventorySerializer.getCodec("bukkit").getId());
+        assertNull(InventorySerializer.getCodec("kryo"));
+    }
+}